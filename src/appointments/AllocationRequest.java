@@ -0,0 +1,131 @@
+package appointments;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one patient's request in a bulk allocation, such as a vaccination
+ * or screening campaign: an appointment of a given length on any day within a
+ * window, with any of the preferred doctors.
+ */
+public class AllocationRequest {
+    private String patientId; // Identifier for the patient
+    private LocalDate earliestDate; // The first day the appointment may be on
+    private LocalDate latestDate; // The last day the appointment may be on
+    private int durationMinutes; // The length of the appointment
+    private List<String> preferredDoctorIds; // Doctors the patient may see, in order of preference
+
+    /**
+     * Constructs a new AllocationRequest.
+     *
+     * @param patientId          the unique identifier of the patient
+     * @param earliestDate       the first day the appointment may be on
+     * @param latestDate         the last day the appointment may be on
+     * @param durationMinutes    the length of the appointment in minutes
+     * @param preferredDoctorIds the doctors the patient may see, in order of
+     *                           preference; empty if any doctor will do
+     * @throws IllegalArgumentException if the window ends before it starts
+     */
+    public AllocationRequest(String patientId, LocalDate earliestDate, LocalDate latestDate, int durationMinutes,
+            List<String> preferredDoctorIds) {
+        if (latestDate.isBefore(earliestDate)) {
+            throw new IllegalArgumentException("The date window of a request must not end before it starts");
+        }
+        this.patientId = patientId;
+        this.earliestDate = earliestDate;
+        this.latestDate = latestDate;
+        this.durationMinutes = durationMinutes;
+        this.preferredDoctorIds = new ArrayList<>(preferredDoctorIds);
+    }
+
+    /**
+     * Gets the ID of the patient.
+     *
+     * @return the patient's ID
+     */
+    public String getPatientId() {
+        return patientId;
+    }
+
+    /**
+     * Gets the first day the appointment may be on.
+     *
+     * @return the earliest date
+     */
+    public LocalDate getEarliestDate() {
+        return earliestDate;
+    }
+
+    /**
+     * Gets the last day the appointment may be on.
+     *
+     * @return the latest date
+     */
+    public LocalDate getLatestDate() {
+        return latestDate;
+    }
+
+    /**
+     * Gets the length of the appointment.
+     *
+     * @return the length in minutes
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Gets the doctors the patient may see.
+     *
+     * @return a read-only list of doctor IDs in order of preference, empty if
+     *         any doctor will do
+     */
+    public List<String> getPreferredDoctorIds() {
+        return Collections.unmodifiableList(preferredDoctorIds);
+    }
+
+    /**
+     * Parses a CSV string to create an AllocationRequest object.
+     *
+     * @param csvString the CSV string in the format
+     *                  "patientId,earliestDate,latestDate,durationMinutes[,doctorId|doctorId...]"
+     *                  where the dates are in ISO format (yyyy-MM-dd) and the
+     *                  preferred doctors are optional
+     * @return a new AllocationRequest object
+     * @throws IllegalArgumentException if the CSV string is not in the correct
+     *                                  format
+     */
+    public static AllocationRequest fromCSV(String csvString) {
+        String[] parts = csvString.split(",");
+
+        // Ensure the array has 4 parts, or 5 with the preferred doctors
+        if (parts.length == 4 || parts.length == 5) {
+            List<String> doctorIds = new ArrayList<>();
+            if (parts.length == 5) {
+                for (String doctorId : parts[4].split("\\|")) {
+                    if (!doctorId.trim().isEmpty()) {
+                        doctorIds.add(doctorId.trim());
+                    }
+                }
+            }
+            return new AllocationRequest(parts[0].trim(), LocalDate.parse(parts[1].trim()),
+                    LocalDate.parse(parts[2].trim()), Integer.parseInt(parts[3].trim()), doctorIds);
+        }
+
+        throw new IllegalArgumentException("Invalid CSV format for AllocationRequest: " + csvString);
+    }
+
+    /**
+     * Converts the AllocationRequest object to a string representation.
+     * The format is "patientId,earliestDate,latestDate,durationMinutes,doctorId|doctorId...".
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%d,%s", patientId, earliestDate, latestDate, durationMinutes,
+                String.join("|", preferredDoctorIds));
+    }
+}
@@ -0,0 +1,43 @@
+package appointments;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the outcome of a bulk allocation: the appointments that were
+ * booked and the requests that could not be placed.
+ */
+public class AllocationResult {
+    private List<Appointment> booked; // Appointments booked for the requests
+    private List<AllocationRequest> unallocated; // Requests no doctor had room for
+
+    /**
+     * Constructs a new AllocationResult.
+     *
+     * @param booked      the appointments booked for the requests
+     * @param unallocated the requests that could not be placed
+     */
+    public AllocationResult(List<Appointment> booked, List<AllocationRequest> unallocated) {
+        this.booked = new ArrayList<>(booked);
+        this.unallocated = new ArrayList<>(unallocated);
+    }
+
+    /**
+     * Gets the appointments booked for the requests.
+     *
+     * @return a read-only list of the booked appointments
+     */
+    public List<Appointment> getBooked() {
+        return Collections.unmodifiableList(booked);
+    }
+
+    /**
+     * Gets the requests that could not be placed.
+     *
+     * @return a read-only list of the unallocated requests
+     */
+    public List<AllocationRequest> getUnallocated() {
+        return Collections.unmodifiableList(unallocated);
+    }
+}
@@ -5,19 +5,23 @@ import java.time.LocalTime;
 
 /**
  * Represents an appointment in the system, including details about the doctor,
- * patient, date, time, status, and an optional outcome record.
+ * patient, date, time, length, status, and an optional outcome record.
  */
 public class Appointment {
+    public static final int DEFAULT_DURATION_MINUTES = 60; // Length of appointments booked before lengths were stored
 
     private String appointmentId; // Unique ID for the appointment
     private String doctorId; // ID of the doctor assigned to the appointment
     private String patientId; // ID of the patient linked to the appointment
     private LocalDate appointmentDate; // Date of the appointment
     private LocalTime appointmentTime; // Time of the appointment
+    private int durationMinutes; // Length of the appointment in minutes
     private String status; // Status of the appointment (e.g., confirmed, canceled, completed)
 
     // Outcome record for completed appointments
     private AppointmentOutcomeRecord outcomeRecord;
+    // Looks up the outcome record once the appointment is stored in AppointmentDB
+    private OutcomeRecordResolver outcomeResolver;
 
     /**
      * Constructs an Appointment object with the specified details.
@@ -31,11 +35,32 @@ public class Appointment {
      */
     public Appointment(String appointmentId, String doctorId, String patientId, LocalDate appointmentDate,
             LocalTime appointmentTime, String status) {
+        this(appointmentId, doctorId, patientId, appointmentDate, appointmentTime, DEFAULT_DURATION_MINUTES, status);
+    }
+
+    /**
+     * Constructs an Appointment object of a given length.
+     *
+     * @param appointmentId   the unique ID of the appointment
+     * @param doctorId        the ID of the doctor assigned to the appointment
+     * @param patientId       the ID of the patient linked to the appointment
+     * @param appointmentDate the date of the appointment
+     * @param appointmentTime the time of the appointment
+     * @param durationMinutes the length of the appointment in minutes
+     * @param status          the status of the appointment
+     * @throws IllegalArgumentException if the length is not positive
+     */
+    public Appointment(String appointmentId, String doctorId, String patientId, LocalDate appointmentDate,
+            LocalTime appointmentTime, int durationMinutes, String status) {
+        if (durationMinutes <= 0) {
+            throw new IllegalArgumentException("The length of an appointment must be positive");
+        }
         this.appointmentId = appointmentId;
         this.doctorId = doctorId;
         this.patientId = patientId;
         this.appointmentDate = appointmentDate;
         this.appointmentTime = appointmentTime;
+        this.durationMinutes = durationMinutes;
         this.status = status;
         // Outcome record is initially null
     }
@@ -103,6 +128,24 @@ public class Appointment {
         this.appointmentTime = appointmentTime;
     }
 
+    /**
+     * Gets the length of the appointment.
+     *
+     * @return the length in minutes
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Gets the time the appointment ends.
+     *
+     * @return the end time, exclusive
+     */
+    public LocalTime getEndTime() {
+        return appointmentTime.plusMinutes(durationMinutes);
+    }
+
     /**
      * Gets the status of the appointment.
      *
@@ -123,14 +166,28 @@ public class Appointment {
     }
 
     /**
-     * Gets the outcome record for the appointment, if it exists.
+     * Gets the outcome record for the appointment, if it exists. Once the
+     * appointment is stored, the record is looked up each time it is asked for,
+     * so outcomes recorded or updated later are always seen.
      *
      * @return the outcome record, or null if no record exists
      */
     public AppointmentOutcomeRecord getOutcomeRecord() {
+        if (outcomeResolver != null) {
+            return outcomeResolver.resolve(appointmentId);
+        }
         return outcomeRecord;
     }
 
+    /**
+     * Sets how the outcome record of the appointment is looked up.
+     *
+     * @param outcomeResolver the resolver, or null to stop looking it up
+     */
+    public void setOutcomeResolver(OutcomeRecordResolver outcomeResolver) {
+        this.outcomeResolver = outcomeResolver;
+    }
+
     /**
      * Creates an Appointment object from a CSV-formatted string.
      * This method is intended to be overridden by subclasses.
@@ -145,12 +202,13 @@ public class Appointment {
 
     /**
      * Returns a string representation of the appointment in a CSV format.
+     * The format is "appointmentId,doctorId,patientId,date,time,status,durationMinutes".
      *
      * @return a CSV-formatted string representing the appointment
      */
     @Override
     public String toString() {
-        return String.format("%s,%s,%s,%s,%s,%s", appointmentId, doctorId, patientId,
-                appointmentDate.toString(), appointmentTime.toString(), status);
+        return String.format("%s,%s,%s,%s,%s,%s,%d", appointmentId, doctorId, patientId,
+                appointmentDate.toString(), appointmentTime.toString(), status, durationMinutes);
     }
 }
@@ -0,0 +1,35 @@
+package appointments;
+
+/**
+ * Receives changes to the time appointments hold in a doctor's schedule. An
+ * appointment holds its time from when it is created until it is cancelled or
+ * deleted. Listeners are also told of every update, such as an appointment
+ * being confirmed. Listeners are told after the change has been saved.
+ */
+public interface AppointmentListener {
+
+    /**
+     * Called when an appointment starts holding its time, either because it
+     * was created or because it is no longer cancelled.
+     *
+     * @param appointment the appointment that was booked
+     */
+    void slotBooked(Appointment appointment);
+
+    /**
+     * Called when an appointment stops holding its time, either because it was
+     * cancelled or because it was deleted.
+     *
+     * @param appointment the appointment whose time was freed
+     */
+    void slotFreed(Appointment appointment);
+
+    /**
+     * Called after an appointment is updated, whether or not it still holds
+     * its time. This follows {@link #slotBooked(Appointment)} or
+     * {@link #slotFreed(Appointment)} if the update changed that.
+     *
+     * @param appointment the appointment that was updated
+     */
+    void appointmentUpdated(Appointment appointment);
+}
@@ -59,6 +59,9 @@ public class AppointmentOutcomeRecord {
         String[] prescriptionsArray = prescriptionString.split(";");
 
         for (String presc : prescriptionsArray) {
+            if (presc.isEmpty()) {
+                continue; // No prescriptions
+            }
             try {
                 Prescription prescription = Prescription.fromCSV(presc);
                 prescriptionsList.add(prescription);
@@ -169,6 +172,15 @@ public class AppointmentOutcomeRecord {
         this.consultationNotes = consultationNotes;
     }
 
+    /**
+     * Gets the list of prescriptions provided during the appointment.
+     *
+     * @return the list of prescriptions
+     */
+    public List<Prescription> getPrescriptions() {
+        return prescriptions;
+    }
+
     /**
      * Gets a comma-separated string of all prescribed medications.
      *
@@ -179,7 +191,9 @@ public class AppointmentOutcomeRecord {
         for (Prescription prescription : prescriptions) {
             medications += prescription.getMedicationName() + ", ";
         }
-        medications = medications.substring(0, medications.length() - 2);
+        if (!medications.isEmpty()) {
+            medications = medications.substring(0, medications.length() - 2);
+        }
         return medications;
     }
 
@@ -195,7 +209,9 @@ public class AppointmentOutcomeRecord {
         for (Prescription prescription : prescriptions) {
             prescriptionsString += prescription.toString() + ";";
         }
-        prescriptionsString = prescriptionsString.substring(0, prescriptionsString.length() - 1);
+        if (!prescriptionsString.isEmpty()) {
+            prescriptionsString = prescriptionsString.substring(0, prescriptionsString.length() - 1);
+        }
 
         return appointmentId + "," +
                 patientId + "," +
@@ -0,0 +1,99 @@
+package appointments;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Represents an open appointment slot with a particular doctor, as found by a
+ * search for the earliest available appointments. Slots are ordered by their
+ * start and then by doctor.
+ */
+public class AvailableSlot implements Comparable<AvailableSlot> {
+    private String doctorId; // Identifier for the doctor
+    private LocalDateTime start; // The start of the slot
+    private int durationMinutes; // The length of the appointment the slot fits
+
+    /**
+     * Constructs a new AvailableSlot.
+     *
+     * @param doctorId        the unique identifier of the doctor
+     * @param start           the start of the slot
+     * @param durationMinutes the length of the appointment the slot fits, in
+     *                        minutes
+     */
+    public AvailableSlot(String doctorId, LocalDateTime start, int durationMinutes) {
+        this.doctorId = doctorId;
+        this.start = start;
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * Gets the ID of the doctor.
+     *
+     * @return the doctor's ID
+     */
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    /**
+     * Gets the start of the slot.
+     *
+     * @return the start date and time
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the date of the slot.
+     *
+     * @return the date
+     */
+    public LocalDate getDate() {
+        return start.toLocalDate();
+    }
+
+    /**
+     * Gets the start time of the slot.
+     *
+     * @return the time
+     */
+    public LocalTime getTime() {
+        return start.toLocalTime();
+    }
+
+    /**
+     * Gets the length of the appointment the slot fits.
+     *
+     * @return the length in minutes
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Compares slots by their start and then by doctor ID.
+     *
+     * @param other the slot to compare with
+     * @return a negative number, zero or a positive number as this slot comes
+     *         before, with or after the other
+     */
+    @Override
+    public int compareTo(AvailableSlot other) {
+        int byStart = start.compareTo(other.start);
+        return byStart != 0 ? byStart : doctorId.compareTo(other.doctorId);
+    }
+
+    /**
+     * Converts the AvailableSlot object to a string representation.
+     * The format is "doctorId,date,time,durationMinutes".
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%d", doctorId, getDate(), getTime(), durationMinutes);
+    }
+}
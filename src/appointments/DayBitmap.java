@@ -0,0 +1,207 @@
+package appointments;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Marks which parts of a day are free, in units of five minutes. Each unit is
+ * one bit, so a whole day fits in five longs, and combining days or searching
+ * them for free runs works on 64 units at a time. Finer slot lengths therefore
+ * cost no more to search than whole hours.
+ */
+public class DayBitmap {
+    public static final int UNIT_MINUTES = 5; // Minutes covered by one bit
+    private static final int UNITS = 24 * 60 / UNIT_MINUTES; // Units in a day
+    private static final int WORDS = (UNITS + 63) / 64; // Longs needed to hold a day
+
+    private final long[] words; // Bit i is set if unit i of the day is free
+
+    /**
+     * Constructs a DayBitmap with the whole day busy.
+     */
+    public DayBitmap() {
+        this.words = new long[WORDS];
+    }
+
+    /**
+     * Constructs a copy of another DayBitmap.
+     *
+     * @param other the DayBitmap to copy
+     */
+    public DayBitmap(DayBitmap other) {
+        this.words = other.words.clone();
+    }
+
+    /**
+     * Marks a period as free. Only units that lie wholly inside the period are
+     * marked, so free time is never overstated.
+     *
+     * @param fromMinute the start of the period in minutes since midnight, inclusive
+     * @param toMinute   the end of the period in minutes since midnight, exclusive
+     */
+    public void setFree(int fromMinute, int toMinute) {
+        int from = (Math.max(fromMinute, 0) + UNIT_MINUTES - 1) / UNIT_MINUTES;
+        int to = Math.min(toMinute, UNITS * UNIT_MINUTES) / UNIT_MINUTES;
+        apply(from, to, true);
+    }
+
+    /**
+     * Marks a period as busy. Every unit the period touches is marked, so free
+     * time is never overstated.
+     *
+     * @param fromMinute the start of the period in minutes since midnight, inclusive
+     * @param toMinute   the end of the period in minutes since midnight, exclusive
+     */
+    public void setBusy(int fromMinute, int toMinute) {
+        int from = Math.max(fromMinute, 0) / UNIT_MINUTES;
+        int to = (Math.min(toMinute, UNITS * UNIT_MINUTES) + UNIT_MINUTES - 1) / UNIT_MINUTES;
+        apply(from, to, false);
+    }
+
+    /**
+     * Checks whether every unit of a period is free.
+     *
+     * @param fromMinute the start of the period in minutes since midnight, inclusive
+     * @param toMinute   the end of the period in minutes since midnight, exclusive
+     * @return true if the whole period is free
+     */
+    public boolean isFree(int fromMinute, int toMinute) {
+        if (fromMinute < 0 || toMinute > UNITS * UNIT_MINUTES || toMinute <= fromMinute) {
+            return false;
+        }
+        int from = fromMinute / UNIT_MINUTES;
+        int to = (toMinute + UNIT_MINUTES - 1) / UNIT_MINUTES;
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            long mask = rangeMask(word, from, to);
+            if ((words[word] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the free time in the day.
+     *
+     * @return the number of free minutes
+     */
+    public int countFreeMinutes() {
+        int units = 0;
+        for (long word : words) {
+            units += Long.bitCount(word);
+        }
+        return units * UNIT_MINUTES;
+    }
+
+    /**
+     * Finds the start times at which a free run of the given length begins.
+     * Start times lie on a grid of the given step, counted from midnight.
+     * <p>
+     * The bitmap is ANDed with copies of itself shifted by growing amounts, so
+     * that afterwards a bit is set only where the run starting at that unit is
+     * free throughout. This needs a number of passes that grows with the
+     * logarithm of the length rather than with the length.
+     *
+     * @param stepMinutes   the minutes between possible start times
+     * @param lengthMinutes the length of the free run needed, in minutes
+     * @return the start times, in order
+     */
+    public List<LocalTime> findFreeRuns(int stepMinutes, int lengthMinutes) {
+        int length = (lengthMinutes + UNIT_MINUTES - 1) / UNIT_MINUTES;
+        int step = Math.max(1, stepMinutes / UNIT_MINUTES);
+
+        long[] runs = words.clone();
+        int covered = 1; // Each set bit in runs starts this many free units
+        while (covered < length) {
+            int shift = Math.min(covered, length - covered);
+            long[] shifted = shiftDown(runs, shift);
+            for (int i = 0; i < WORDS; i++) {
+                runs[i] &= shifted[i];
+            }
+            covered += shift;
+        }
+
+        List<LocalTime> starts = new ArrayList<>();
+        for (int word = 0; word < WORDS; word++) {
+            long bits = runs[word] & gridMask(word, step);
+            while (bits != 0) {
+                int unit = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int minute = unit * UNIT_MINUTES;
+                starts.add(LocalTime.of(minute / 60, minute % 60));
+                bits &= bits - 1; // Clear the lowest set bit
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Sets or clears the units in a range.
+     *
+     * @param from the first unit, inclusive
+     * @param to   the last unit, exclusive
+     * @param free true to set the units, false to clear them
+     */
+    private void apply(int from, int to, boolean free) {
+        if (to <= from) {
+            return;
+        }
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            long mask = rangeMask(word, from, to);
+            words[word] = free ? words[word] | mask : words[word] & ~mask;
+        }
+    }
+
+    /**
+     * Builds the mask of the bits of one word that fall within a range of units.
+     *
+     * @param word the index of the word
+     * @param from the first unit, inclusive
+     * @param to   the last unit, exclusive
+     * @return the mask
+     */
+    private static long rangeMask(int word, int from, int to) {
+        int low = Math.max(from - (word << 6), 0);
+        int high = Math.min(to - (word << 6), 64);
+        long upTo = high == 64 ? -1L : (1L << high) - 1;
+        return upTo & (-1L << low);
+    }
+
+    /**
+     * Builds the mask of the bits of one word whose unit lies on a grid.
+     *
+     * @param word the index of the word
+     * @param step the units between grid points, counted from midnight
+     * @return the mask
+     */
+    private static long gridMask(int word, int step) {
+        long mask = 0;
+        int first = ((word << 6) + step - 1) / step * step;
+        for (int unit = first; unit < (word + 1) << 6; unit += step) {
+            mask |= 1L << (unit & 63);
+        }
+        return mask;
+    }
+
+    /**
+     * Shifts a bitmap towards the start of the day, so bit i of the result is
+     * bit i + shift of the source.
+     *
+     * @param source the words to shift
+     * @param shift  the number of units to shift by
+     * @return the shifted words
+     */
+    private static long[] shiftDown(long[] source, int shift) {
+        long[] result = new long[WORDS];
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int i = 0; i + wordShift < WORDS; i++) {
+            long value = source[i + wordShift] >>> bitShift;
+            if (bitShift != 0 && i + wordShift + 1 < WORDS) {
+                value |= source[i + wordShift + 1] << (64 - bitShift);
+            }
+            result[i] = value;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package appointments;
+
+/**
+ * The DispenseListener interface is implemented by classes that want to be
+ * notified when the prescriptions of an appointment outcome record have been
+ * dispensed.
+ */
+public interface DispenseListener {
+
+    /**
+     * Called after an appointment outcome record's prescriptions have been
+     * dispensed and saved.
+     *
+     * @param record the record whose prescriptions were dispensed
+     */
+    void onPrescriptionsDispensed(AppointmentOutcomeRecord record);
+}
@@ -1,28 +1,47 @@
 package appointments;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 /**
- * Represents an unavailable slot for a doctor on a specific date and time.
+ * Represents a block of time during which a doctor is unavailable, from a start
+ * time up to but not including an end time. A block may be part of a day or
+ * span several days, such as a period of leave.
  * This is used to manage and track the doctor's unavailable times.
  */
 public class DoctorUnavailableSlots {
     private String doctorId; // Identifier for the doctor
-    private LocalDate date; // The date of unavailability
-    private LocalTime time; // The time of unavailability
+    private LocalDateTime start; // The start of the unavailability, inclusive
+    private LocalDateTime end; // The end of the unavailability, exclusive
 
     /**
-     * Constructs a new DoctorUnavailableSlots object.
+     * Constructs a new DoctorUnavailableSlots object covering a block of time.
+     *
+     * @param doctorId the unique identifier of the doctor
+     * @param start    the start of the unavailability, inclusive
+     * @param end      the end of the unavailability, exclusive
+     * @throws IllegalArgumentException if the end is not after the start
+     */
+    public DoctorUnavailableSlots(String doctorId, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("The end of an unavailable block must be after its start");
+        }
+        this.doctorId = doctorId;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Constructs a new DoctorUnavailableSlots object covering the one-hour slot
+     * starting at the given date and time.
      *
      * @param doctorId the unique identifier of the doctor
      * @param date     the date of unavailability
      * @param time     the time of unavailability
      */
     public DoctorUnavailableSlots(String doctorId, LocalDate date, LocalTime time) {
-        this.doctorId = doctorId;
-        this.date = date;
-        this.time = time;
+        this(doctorId, date.atTime(time), date.atTime(time).plusHours(1));
     }
 
     /**
@@ -35,29 +54,40 @@ public class DoctorUnavailableSlots {
     }
 
     /**
-     * Gets the date of unavailability.
+     * Gets the start of the unavailability.
+     *
+     * @return the start, inclusive
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the unavailability.
      *
-     * @return the unavailable date
+     * @return the end, exclusive
      */
-    public LocalDate getDate() {
-        return date;
+    public LocalDateTime getEnd() {
+        return end;
     }
 
     /**
-     * Gets the time of unavailability.
+     * Checks whether this block overlaps a period of time.
      *
-     * @return the unavailable time
+     * @param from the start of the period, inclusive
+     * @param to   the end of the period, exclusive
+     * @return true if any part of the period falls within this block
      */
-    public LocalTime getTime() {
-        return time;
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return start.isBefore(to) && end.isAfter(from);
     }
 
     /**
      * Parses a CSV string to create a DoctorUnavailableSlots object.
      *
-     * @param csvString the CSV string in the format "doctorId|date|time"
-     *                  where date is in ISO format (yyyy-MM-dd) and time is in ISO
-     *                  format (HH:mm)
+     * @param csvString the CSV string in the format "doctorId|start|end"
+     *                  where start and end are in ISO format
+     *                  (yyyy-MM-ddTHH:mm)
      * @return a new DoctorUnavailableSlots object
      * @throws IllegalArgumentException if the CSV string is not in the correct
      *                                  format
@@ -65,13 +95,13 @@ public class DoctorUnavailableSlots {
     public static DoctorUnavailableSlots fromCSV(String csvString) {
         String[] parts = csvString.split("\\|");
 
-        // Ensure the array has exactly 3 parts (doctorId, date, and time)
+        // Ensure the array has exactly 3 parts (doctorId, start, and end)
         if (parts.length == 3) {
             String doctorId = parts[0];
-            LocalDate date = LocalDate.parse(parts[1]); // Assuming the date is in ISO format (yyyy-MM-dd)
-            LocalTime time = LocalTime.parse(parts[2]); // Assuming the time is in ISO format (HH:mm)
+            LocalDateTime start = LocalDateTime.parse(parts[1]); // Assuming the start is in ISO format
+            LocalDateTime end = LocalDateTime.parse(parts[2]); // Assuming the end is in ISO format
 
-            return new DoctorUnavailableSlots(doctorId, date, time);
+            return new DoctorUnavailableSlots(doctorId, start, end);
         }
 
         throw new IllegalArgumentException("Invalid CSV format for DoctorUnavailableSlots: " + csvString);
@@ -79,12 +109,12 @@ public class DoctorUnavailableSlots {
 
     /**
      * Converts the DoctorUnavailableSlots object to a string representation.
-     * The format is "doctorId,date,time".
+     * The format is "doctorId,start,end".
      *
      * @return a string representation of the object
      */
     @Override
     public String toString() {
-        return String.format("%s,%s,%s", doctorId, date.toString(), time.toString());
+        return String.format("%s,%s,%s", doctorId, start.toString(), end.toString());
     }
 }
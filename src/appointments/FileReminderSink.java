@@ -0,0 +1,37 @@
+package appointments;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+
+/**
+ * A ReminderSink that appends each reminder to a file, one line per reminder,
+ * in the format "deliveredAt,appointmentId,patientId,doctorId,appointmentStart,leadTime".
+ */
+public class FileReminderSink implements ReminderSink {
+    private final String filename; // The file reminders are appended to
+
+    /**
+     * Constructs a FileReminderSink that appends to the given file.
+     *
+     * @param filename the path of the file
+     */
+    public FileReminderSink(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * Appends a reminder to the file.
+     *
+     * @param reminder the reminder that is due
+     */
+    @Override
+    public synchronized void deliver(Reminder reminder) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename, true))) {
+            writer.println(LocalDateTime.now().withNano(0) + "," + reminder);
+        } catch (IOException e) {
+            System.err.println("Error writing reminder to " + filename + ": " + e.getMessage());
+        }
+    }
+}
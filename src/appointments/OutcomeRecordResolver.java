@@ -0,0 +1,16 @@
+package appointments;
+
+/**
+ * Looks up the outcome record of an appointment, so an Appointment can find its
+ * outcome when asked rather than having it attached when it is loaded.
+ */
+public interface OutcomeRecordResolver {
+
+    /**
+     * Finds the outcome record of an appointment.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the outcome record, or null if none has been recorded
+     */
+    AppointmentOutcomeRecord resolve(String appointmentId);
+}
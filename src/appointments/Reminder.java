@@ -0,0 +1,95 @@
+package appointments;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a reminder of an upcoming appointment, sent a set time before the
+ * appointment starts.
+ */
+public class Reminder {
+    private String appointmentId; // Identifier for the appointment
+    private String patientId; // Identifier for the patient to remind
+    private String doctorId; // Identifier for the doctor
+    private LocalDateTime appointmentStart; // When the appointment starts
+    private Duration leadTime; // How long before the appointment the reminder is sent
+
+    /**
+     * Constructs a new Reminder.
+     *
+     * @param appointment the appointment to remind the patient of
+     * @param leadTime    how long before the appointment the reminder is sent
+     */
+    public Reminder(Appointment appointment, Duration leadTime) {
+        this.appointmentId = appointment.getAppointmentId();
+        this.patientId = appointment.getPatientId();
+        this.doctorId = appointment.getDoctorId();
+        this.appointmentStart = appointment.getAppointmentDate().atTime(appointment.getAppointmentTime());
+        this.leadTime = leadTime;
+    }
+
+    /**
+     * Gets the ID of the appointment.
+     *
+     * @return the appointment ID
+     */
+    public String getAppointmentId() {
+        return appointmentId;
+    }
+
+    /**
+     * Gets the ID of the patient to remind.
+     *
+     * @return the patient ID
+     */
+    public String getPatientId() {
+        return patientId;
+    }
+
+    /**
+     * Gets the ID of the doctor.
+     *
+     * @return the doctor ID
+     */
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    /**
+     * Gets when the appointment starts.
+     *
+     * @return the start of the appointment
+     */
+    public LocalDateTime getAppointmentStart() {
+        return appointmentStart;
+    }
+
+    /**
+     * Gets how long before the appointment the reminder is sent.
+     *
+     * @return the lead time
+     */
+    public Duration getLeadTime() {
+        return leadTime;
+    }
+
+    /**
+     * Gets when the reminder is due.
+     *
+     * @return the appointment start less the lead time
+     */
+    public LocalDateTime getDueAt() {
+        return appointmentStart.minus(leadTime);
+    }
+
+    /**
+     * Converts the Reminder object to a string representation.
+     * The format is "appointmentId,patientId,doctorId,appointmentStart,leadTime".
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%s,%s", appointmentId, patientId, doctorId, appointmentStart, leadTime);
+    }
+}
@@ -0,0 +1,15 @@
+package appointments;
+
+/**
+ * Receives reminders when they are due. Sinks are local, such as a log or a
+ * file, so reminders can be checked without any outside service.
+ */
+public interface ReminderSink {
+
+    /**
+     * Delivers a reminder. Called from the reminder service's own thread.
+     *
+     * @param reminder the reminder that is due
+     */
+    void deliver(Reminder reminder);
+}
@@ -0,0 +1,102 @@
+package appointments;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Represents one line of a doctor's weekly schedule template: a period on a
+ * day of the week that either is part of the doctor's working hours or is a
+ * recurring break from them, such as every Wednesday afternoon off.
+ */
+public class ScheduleTemplateEntry {
+
+    /**
+     * Whether an entry adds working hours or takes time off.
+     */
+    public enum Type {
+        WORK, OFF
+    }
+
+    private String doctorId; // Identifier for the doctor
+    private DayOfWeek dayOfWeek; // The day of the week the entry applies to
+    private LocalTime start; // The start of the period, inclusive
+    private LocalTime end; // The end of the period, exclusive
+    private Type type; // Whether the period is working time or time off
+
+    /**
+     * Constructs a new ScheduleTemplateEntry.
+     *
+     * @param doctorId  the unique identifier of the doctor
+     * @param dayOfWeek the day of the week the entry applies to
+     * @param start     the start of the period, inclusive
+     * @param end       the end of the period, exclusive
+     * @param type      whether the period is working time or time off
+     * @throws IllegalArgumentException if the end is not after the start
+     */
+    public ScheduleTemplateEntry(String doctorId, DayOfWeek dayOfWeek, LocalTime start, LocalTime end, Type type) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("The end of a template entry must be after its start");
+        }
+        this.doctorId = doctorId;
+        this.dayOfWeek = dayOfWeek;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+    }
+
+    /**
+     * Gets the ID of the doctor.
+     *
+     * @return the doctor's ID
+     */
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    /**
+     * Gets the day of the week the entry applies to.
+     *
+     * @return the day of the week
+     */
+    public DayOfWeek getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    /**
+     * Gets the start of the period.
+     *
+     * @return the start, inclusive
+     */
+    public LocalTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the end of the period.
+     *
+     * @return the end, exclusive
+     */
+    public LocalTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets whether the period is working time or time off.
+     *
+     * @return the type of the entry
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Converts the ScheduleTemplateEntry object to a string representation.
+     * The format is "doctorId,dayOfWeek,start,end,type".
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%s,%s", doctorId, dayOfWeek, start, end, type);
+    }
+}
@@ -0,0 +1,49 @@
+package appointments;
+
+/**
+ * Represents a patient's visit: an appointment together with its outcome
+ * record, if one has been recorded.
+ */
+public class Visit {
+    private Appointment appointment; // The appointment
+    private AppointmentOutcomeRecord outcomeRecord; // The outcome of the appointment, or null
+
+    /**
+     * Constructs a Visit.
+     *
+     * @param appointment   the appointment
+     * @param outcomeRecord the outcome record of the appointment, or null if
+     *                      none has been recorded
+     */
+    public Visit(Appointment appointment, AppointmentOutcomeRecord outcomeRecord) {
+        this.appointment = appointment;
+        this.outcomeRecord = outcomeRecord;
+    }
+
+    /**
+     * Gets the appointment.
+     *
+     * @return the appointment
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Gets the outcome record of the appointment.
+     *
+     * @return the outcome record, or null if none has been recorded
+     */
+    public AppointmentOutcomeRecord getOutcomeRecord() {
+        return outcomeRecord;
+    }
+
+    /**
+     * Checks whether an outcome has been recorded for the appointment.
+     *
+     * @return true if the visit has an outcome record, false otherwise
+     */
+    public boolean hasOutcome() {
+        return outcomeRecord != null;
+    }
+}
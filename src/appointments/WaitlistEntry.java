@@ -0,0 +1,101 @@
+package appointments;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a patient waiting for an appointment with a doctor on a day that
+ * was fully booked. If an appointment on that day is cancelled, the freed time
+ * is offered to the patients waiting for it in the order they joined.
+ */
+public class WaitlistEntry {
+    private String patientId; // Identifier for the waiting patient
+    private String doctorId; // Identifier for the doctor
+    private LocalDate date; // The day the patient wants an appointment on
+    private int durationMinutes; // The length of the appointment wanted
+    private LocalDateTime joinedAt; // When the patient joined the waitlist
+
+    /**
+     * Constructs a new WaitlistEntry.
+     *
+     * @param patientId       the unique identifier of the patient
+     * @param doctorId        the unique identifier of the doctor
+     * @param date            the day the patient wants an appointment on
+     * @param durationMinutes the length of the appointment wanted, in minutes
+     * @param joinedAt        when the patient joined the waitlist
+     */
+    public WaitlistEntry(String patientId, String doctorId, LocalDate date, int durationMinutes,
+            LocalDateTime joinedAt) {
+        this.patientId = patientId;
+        this.doctorId = doctorId;
+        this.date = date;
+        this.durationMinutes = durationMinutes;
+        this.joinedAt = joinedAt;
+    }
+
+    /**
+     * Gets the ID of the patient.
+     *
+     * @return the patient's ID
+     */
+    public String getPatientId() {
+        return patientId;
+    }
+
+    /**
+     * Gets the ID of the doctor.
+     *
+     * @return the doctor's ID
+     */
+    public String getDoctorId() {
+        return doctorId;
+    }
+
+    /**
+     * Gets the day the patient wants an appointment on.
+     *
+     * @return the date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the length of the appointment wanted.
+     *
+     * @return the length in minutes
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Gets when the patient joined the waitlist.
+     *
+     * @return the date and time the patient joined
+     */
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+
+    /**
+     * Gets the ID of the entry. A patient can only wait once for the same
+     * doctor and day, so these identify the entry.
+     *
+     * @return the ID, in the format "patientId|doctorId|date"
+     */
+    public String getId() {
+        return patientId + "|" + doctorId + "|" + date;
+    }
+
+    /**
+     * Converts the WaitlistEntry object to a string representation.
+     * The format is "patientId,doctorId,date,durationMinutes,joinedAt".
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%d,%s", patientId, doctorId, date, durationMinutes, joinedAt);
+    }
+}
@@ -4,21 +4,48 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import appointments.Appointment;
+import appointments.AppointmentListener;
+import appointments.Visit;
 
 /**
  * A database class to manage Appointment objects.
  * Handles CRUD operations and provides methods to interact with appointment
  * data,
  * including loading and saving to a CSV file.
+ * Also keeps an index of which patients are under each doctor's care, meaning
+ * they have a confirmed appointment with that doctor. The index is updated
+ * whenever an appointment is created, updated or deleted.
+ * Listeners can be registered to hear when an appointment starts or stops
+ * holding its time in a doctor's schedule, and when it is updated.
+ * Appointments are indexed by ID and by patient, and joined to their outcome
+ * records by appointment ID, so a patient's visits can be read without
+ * scanning either table.
  */
 public class AppointmentDB extends Database<Appointment> {
     private List<Appointment> appointments; // List of appointments
+    private Map<String, Appointment> appointmentsById; // Appointment ID -> appointment
+    private Map<String, List<Appointment>> appointmentsByPatient; // Patient ID -> their appointments
+    private AppointmentOutcomeRecordDB outcomeRecordDB; // Outcome records, joined by appointment ID
+    // Doctor ID -> patient ID -> dates of their confirmed appointments, with the number on each date
+    private Map<String, Map<String, TreeMap<LocalDate, Integer>>> careIndex;
+    private Map<String, CareVisit> indexedVisits; // Appointment ID -> the visit it was indexed under
+    private Set<String> holdingIds; // IDs of appointments that hold their time, i.e. are not cancelled
+    private List<AppointmentListener> listeners; // Told when appointments book or free their time
     private static final String filename = "csv_data/Appointment_List.csv"; // Filepath for CSV file
-    private static final String header = "AppointmentID,DoctorID,PatientID,AppointmentDate,TimeSlot,Status"; // CSV file
-                                                                                                             // header
+    // CSV file header
+    private static final String header = "AppointmentID,DoctorID,PatientID,AppointmentDate,TimeSlot,Status,DurationMinutes";
 
     /**
      * Constructs an AppointmentDB instance and initializes the list of
@@ -27,6 +54,62 @@ public class AppointmentDB extends Database<Appointment> {
     public AppointmentDB() {
         super(filename); // Pass the filename to the parent class
         this.appointments = new ArrayList<>();
+        this.appointmentsById = new HashMap<>();
+        this.appointmentsByPatient = new HashMap<>();
+        this.careIndex = new HashMap<>();
+        this.indexedVisits = new HashMap<>();
+        this.holdingIds = new HashSet<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Joins appointments to their outcome records, so that
+     * {@link Appointment#getOutcomeRecord()} and
+     * {@link #getPatientVisits(String)} can find them.
+     *
+     * @param outcomeRecordDB the database of appointment outcome records
+     */
+    public void setOutcomeRecordDB(AppointmentOutcomeRecordDB outcomeRecordDB) {
+        this.outcomeRecordDB = outcomeRecordDB;
+        for (Appointment appointment : appointments) {
+            appointment.setOutcomeResolver(outcomeRecordDB::getById);
+        }
+    }
+
+    /**
+     * Registers a listener to be told when appointments book or free their
+     * time.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(AppointmentListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addListener(AppointmentListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(AppointmentListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * The doctor, patient and date an appointment was indexed under. These are
+     * kept separately because appointments are changed in place before they
+     * are passed to {@link #update(Appointment)}.
+     */
+    private static class CareVisit {
+        private String doctorId;
+        private String patientId;
+        private LocalDate date;
+
+        CareVisit(String doctorId, String patientId, LocalDate date) {
+            this.doctorId = doctorId;
+            this.patientId = patientId;
+            this.date = date;
+        }
     }
 
     /**
@@ -39,16 +122,55 @@ public class AppointmentDB extends Database<Appointment> {
     public boolean create(Appointment appointment) {
         if (appointment != null) {
             appointments.add(appointment);
+            indexAppointment(appointment);
+            indexCare(appointment);
+            boolean holding = holdsTime(appointment) && holdingIds.add(appointment.getAppointmentId());
+            markModified();
             try {
                 save(); // Automatically save after creating
             } catch (IOException e) {
                 System.err.println("Error saving data after creating appointment: " + e.getMessage());
             }
+            if (holding) {
+                fireSlotBooked(appointment);
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Creates several appointments and saves them to the file in one write,
+     * rather than rewriting the file once per appointment.
+     *
+     * @param newAppointments the Appointment objects to be created
+     * @return true if the appointments were added, false if there were none
+     */
+    public boolean createAll(List<Appointment> newAppointments) {
+        if (newAppointments == null || newAppointments.isEmpty()) {
+            return false;
+        }
+        List<Appointment> holding = new ArrayList<>();
+        for (Appointment appointment : newAppointments) {
+            appointments.add(appointment);
+            indexAppointment(appointment);
+            indexCare(appointment);
+            if (holdsTime(appointment) && holdingIds.add(appointment.getAppointmentId())) {
+                holding.add(appointment);
+            }
+        }
+        markModified();
+        try {
+            save(); // Save the whole batch at once
+        } catch (IOException e) {
+            System.err.println("Error saving data after creating appointments: " + e.getMessage());
+        }
+        for (Appointment appointment : holding) {
+            fireSlotBooked(appointment);
+        }
+        return true;
+    }
+
     /**
      * Retrieves an appointment by its unique ID.
      *
@@ -57,12 +179,7 @@ public class AppointmentDB extends Database<Appointment> {
      */
     @Override
     public Appointment getById(String appointmentId) {
-        for (Appointment appointment : appointments) {
-            if (appointment.getAppointmentId().equals(appointmentId)) {
-                return appointment;
-            }
-        }
-        return null; // Appointment not found
+        return appointmentsById.get(appointmentId); // Null if the appointment is not found
     }
 
     /**
@@ -72,7 +189,7 @@ public class AppointmentDB extends Database<Appointment> {
      */
     @Override
     public List<Appointment> getAll() {
-        return appointments;
+        return new ArrayList<>(appointments); // Return a copy for safety
     }
 
     /**
@@ -87,11 +204,26 @@ public class AppointmentDB extends Database<Appointment> {
         if (existingAppointment != null) {
             appointments.remove(existingAppointment);
             appointments.add(appointment);
+            unindexAppointment(existingAppointment);
+            indexAppointment(appointment);
+            unindexCare(existingAppointment.getAppointmentId());
+            indexCare(appointment);
+            boolean wasHolding = holdingIds.remove(appointment.getAppointmentId());
+            boolean isHolding = holdsTime(appointment) && holdingIds.add(appointment.getAppointmentId());
+            markModified();
             try {
                 save(); // Automatically save after updating
             } catch (IOException e) {
                 System.err.println("Error saving data after updating appointment: " + e.getMessage());
             }
+            if (isHolding && !wasHolding) {
+                fireSlotBooked(appointment);
+            } else if (wasHolding && !isHolding) {
+                fireSlotFreed(appointment);
+            }
+            for (AppointmentListener listener : listeners) {
+                listener.appointmentUpdated(appointment);
+            }
             return true;
         }
         return false; // Appointment not found
@@ -108,11 +240,18 @@ public class AppointmentDB extends Database<Appointment> {
         Appointment existingAppointment = getById(appointmentId);
         if (existingAppointment != null) {
             appointments.remove(existingAppointment);
+            unindexAppointment(existingAppointment);
+            unindexCare(appointmentId);
+            boolean wasHolding = holdingIds.remove(appointmentId);
+            markModified();
             try {
                 save(); // Automatically save after deleting
             } catch (IOException e) {
                 System.err.println("Error saving data after deleting appointment: " + e.getMessage());
             }
+            if (wasHolding) {
+                fireSlotFreed(existingAppointment);
+            }
             return true;
         }
         return false; // Appointment not found
@@ -142,16 +281,25 @@ public class AppointmentDB extends Database<Appointment> {
         for (String line : lines) {
             String[] tokens = splitLine(line); // Split line into tokens
 
-            if (tokens.length == 6) { // Make sure there are enough tokens in the line
+            // Lines saved before appointment lengths were stored have no DurationMinutes
+            if (tokens.length == 6 || tokens.length == 7) { // Make sure there are enough tokens in the line
                 Appointment appointment = new Appointment(
                         tokens[0], // AppointmentID
                         tokens[1], // PatientID
                         tokens[2], // DoctorID
                         LocalDate.parse(tokens[3]), // AppointmentDate
                         LocalTime.parse(tokens[4]), // AppointmentTime
+                        tokens.length == 7 ? Integer.parseInt(tokens[6].trim()) // DurationMinutes
+                                : Appointment.DEFAULT_DURATION_MINUTES,
                         tokens[5] // Status
                 );
                 appointments.add(appointment);
+                indexAppointment(appointment);
+                indexCare(appointment);
+                if (holdsTime(appointment)) {
+                    holdingIds.add(appointment.getAppointmentId());
+                }
+                markModified();
             } else {
                 System.out.println("Invalid line in " + filename + ": " + line);
             }
@@ -182,12 +330,174 @@ public class AppointmentDB extends Database<Appointment> {
      * @return a list of Appointment objects for the specified patient
      */
     public List<Appointment> getPatientAppointments(String patientId) {
-        List<Appointment> patientAppointments = new ArrayList<>();
-        for (Appointment appointment : appointments) {
-            if (appointment.getPatientId().equals(patientId)) {
-                patientAppointments.add(appointment);
+        return new ArrayList<>(appointmentsByPatient.getOrDefault(patientId, Collections.emptyList()));
+    }
+
+    /**
+     * Retrieves a patient's visits: each of their appointments with its outcome
+     * record, ordered by date and time.
+     *
+     * @param patientId the unique ID of the patient
+     * @return a list of Visit objects for the specified patient
+     */
+    public List<Visit> getPatientVisits(String patientId) {
+        List<Visit> visits = new ArrayList<>();
+        for (Appointment appointment : appointmentsByPatient.getOrDefault(patientId, Collections.emptyList())) {
+            visits.add(new Visit(appointment,
+                    outcomeRecordDB != null ? outcomeRecordDB.getById(appointment.getAppointmentId()) : null));
+        }
+        visits.sort(Comparator.comparing((Visit visit) -> visit.getAppointment().getAppointmentDate())
+                .thenComparing(visit -> visit.getAppointment().getAppointmentTime()));
+        return visits;
+    }
+
+    /**
+     * Retrieves the patients under a doctor's care.
+     *
+     * @param doctorId the unique ID of the doctor
+     * @return a read-only set of the IDs of patients with a confirmed appointment
+     *         with the doctor
+     */
+    public Set<String> getPatientsUnderCare(String doctorId) {
+        Map<String, TreeMap<LocalDate, Integer>> patients = careIndex.get(doctorId);
+        if (patients == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(patients.keySet());
+    }
+
+    /**
+     * Checks whether a patient is under a doctor's care.
+     *
+     * @param doctorId  the unique ID of the doctor
+     * @param patientId the unique ID of the patient
+     * @return true if the patient has a confirmed appointment with the doctor,
+     *         false otherwise
+     */
+    public boolean isUnderCare(String doctorId, String patientId) {
+        Map<String, TreeMap<LocalDate, Integer>> patients = careIndex.get(doctorId);
+        return patients != null && patients.containsKey(patientId);
+    }
+
+    /**
+     * Retrieves the date of a patient's latest confirmed appointment with a
+     * doctor.
+     *
+     * @param doctorId  the unique ID of the doctor
+     * @param patientId the unique ID of the patient
+     * @return the date of the latest confirmed appointment, or null if the patient
+     *         is not under the doctor's care
+     */
+    public LocalDate getLastVisit(String doctorId, String patientId) {
+        Map<String, TreeMap<LocalDate, Integer>> patients = careIndex.get(doctorId);
+        if (patients == null || !patients.containsKey(patientId)) {
+            return null;
+        }
+        return patients.get(patientId).lastKey();
+    }
+
+    /**
+     * Adds an appointment to the ID and patient indexes and joins it to its
+     * outcome record.
+     *
+     * @param appointment the appointment to index
+     */
+    private void indexAppointment(Appointment appointment) {
+        appointmentsById.put(appointment.getAppointmentId(), appointment);
+        appointmentsByPatient.computeIfAbsent(appointment.getPatientId(), key -> new ArrayList<>())
+                .add(appointment);
+        if (outcomeRecordDB != null) {
+            appointment.setOutcomeResolver(outcomeRecordDB::getById);
+        }
+    }
+
+    /**
+     * Removes an appointment from the ID and patient indexes.
+     *
+     * @param appointment the appointment to remove
+     */
+    private void unindexAppointment(Appointment appointment) {
+        appointmentsById.remove(appointment.getAppointmentId());
+        List<Appointment> patientAppointments = appointmentsByPatient.get(appointment.getPatientId());
+        if (patientAppointments != null) {
+            patientAppointments.remove(appointment);
+            if (patientAppointments.isEmpty()) {
+                appointmentsByPatient.remove(appointment.getPatientId());
             }
         }
-        return patientAppointments;
+    }
+
+    /**
+     * Checks whether an appointment holds its time in the doctor's schedule.
+     *
+     * @param appointment the appointment to check
+     * @return true if the appointment is not cancelled
+     */
+    private boolean holdsTime(Appointment appointment) {
+        return !appointment.getStatus().equalsIgnoreCase("Cancelled");
+    }
+
+    /**
+     * Tells every listener that an appointment now holds its time.
+     *
+     * @param appointment the appointment that was booked
+     */
+    private void fireSlotBooked(Appointment appointment) {
+        for (AppointmentListener listener : listeners) {
+            listener.slotBooked(appointment);
+        }
+    }
+
+    /**
+     * Tells every listener that an appointment no longer holds its time.
+     *
+     * @param appointment the appointment whose time was freed
+     */
+    private void fireSlotFreed(Appointment appointment) {
+        for (AppointmentListener listener : listeners) {
+            listener.slotFreed(appointment);
+        }
+    }
+
+    /**
+     * Adds an appointment to the care index if it is confirmed.
+     *
+     * @param appointment the appointment to index
+     */
+    private void indexCare(Appointment appointment) {
+        if (!appointment.getStatus().equalsIgnoreCase("Confirmed")) {
+            return;
+        }
+        CareVisit visit = new CareVisit(appointment.getDoctorId(), appointment.getPatientId(),
+                appointment.getAppointmentDate());
+        indexedVisits.put(appointment.getAppointmentId(), visit);
+        careIndex.computeIfAbsent(visit.doctorId, key -> new LinkedHashMap<>())
+                .computeIfAbsent(visit.patientId, key -> new TreeMap<>())
+                .merge(visit.date, 1, Integer::sum);
+    }
+
+    /**
+     * Removes an appointment from the care index, using the visit it was indexed
+     * under. Patients with no confirmed appointments left are removed from the
+     * doctor's care.
+     *
+     * @param appointmentId the unique ID of the appointment
+     */
+    private void unindexCare(String appointmentId) {
+        CareVisit visit = indexedVisits.remove(appointmentId);
+        if (visit == null) {
+            return;
+        }
+        Map<String, TreeMap<LocalDate, Integer>> patients = careIndex.get(visit.doctorId);
+        TreeMap<LocalDate, Integer> dates = patients.get(visit.patientId);
+        if (dates.merge(visit.date, -1, Integer::sum) == 0) {
+            dates.remove(visit.date);
+        }
+        if (dates.isEmpty()) {
+            patients.remove(visit.patientId);
+        }
+        if (patients.isEmpty()) {
+            careIndex.remove(visit.doctorId);
+        }
     }
 }
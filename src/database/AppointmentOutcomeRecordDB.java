@@ -4,7 +4,12 @@ import appointments.AppointmentOutcomeRecord;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A database class to manage AppointmentOutcomeRecord objects.
@@ -13,7 +18,10 @@ import java.util.List;
  * including loading and saving to a CSV file.
  */
 public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecord> {
-    private List<AppointmentOutcomeRecord> outcomeRecords; // List of outcome records
+    private Map<String, AppointmentOutcomeRecord> outcomeRecords; // Outcome records keyed by appointment ID
+    private Map<String, List<AppointmentOutcomeRecord>> recordsByPatient; // Patient ID -> records ordered by date
+    private static final Comparator<AppointmentOutcomeRecord> BY_DATE = Comparator
+            .comparing(AppointmentOutcomeRecord::getAppointmentDate);
     private static final String filename = "csv_data/Appointment_Outcome_Record.csv"; // Filepath for CSV file
     private static final String header = "AppointmentID,PatientId,Date,Service Type,Prescriptions,Prescribed,Consultation Notes"; // CSV
                                                                                                                                   // file
@@ -25,7 +33,8 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
      */
     public AppointmentOutcomeRecordDB() {
         super(filename); // Pass the filename to the parent class
-        this.outcomeRecords = new ArrayList<>();
+        this.outcomeRecords = new LinkedHashMap<>();
+        this.recordsByPatient = new HashMap<>();
     }
 
     /**
@@ -37,7 +46,11 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
     @Override
     public boolean create(AppointmentOutcomeRecord record) {
         if (record != null) {
-            outcomeRecords.add(record);
+            if (outcomeRecords.containsKey(record.getAppointmentId())) {
+                System.err.println("Appointment outcome record " + record.getAppointmentId() + " already exists.");
+                return false;
+            }
+            addRecord(record);
             try {
                 save(); // Automatically save after creation
             } catch (IOException e) {
@@ -56,12 +69,7 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
      */
     @Override
     public AppointmentOutcomeRecord getById(String appointmentId) {
-        for (AppointmentOutcomeRecord record : outcomeRecords) {
-            if (record.getAppointmentId().equals(appointmentId)) {
-                return record;
-            }
-        }
-        return null; // Record not found
+        return outcomeRecords.get(appointmentId); // Null if the record is not found
     }
 
     /**
@@ -71,7 +79,7 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
      */
     @Override
     public List<AppointmentOutcomeRecord> getAll() {
-        return outcomeRecords;
+        return new ArrayList<>(outcomeRecords.values());
     }
 
     /**
@@ -85,8 +93,8 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
     public boolean update(AppointmentOutcomeRecord updatedRecord) {
         AppointmentOutcomeRecord existingRecord = getById(updatedRecord.getAppointmentId());
         if (existingRecord != null) {
-            outcomeRecords.remove(existingRecord);
-            outcomeRecords.add(updatedRecord);
+            removeRecord(existingRecord);
+            addRecord(updatedRecord);
             try {
                 save(); // Automatically save after update
             } catch (IOException e) {
@@ -108,7 +116,7 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
     public boolean delete(String appointmentId) {
         AppointmentOutcomeRecord record = getById(appointmentId);
         if (record != null) {
-            outcomeRecords.remove(record);
+            removeRecord(record);
             try {
                 save(); // Automatically save after deletion
             } catch (IOException e) {
@@ -127,7 +135,7 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
      */
     @Override
     public boolean save() throws IOException {
-        saveData(filename, outcomeRecords, header);
+        saveData(filename, new ArrayList<>(outcomeRecords.values()), header);
         return true;
     }
 
@@ -153,7 +161,11 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
                         tokens[5], // prescribed
                         tokens[6] // consultation notes
                 );
-                outcomeRecords.add(record);
+                if (outcomeRecords.containsKey(record.getAppointmentId())) {
+                    System.out.println("Duplicate appointment ID in " + filename + ": " + line);
+                } else {
+                    addRecord(record);
+                }
             } else {
                 System.out.println("Invalid line in " + filename + ": " + line);
             }
@@ -168,12 +180,84 @@ public class AppointmentOutcomeRecordDB extends Database<AppointmentOutcomeRecor
      * @return a list of AppointmentOutcomeRecord objects for the specified patient
      */
     public List<AppointmentOutcomeRecord> getByPatientId(String patientId) {
-        List<AppointmentOutcomeRecord> records = new ArrayList<>();
-        for (AppointmentOutcomeRecord record : outcomeRecords) {
-            if (record.getPatientId().equals(patientId)) {
-                records.add(record);
+        return new ArrayList<>(recordsByPatient.getOrDefault(patientId, Collections.emptyList()));
+    }
+
+    /**
+     * Retrieves one page of a patient's appointment outcome records, ordered by
+     * appointment date from oldest to newest.
+     *
+     * @param patientId the unique ID of the patient
+     * @param page      the zero-based page number
+     * @param pageSize  the maximum number of records per page
+     * @return the records on the requested page, or an empty list if the page is
+     *         past the last record
+     * @throws IllegalArgumentException if the page is negative or the page size
+     *                                  is not positive
+     */
+    public List<AppointmentOutcomeRecord> getByPatientId(String patientId, int page, int pageSize) {
+        if (page < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Page must not be negative and page size must be positive.");
+        }
+        List<AppointmentOutcomeRecord> records = recordsByPatient.getOrDefault(patientId, Collections.emptyList());
+        long from = (long) page * pageSize; // Cannot overflow, as both are below 2^31
+        if (from >= records.size()) {
+            return new ArrayList<>();
+        }
+        int to = (int) Math.min(from + pageSize, records.size());
+        return new ArrayList<>(records.subList((int) from, to));
+    }
+
+    /**
+     * Counts the appointment outcome records of a specific patient.
+     *
+     * @param patientId the unique ID of the patient
+     * @return the number of records for the patient
+     */
+    public int countByPatientId(String patientId) {
+        return recordsByPatient.getOrDefault(patientId, Collections.emptyList()).size();
+    }
+
+    /**
+     * Adds a record to the primary map and to its patient's date-ordered list.
+     *
+     * @param record the record to add
+     */
+    private void addRecord(AppointmentOutcomeRecord record) {
+        outcomeRecords.put(record.getAppointmentId(), record);
+        List<AppointmentOutcomeRecord> patientRecords = recordsByPatient.computeIfAbsent(record.getPatientId(),
+                key -> new ArrayList<>());
+
+        // Insert after any records on the same date so that ties keep their
+        // insertion order
+        int low = 0;
+        int high = patientRecords.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BY_DATE.compare(patientRecords.get(mid), record) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        patientRecords.add(low, record);
+        markModified();
+    }
+
+    /**
+     * Removes a record from the primary map and from its patient's list.
+     *
+     * @param record the record to remove
+     */
+    private void removeRecord(AppointmentOutcomeRecord record) {
+        outcomeRecords.remove(record.getAppointmentId());
+        List<AppointmentOutcomeRecord> patientRecords = recordsByPatient.get(record.getPatientId());
+        if (patientRecords != null) {
+            patientRecords.remove(record);
+            if (patientRecords.isEmpty()) {
+                recordsByPatient.remove(record.getPatientId());
             }
         }
-        return records;
+        markModified();
     }
 }
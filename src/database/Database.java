@@ -1,10 +1,13 @@
 package database;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
 
@@ -28,6 +31,22 @@ public abstract class Database<T> {
      */
     private static final String SEPARATOR = ",";
 
+    /**
+     * The number of changes made to the data, used to tell whether the cached
+     * snapshot is still current.
+     */
+    private volatile long version;
+
+    /**
+     * The version of the data that the cached snapshot was taken at.
+     */
+    private long snapshotVersion = -1;
+
+    /**
+     * The cached read-only snapshot of all entities.
+     */
+    private List<T> snapshot;
+
     /**
      * Constructs a Database object with the specified file name.
      *
@@ -56,12 +75,43 @@ public abstract class Database<T> {
     public abstract T getById(String id);
 
     /**
-     * Retrieves all entities in the database.
+     * Retrieves all entities in the database. Depending on the database, the
+     * list may be the live list or a new copy; callers that only read the
+     * entities should use {@link #snapshot()} instead.
      *
      * @return a list of all entities in the database
      */
     public abstract List<T> getAll();
 
+    /**
+     * Retrieves a read-only snapshot of all entities. The first read after a
+     * change copies every entity once, and that copy is then shared until the
+     * data is next changed, so there is one O(n) copy per version rather than
+     * one per read. A snapshot stays valid while the database is changed from
+     * the same thread, for example when a caller edits records while iterating.
+     * The databases' write methods are not synchronized, so changes made from
+     * other threads at the same time as a snapshot is taken are not safe.
+     *
+     * @return an unmodifiable list of all entities as of the last change
+     */
+    public synchronized List<T> snapshot() {
+        long current = version;
+        if (snapshot == null || snapshotVersion != current) {
+            snapshot = Collections.unmodifiableList(new ArrayList<>(getAll()));
+            snapshotVersion = current;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Records that the data has changed, so that the next call to
+     * {@link #snapshot()} takes a new snapshot. Subclasses must call this after
+     * every change to their in-memory data.
+     */
+    protected void markModified() {
+        version++;
+    }
+
     /**
      * Updates an existing entity in the database.
      *
@@ -97,14 +147,14 @@ public abstract class Database<T> {
     public abstract boolean load() throws IOException;
 
     /**
-     * Saves a list of data objects to a CSV file.
+     * Saves a collection of data objects to a CSV file.
      *
      * @param filename the name of the CSV file to save data to
-     * @param dataList the list of data objects to be saved
+     * @param dataList the data objects to be saved, in the order they are written
      * @param header   the header to be written at the top of the CSV file
      * @throws IOException if an I/O error occurs while saving data
      */
-    public void saveData(String filename, List<?> dataList, String header) throws IOException {
+    public void saveData(String filename, Collection<?> dataList, String header) throws IOException {
         PrintWriter out = new PrintWriter(new FileWriter(filename));
         try {
             out.println(header); // Write the header
@@ -117,6 +167,31 @@ public abstract class Database<T> {
         }
     }
 
+    /**
+     * Appends a collection of data objects to the end of a CSV file, leaving the
+     * existing lines untouched. The header is written first if the file does not
+     * exist yet.
+     *
+     * @param filename the name of the CSV file to append data to
+     * @param dataList the data objects to be appended, in the order they are written
+     * @param header   the header to be written if the file is new
+     * @throws IOException if an I/O error occurs while appending data
+     */
+    public void appendData(String filename, Collection<?> dataList, String header) throws IOException {
+        boolean newFile = !new File(filename).exists();
+        PrintWriter out = new PrintWriter(new FileWriter(filename, true));
+        try {
+            if (newFile) {
+                out.println(header); // Write the header
+            }
+            for (Object obj : dataList) {
+                out.println(obj.toString());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
     /**
      * Reads all lines from a CSV file, excluding the header, and returns them as a
      * list of strings.
@@ -2,23 +2,32 @@ package database;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import appointments.DoctorUnavailableSlots;
 
 /**
- * A class that manages doctor unavailability slots in the database.
- * This class allows creating, deleting, retrieving, and saving doctor
+ * A class that manages doctor unavailability in the database.
+ * Each doctor's unavailability is kept as a set of non-overlapping blocks of
+ * time ordered by their start, so a new block is merged with any block it
+ * overlaps or touches, and the blocks overlapping a period can be found without
+ * looking at the rest.
+ * This class allows creating, removing, retrieving, and saving doctor
  * unavailability data to and from a CSV file.
  * 
  * @see DoctorUnavailableSlots
  */
 public class DoctorUnavailabilityDB extends Database<DoctorUnavailableSlots> {
-    private List<DoctorUnavailableSlots> availabilities; // List to store unavailability slots
+    // Doctor ID -> unavailable blocks by their start
+    private Map<String, TreeMap<LocalDateTime, DoctorUnavailableSlots>> unavailability;
     private static final String filename = "csv_data/Doctor_Unavailability.csv"; // File path for saving/loading data
-    private static final String header = "DoctorID,Date,Time"; // Header for the CSV file
+    private static final String header = "DoctorID,Start,End"; // Header for the CSV file
 
     /**
      * Constructor for initializing the DoctorUnavailabilityDB with the specified
@@ -26,11 +35,12 @@ public class DoctorUnavailabilityDB extends Database<DoctorUnavailableSlots> {
      */
     public DoctorUnavailabilityDB() {
         super(filename); // Pass the filename to the parent class
-        this.availabilities = new ArrayList<>();
+        this.unavailability = new TreeMap<>();
     }
 
     /**
-     * Creates a new doctor unavailability slot and adds it to the list.
+     * Adds a block of unavailability, merging it with any blocks of the same
+     * doctor that it overlaps or touches, and saves the changes to the file.
      *
      * @param availability the DoctorUnavailableSlots object to be added
      * @return true if the availability was successfully added, false otherwise
@@ -38,7 +48,7 @@ public class DoctorUnavailabilityDB extends Database<DoctorUnavailableSlots> {
     @Override
     public boolean create(DoctorUnavailableSlots availability) {
         if (availability != null) {
-            availabilities.add(availability);
+            addBlock(availability);
             try {
                 save(); // Automatically save after creation
             } catch (IOException e) {
@@ -50,73 +60,126 @@ public class DoctorUnavailabilityDB extends Database<DoctorUnavailableSlots> {
     }
 
     /**
-     * Retrieves all unavailability slots for a specific doctor on a particular
-     * date.
+     * Retrieves the blocks of a doctor's unavailability that overlap a period.
+     *
+     * @param doctorId the ID of the doctor
+     * @param from     the start of the period, inclusive
+     * @param to       the end of the period, exclusive
+     * @return the overlapping blocks, in order of their start
+     */
+    public List<DoctorUnavailableSlots> getDoctorUnavailability(String doctorId, LocalDateTime from,
+            LocalDateTime to) {
+        List<DoctorUnavailableSlots> overlapping = new ArrayList<>();
+        TreeMap<LocalDateTime, DoctorUnavailableSlots> blocks = unavailability.get(doctorId);
+        if (blocks == null || !to.isAfter(from)) {
+            return overlapping;
+        }
+        // Blocks never overlap, so only the last block starting before the period
+        // can reach into it
+        Map.Entry<LocalDateTime, DoctorUnavailableSlots> before = blocks.lowerEntry(from);
+        if (before != null && before.getValue().getEnd().isAfter(from)) {
+            overlapping.add(before.getValue());
+        }
+        overlapping.addAll(blocks.subMap(from, true, to, false).values());
+        return overlapping;
+    }
+
+    /**
+     * Retrieves the blocks of a doctor's unavailability that overlap a
+     * particular date.
      *
      * @param doctorId the ID of the doctor
      * @param date     the date of unavailability
      * @return a list of DoctorUnavailableSlots for the specified doctor and date
      */
     public List<DoctorUnavailableSlots> getDoctorUnavailability(String doctorId, LocalDate date) {
-        List<DoctorUnavailableSlots> doctorAvailability = new ArrayList<>();
-        for (DoctorUnavailableSlots unavailability : availabilities) {
-            if (unavailability.getDoctorId().equals(doctorId) && unavailability.getDate().equals(date)) {
-                doctorAvailability.add(unavailability);
-            }
+        return getDoctorUnavailability(doctorId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Checks whether a doctor is unavailable at any point during a period.
+     *
+     * @param doctorId the ID of the doctor
+     * @param from     the start of the period, inclusive
+     * @param to       the end of the period, exclusive
+     * @return true if any block of unavailability overlaps the period
+     */
+    public boolean isUnavailable(String doctorId, LocalDateTime from, LocalDateTime to) {
+        TreeMap<LocalDateTime, DoctorUnavailableSlots> blocks = unavailability.get(doctorId);
+        if (blocks == null) {
+            return false;
         }
-        return doctorAvailability;
+        Map.Entry<LocalDateTime, DoctorUnavailableSlots> last = blocks.lowerEntry(to);
+        return last != null && last.getValue().overlaps(from, to);
     }
 
     /**
-     * Retrieves all unavailability slots in the database.
+     * Retrieves all blocks of unavailability in the database.
      *
-     * @return a list of all DoctorUnavailableSlots
+     * @return a list of all DoctorUnavailableSlots, by doctor and then by start
      */
     @Override
     public List<DoctorUnavailableSlots> getAll() {
-        return availabilities;
+        List<DoctorUnavailableSlots> all = new ArrayList<>();
+        for (TreeMap<LocalDateTime, DoctorUnavailableSlots> blocks : unavailability.values()) {
+            all.addAll(blocks.values());
+        }
+        return all;
     }
 
     /**
-     * Deletes a specific unavailability slot based on doctor ID, date, and time
-     * slot.
+     * Removes a period from a doctor's unavailability, shortening or splitting
+     * any blocks that overlap it, and saves the changes to the file.
      *
      * @param doctorId the ID of the doctor
-     * @param date     the date of unavailability
-     * @param timeSlot the time slot of unavailability
-     * @return true if the unavailability was successfully deleted, false otherwise
+     * @param from     the start of the period, inclusive
+     * @param to       the end of the period, exclusive
+     * @return true if any unavailability was removed, false otherwise
      */
-    public boolean deleteAvailability(String doctorId, LocalDate date, LocalTime timeSlot) {
-        DoctorUnavailableSlots existingAvailability = null;
-        for (DoctorUnavailableSlots availability : availabilities) {
-            if (availability.getDoctorId().equals(doctorId)
-                    && availability.getDate().equals(date)
-                    && availability.getTime().equals(timeSlot)) {
-                existingAvailability = availability;
-                break;
+    public boolean removeUnavailability(String doctorId, LocalDateTime from, LocalDateTime to) {
+        List<DoctorUnavailableSlots> overlapping = getDoctorUnavailability(doctorId, from, to);
+        if (overlapping.isEmpty()) {
+            return false;
+        }
+        TreeMap<LocalDateTime, DoctorUnavailableSlots> blocks = unavailability.get(doctorId);
+        for (DoctorUnavailableSlots block : overlapping) {
+            blocks.remove(block.getStart());
+            if (block.getStart().isBefore(from)) {
+                blocks.put(block.getStart(), new DoctorUnavailableSlots(doctorId, block.getStart(), from));
+            }
+            if (block.getEnd().isAfter(to)) {
+                blocks.put(to, new DoctorUnavailableSlots(doctorId, to, block.getEnd()));
             }
         }
-        if (existingAvailability != null) {
-            availabilities.remove(existingAvailability);
-            return true;
+        if (blocks.isEmpty()) {
+            unavailability.remove(doctorId);
         }
-        return false;
+        markModified();
+        try {
+            save(); // Automatically save after removal
+        } catch (IOException e) {
+            System.err.println("Error saving data after removing unavailable slot: " + e.getMessage());
+        }
+        return true;
     }
 
     /**
-     * Saves all doctor unavailability slots to a CSV file.
+     * Saves all doctor unavailability blocks to a CSV file.
      *
      * @return true if the data was successfully saved
      * @throws IOException if an I/O error occurs during saving
      */
     @Override
     public boolean save() throws IOException {
-        saveData(filename, availabilities, header);
+        saveData(filename, getAll(), header);
         return true;
     }
 
     /**
-     * Loads all doctor unavailability slots from a CSV file into the database.
+     * Loads all doctor unavailability blocks from a CSV file into the database.
+     * Rows in the older one-hour format (DoctorID,Date,Time) are read as
+     * one-hour blocks and merged with their neighbours, so they are written
+     * back as blocks the next time the file is saved.
      *
      * @return true if the data was successfully loaded
      * @throws IOException if an I/O error occurs during loading
@@ -130,12 +193,25 @@ public class DoctorUnavailabilityDB extends Database<DoctorUnavailableSlots> {
             String[] tokens = splitLine(line); // Split line into tokens
 
             if (tokens.length >= 3) { // Ensure there are enough tokens
-                DoctorUnavailableSlots availability = new DoctorUnavailableSlots(
-                        tokens[0], // DoctorID
-                        LocalDate.parse(tokens[1]), // AvailableDate
-                        LocalTime.parse(tokens[2]) // TimeSlot
-                );
-                availabilities.add(availability);
+                try {
+                    DoctorUnavailableSlots availability;
+                    if (tokens[1].contains("T")) {
+                        availability = new DoctorUnavailableSlots(
+                                tokens[0], // DoctorID
+                                LocalDateTime.parse(tokens[1]), // Start
+                                LocalDateTime.parse(tokens[2]) // End
+                        );
+                    } else {
+                        availability = new DoctorUnavailableSlots(
+                                tokens[0], // DoctorID
+                                LocalDate.parse(tokens[1]), // Date
+                                LocalTime.parse(tokens[2]) // TimeSlot
+                        );
+                    }
+                    addBlock(availability);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.out.println("Invalid line in " + filename + ": " + line);
+                }
             } else {
                 System.out.println("Invalid line in " + filename + ": " + line);
             }
@@ -143,6 +219,42 @@ public class DoctorUnavailabilityDB extends Database<DoctorUnavailableSlots> {
         return true;
     }
 
+    /**
+     * Adds a block to its doctor's blocks, merging it with every block it
+     * overlaps or touches.
+     *
+     * @param block the block to add
+     */
+    private void addBlock(DoctorUnavailableSlots block) {
+        TreeMap<LocalDateTime, DoctorUnavailableSlots> blocks = unavailability
+                .computeIfAbsent(block.getDoctorId(), key -> new TreeMap<>());
+        LocalDateTime start = block.getStart();
+        LocalDateTime end = block.getEnd();
+
+        // Merge with the block before it if that block reaches its start
+        Map.Entry<LocalDateTime, DoctorUnavailableSlots> before = blocks.floorEntry(start);
+        if (before != null && !before.getValue().getEnd().isBefore(start)) {
+            start = before.getKey();
+            if (before.getValue().getEnd().isAfter(end)) {
+                end = before.getValue().getEnd();
+            }
+            blocks.remove(before.getKey());
+        }
+
+        // Absorb the blocks that start before it ends
+        Map.Entry<LocalDateTime, DoctorUnavailableSlots> next = blocks.ceilingEntry(start);
+        while (next != null && !next.getKey().isAfter(end)) {
+            if (next.getValue().getEnd().isAfter(end)) {
+                end = next.getValue().getEnd();
+            }
+            blocks.remove(next.getKey());
+            next = blocks.ceilingEntry(start);
+        }
+
+        blocks.put(start, new DoctorUnavailableSlots(block.getDoctorId(), start, end));
+        markModified();
+    }
+
     // The following methods are not implemented as they are not needed for this
     // specific functionality:
 
@@ -39,6 +39,7 @@ public class MedicalRecordDB extends Database<MedicalRecord> {
     public boolean create(MedicalRecord medicalRecord) {
         if (medicalRecord != null) {
             medicalRecords.add(medicalRecord);
+            markModified();
             try {
                 save(); // Automatically save after creation
             } catch (IOException e) {
@@ -89,6 +90,7 @@ public class MedicalRecordDB extends Database<MedicalRecord> {
         if (existingRecord != null) {
             medicalRecords.remove(existingRecord);
             medicalRecords.add(medicalRecord);
+            markModified();
             try {
                 save(); // Automatically save after updating
             } catch (IOException e) {
@@ -112,6 +114,7 @@ public class MedicalRecordDB extends Database<MedicalRecord> {
         MedicalRecord existingRecord = getById(patientId);
         if (existingRecord != null) {
             medicalRecords.remove(existingRecord);
+            markModified();
             try {
                 save(); // Automatically save after deletion
             } catch (IOException e) {
@@ -160,6 +163,7 @@ public class MedicalRecordDB extends Database<MedicalRecord> {
                         tokens[9] // prescriptions
                 );
                 medicalRecords.add(record);
+                markModified();
             } else {
                 System.out.println("Invalid line in " + filename + ": " + line);
             }
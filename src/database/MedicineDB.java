@@ -1,30 +1,52 @@
 package database;
 
+import java.io.File;
 import java.io.IOException;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.TreeMap;
+import medicine.LotAllocator;
 import medicine.Medicine;
+import medicine.MedicineLot;
 
 /**
  * A class that manages medicines in the database.
  * This class allows creating, updating, deleting, retrieving, saving, and
  * loading medicine records from a CSV file.
+ * Medicines are kept ordered by ID, and are also indexed by name so they can be
+ * looked up by the names used in prescriptions. The lots each medicine is held
+ * in are stored in a second CSV file.
  * 
  * @see Medicine
  */
 public class MedicineDB extends Database<Medicine> {
-    private List<Medicine> medicines; // List to store medicines
+    private TreeMap<String, Medicine> medicines; // Medicines keyed and ordered by ID
+    private TreeMap<String, List<Medicine>> medicinesByName; // Medicines keyed and ordered by normalized name
     private static final String MEDICINE_FILE = "csv_data/Inventory_List.csv"; // File path for saving/loading data
     private static final String MEDICINE_HEADER = "ID,Name,Dosage,StockLevel,LowStockLevelAlert"; // CSV header
+    private static final String LOT_FILE = "csv_data/Medicine_Lots.csv"; // File path for the medicine lots
+    private static final String LOT_HEADER = "LotNumber,MedicineID,Quantity,ExpiryDate"; // Lot CSV header
+    private LotAllocator lots; // Lots held for each medicine
 
     /**
      * Constructor for initializing the MedicineDB with the specified CSV file path.
      */
     public MedicineDB() {
         super(MEDICINE_FILE); // Pass the filename to the parent class
-        medicines = new ArrayList<>();
+        medicines = new TreeMap<>();
+        medicinesByName = new TreeMap<>();
+        lots = new LotAllocator();
+    }
+
+    /**
+     * Gets the lots held for each medicine.
+     *
+     * @return the LotAllocator holding the lots
+     */
+    public LotAllocator getLotAllocator() {
+        return lots;
     }
 
     /**
@@ -38,7 +60,11 @@ public class MedicineDB extends Database<Medicine> {
     @Override
     public boolean create(Medicine medicine) {
         if (medicine != null) {
-            medicines.add(medicine);
+            if (medicines.containsKey(medicine.getId())) {
+                System.out.println("Medicine with ID " + medicine.getId() + " already exists.");
+                return false;
+            }
+            addMedicine(medicine);
             try {
                 save(); // Automatically save after creation
                 return true;
@@ -58,12 +84,42 @@ public class MedicineDB extends Database<Medicine> {
      */
     @Override
     public Medicine getById(String id) {
-        for (Medicine medicine : medicines) {
-            if (medicine.getId().equals(id)) {
-                return medicine;
-            }
+        return medicines.get(id); // Returns null if not found
+    }
+
+    /**
+     * Retrieves a medicine record by its name, ignoring case and surrounding
+     * spaces. If several medicines share the name, the one with the lowest ID is
+     * returned.
+     *
+     * @param name the name of the medicine
+     * @return the Medicine object if found, or null if not found
+     */
+    public Medicine getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        List<Medicine> matches = medicinesByName.get(normalizeName(name));
+        return matches == null ? null : matches.get(0);
+    }
+
+    /**
+     * Retrieves every medicine whose name starts with the given prefix, ignoring
+     * case and surrounding spaces.
+     *
+     * @param prefix the start of the medicine name
+     * @return a list of matching Medicine objects, ordered by name
+     */
+    public List<Medicine> getByNamePrefix(String prefix) {
+        List<Medicine> matches = new ArrayList<>();
+        if (prefix == null) {
+            return matches;
+        }
+        String from = normalizeName(prefix);
+        for (List<Medicine> named : medicinesByName.subMap(from, from + Character.MAX_VALUE).values()) {
+            matches.addAll(named);
         }
-        return null; // Return null if not found
+        return matches;
     }
 
     /**
@@ -78,8 +134,8 @@ public class MedicineDB extends Database<Medicine> {
     public boolean update(Medicine updatedMedicine) {
         Medicine existingMedicine = getById(updatedMedicine.getId());
         if (existingMedicine != null) {
-            medicines.remove(existingMedicine);
-            medicines.add(updatedMedicine);
+            removeMedicine(existingMedicine);
+            addMedicine(updatedMedicine);
             try {
                 save(); // Automatically save after updating
                 return true;
@@ -103,7 +159,8 @@ public class MedicineDB extends Database<Medicine> {
     public boolean delete(String id) {
         Medicine medicine = getById(id);
         if (medicine != null) {
-            medicines.remove(medicine);
+            removeMedicine(medicine);
+            lots.removeLotsForMedicine(id);
             try {
                 save(); // Automatically save after deletion
                 return true;
@@ -115,16 +172,16 @@ public class MedicineDB extends Database<Medicine> {
     }
 
     /**
-     * Saves all medicine records to a CSV file.
+     * Saves all medicine records to a CSV file, in order of ID, and all lots to
+     * the lot CSV file, in order of expiry.
      *
      * @return true if the data was successfully saved
      * @throws IOException if an I/O error occurs during saving
      */
     @Override
     public boolean save() throws IOException {
-
-        List<Medicine> sortedMedicines = getAllSortedById();
-        saveData(MEDICINE_FILE, sortedMedicines, MEDICINE_HEADER);
+        saveData(MEDICINE_FILE, medicines.values(), MEDICINE_HEADER);
+        saveData(LOT_FILE, lots.getAllLots(), LOT_HEADER);
         return true;
     }
 
@@ -148,23 +205,55 @@ public class MedicineDB extends Database<Medicine> {
                 int lowStockLevelAlert = Integer.parseInt(tokens[4].split(": ")[1].trim()); // Parse the value after
                                                                                             // "Low Stock Level:"
 
+                if (medicines.containsKey(id)) {
+                    System.out.println("Duplicate medicine ID in CSV, skipping: " + line);
+                    continue;
+                }
                 Medicine medicine = new Medicine(id, name, dosage, stockLevel, lowStockLevelAlert);
-                medicines.add(medicine); // Add the new medicine to the list
+                addMedicine(medicine); // Add the new medicine to the database
             } else {
                 System.out.println("Invalid line in CSV: " + line); // Invalid line
             }
         }
+        loadLots();
         return true;
     }
 
+    /**
+     * Loads medicine lots from the lot CSV file. Lots for unknown medicines,
+     * duplicate lot numbers and empty lots are skipped. If the file does not
+     * exist yet, no lots are loaded.
+     *
+     * @throws IOException if an I/O error occurs during loading
+     */
+    private void loadLots() throws IOException {
+        if (!new File(LOT_FILE).exists()) {
+            return;
+        }
+        for (String line : readFile(LOT_FILE)) {
+            try {
+                MedicineLot lot = MedicineLot.fromCSV(line);
+                if (!medicines.containsKey(lot.getMedicineId())) {
+                    System.out.println("Lot for unknown medicine in CSV, skipping: " + line);
+                } else if (lot.getQuantity() <= 0) {
+                    System.out.println("Empty lot in CSV, skipping: " + line);
+                } else if (!lots.addLot(lot)) {
+                    System.out.println("Duplicate lot number in CSV, skipping: " + line);
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                System.out.println("Invalid line in CSV: " + line);
+            }
+        }
+    }
+
     /**
      * Retrieves all medicine records in the database.
      *
-     * @return a list of all Medicine objects
+     * @return a list of all Medicine objects, ordered by ID
      */
     @Override
     public List<Medicine> getAll() {
-        return medicines;
+        return new ArrayList<>(medicines.values());
     }
 
     /**
@@ -173,9 +262,50 @@ public class MedicineDB extends Database<Medicine> {
      * @return a sorted list of medicines
      */
     public List<Medicine> getAllSortedById() {
-        List<Medicine> sortedMedicines = new ArrayList<>(medicines);
-        Collections.sort(sortedMedicines, Comparator.comparing(Medicine::getId));
-        return sortedMedicines;
+        return new ArrayList<>(medicines.values()); // Already kept in order of ID
+    }
+
+    /**
+     * Adds a medicine to the ID map and the name index.
+     *
+     * @param medicine the medicine to add
+     */
+    private void addMedicine(Medicine medicine) {
+        medicines.put(medicine.getId(), medicine);
+        List<Medicine> named = medicinesByName.computeIfAbsent(normalizeName(medicine.getName()),
+                key -> new ArrayList<>());
+        named.add(medicine);
+        named.sort(Comparator.comparing(Medicine::getId)); // Keep the lowest ID first
+        markModified();
+    }
+
+    /**
+     * Removes a medicine from the ID map and the name index.
+     *
+     * @param medicine the medicine to remove
+     */
+    private void removeMedicine(Medicine medicine) {
+        medicines.remove(medicine.getId());
+        String key = normalizeName(medicine.getName());
+        List<Medicine> named = medicinesByName.get(key);
+        if (named != null) {
+            named.remove(medicine);
+            if (named.isEmpty()) {
+                medicinesByName.remove(key);
+            }
+        }
+        markModified();
+    }
+
+    /**
+     * Normalizes a medicine name so that differences in case and surrounding
+     * spaces are ignored.
+     *
+     * @param name the medicine name
+     * @return the normalized name
+     */
+    private String normalizeName(String name) {
+        return name.trim().toLowerCase();
     }
 
 }
@@ -38,6 +38,7 @@ public class ReplenishmentDB extends Database<ReplenishmentRequest> {
     public boolean create(ReplenishmentRequest request) {
         if (request != null) {
             replenishmentRequests.add(request);
+            markModified();
             try {
                 save(); // Automatically save after creation
             } catch (IOException e) {
@@ -88,6 +89,7 @@ public class ReplenishmentDB extends Database<ReplenishmentRequest> {
         if (existingRequest != null) {
             replenishmentRequests.remove(existingRequest);
             replenishmentRequests.add(updatedRequest);
+            markModified();
             try {
                 save(); // Automatically save after update
             } catch (IOException e) {
@@ -112,6 +114,7 @@ public class ReplenishmentDB extends Database<ReplenishmentRequest> {
         ReplenishmentRequest existingRequest = getById(medicineId);
         if (existingRequest != null) {
             replenishmentRequests.remove(existingRequest);
+            markModified();
             try {
                 save(); // Automatically save after deletion
             } catch (IOException e) {
@@ -122,6 +125,28 @@ public class ReplenishmentDB extends Database<ReplenishmentRequest> {
         return false; // Request not found
     }
 
+    /**
+     * Adds several replenishment requests without saving. The caller is expected
+     * to save once after the whole batch has been added.
+     *
+     * @param requests the ReplenishmentRequest objects to be added
+     */
+    public void addAll(List<ReplenishmentRequest> requests) {
+        replenishmentRequests.addAll(requests);
+        markModified();
+    }
+
+    /**
+     * Removes several replenishment requests without saving. The caller is
+     * expected to save once after the whole batch has been removed.
+     *
+     * @param requests the ReplenishmentRequest objects to be removed
+     */
+    public void removeAll(List<ReplenishmentRequest> requests) {
+        replenishmentRequests.removeAll(requests);
+        markModified();
+    }
+
     /**
      * Saves the current list of replenishment requests to the CSV file.
      *
@@ -157,6 +182,7 @@ public class ReplenishmentDB extends Database<ReplenishmentRequest> {
                     request.setQuantity(quantity);
 
                     replenishmentRequests.add(request); // Add the new request to the list
+                    markModified();
                 } catch (NumberFormatException e) {
                     System.err.println("Invalid number format in line: " + line);
                 }
@@ -0,0 +1,199 @@
+package database;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import appointments.ScheduleTemplateEntry;
+
+/**
+ * A class that manages the doctors' weekly schedule templates in the database.
+ * A template only holds the days a doctor has changed; days without entries
+ * use the standard working hours.
+ *
+ * @see ScheduleTemplateEntry
+ */
+public class ScheduleTemplateDB extends Database<ScheduleTemplateEntry> {
+    private Map<String, List<ScheduleTemplateEntry>> templates; // Doctor ID -> template entries
+    private static final String filename = "csv_data/Schedule_Template.csv"; // File path for saving/loading data
+    private static final String header = "DoctorID,DayOfWeek,Start,End,Type"; // Header for the CSV file
+
+    /**
+     * Constructor for initializing the ScheduleTemplateDB with the specified CSV
+     * file path.
+     */
+    public ScheduleTemplateDB() {
+        super(filename); // Pass the filename to the parent class
+        this.templates = new TreeMap<>();
+    }
+
+    /**
+     * Adds an entry to a doctor's template and saves the changes to the file.
+     *
+     * @param entry the ScheduleTemplateEntry object to be added
+     * @return true if the entry was successfully added, false otherwise
+     */
+    @Override
+    public boolean create(ScheduleTemplateEntry entry) {
+        if (entry != null) {
+            templates.computeIfAbsent(entry.getDoctorId(), key -> new ArrayList<>()).add(entry);
+            markModified();
+            try {
+                save(); // Automatically save after creation
+            } catch (IOException e) {
+                System.err.println("Error saving data after creating template entry: " + e.getMessage());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces every entry of a doctor's template for one day of the week and
+     * saves the changes to the file. An empty list returns the day to the
+     * standard working hours.
+     *
+     * @param doctorId  the ID of the doctor
+     * @param dayOfWeek the day of the week to replace
+     * @param entries   the new entries for that day
+     * @return true if the template was saved, false otherwise
+     */
+    public boolean replaceDay(String doctorId, DayOfWeek dayOfWeek, List<ScheduleTemplateEntry> entries) {
+        List<ScheduleTemplateEntry> template = templates.computeIfAbsent(doctorId, key -> new ArrayList<>());
+        template.removeIf(entry -> entry.getDayOfWeek() == dayOfWeek);
+        template.addAll(entries);
+        if (template.isEmpty()) {
+            templates.remove(doctorId);
+        }
+        markModified();
+        try {
+            save(); // Automatically save after replacing
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving data after updating template: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves a doctor's template entries.
+     *
+     * @param doctorId the ID of the doctor
+     * @return a read-only list of the doctor's entries, empty if the doctor uses
+     *         the standard working hours on every day
+     */
+    public List<ScheduleTemplateEntry> getTemplate(String doctorId) {
+        List<ScheduleTemplateEntry> template = templates.get(doctorId);
+        return template == null ? Collections.emptyList() : Collections.unmodifiableList(template);
+    }
+
+    /**
+     * Retrieves all template entries in the database.
+     *
+     * @return a list of all ScheduleTemplateEntry objects, by doctor
+     */
+    @Override
+    public List<ScheduleTemplateEntry> getAll() {
+        List<ScheduleTemplateEntry> all = new ArrayList<>();
+        for (List<ScheduleTemplateEntry> template : templates.values()) {
+            all.addAll(template);
+        }
+        return all;
+    }
+
+    /**
+     * Saves all template entries to a CSV file.
+     *
+     * @return true if the data was successfully saved
+     * @throws IOException if an I/O error occurs during saving
+     */
+    @Override
+    public boolean save() throws IOException {
+        if (templates.isEmpty() && !new File(filename).exists()) {
+            return true; // Nothing to save until a template is first set
+        }
+        saveData(filename, getAll(), header);
+        return true;
+    }
+
+    /**
+     * Loads all template entries from a CSV file into the database. If the file
+     * does not exist yet, every doctor uses the standard working hours.
+     *
+     * @return true if the data was successfully loaded
+     * @throws IOException if an I/O error occurs during loading
+     */
+    @Override
+    public boolean load() throws IOException {
+        if (!new File(filename).exists()) {
+            return true;
+        }
+        for (String line : readFile(filename)) {
+            String[] tokens = splitLine(line); // Split line into tokens
+            try {
+                if (tokens.length != 5) {
+                    throw new IllegalArgumentException();
+                }
+                ScheduleTemplateEntry entry = new ScheduleTemplateEntry(
+                        tokens[0].trim(), // DoctorID
+                        DayOfWeek.valueOf(tokens[1].trim()), // DayOfWeek
+                        LocalTime.parse(tokens[2].trim()), // Start
+                        LocalTime.parse(tokens[3].trim()), // End
+                        ScheduleTemplateEntry.Type.valueOf(tokens[4].trim()) // Type
+                );
+                templates.computeIfAbsent(entry.getDoctorId(), key -> new ArrayList<>()).add(entry);
+                markModified();
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                System.out.println("Invalid line in " + filename + ": " + line);
+            }
+        }
+        return true;
+    }
+
+    // Template entries have no ID of their own, as a day can hold working hours
+    // and several breaks. They are changed a whole day at a time through
+    // replaceDay, so the methods below do nothing.
+
+    /**
+     * Template entries cannot be looked up by ID. Use
+     * {@link #getTemplate(String)} instead.
+     *
+     * @param id the ID of the entry
+     * @return null, as there are no entry IDs
+     */
+    @Override
+    public ScheduleTemplateEntry getById(String id) {
+        return null;
+    }
+
+    /**
+     * Template entries cannot be updated one at a time. Use
+     * {@link #replaceDay(String, DayOfWeek, List)} instead.
+     *
+     * @param entity the entry to update
+     * @return false, as nothing is updated
+     */
+    @Override
+    public boolean update(ScheduleTemplateEntry entity) {
+        return false;
+    }
+
+    /**
+     * Template entries cannot be deleted one at a time. Use
+     * {@link #replaceDay(String, DayOfWeek, List)} with an empty list instead.
+     *
+     * @param id the ID of the entry to delete
+     * @return false, as nothing is deleted
+     */
+    @Override
+    public boolean delete(String id) {
+        return false;
+    }
+}
@@ -0,0 +1,354 @@
+package database;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import medicine.StockMovement;
+
+/**
+ * A class that manages the stock ledger, an append-only record of every change
+ * to the medicine stock levels.
+ * Movements are appended to a CSV file as they are recorded, so existing lines
+ * are never rewritten. Every few movements of a medicine, a checkpoint of its
+ * stock level is appended to a second CSV file, so the stock level at any past
+ * time can be worked out from the nearest checkpoint instead of replaying the
+ * whole ledger.
+ *
+ * @see StockMovement
+ */
+public class StockLedgerDB extends Database<StockMovement> {
+    private static final String LEDGER_FILE = "csv_data/Stock_Ledger.csv"; // File path for the movements
+    private static final String LEDGER_HEADER = "Timestamp,MedicineID,Delta,Reason"; // Ledger CSV header
+    private static final String CHECKPOINT_FILE = "csv_data/Stock_Checkpoints.csv"; // File path for the checkpoints
+    private static final String CHECKPOINT_HEADER = "Timestamp,MedicineID,StockLevel,MovementCount"; // Checkpoint CSV header
+    private static final int CHECKPOINT_INTERVAL = 50; // Movements of a medicine between checkpoints
+
+    private List<StockMovement> movements; // Every movement, in the order recorded
+    private Map<String, List<StockMovement>> movementsByMedicine; // Medicine ID -> movements in order
+    private Map<String, TreeMap<LocalDateTime, Checkpoint>> checkpointsByMedicine; // Medicine ID -> checkpoints by time
+    private Map<String, Integer> balances; // Medicine ID -> stock level according to the ledger
+
+    /**
+     * A snapshot of a medicine's stock level, taken after a given number of its
+     * movements had been recorded.
+     */
+    private static class Checkpoint {
+        private LocalDateTime timestamp;
+        private String medicineId;
+        private int stockLevel;
+        private int movementCount;
+
+        Checkpoint(LocalDateTime timestamp, String medicineId, int stockLevel, int movementCount) {
+            this.timestamp = timestamp;
+            this.medicineId = medicineId;
+            this.stockLevel = stockLevel;
+            this.movementCount = movementCount;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + "," + medicineId + "," + stockLevel + "," + movementCount;
+        }
+    }
+
+    /**
+     * Constructor for initializing the StockLedgerDB with the specified CSV file
+     * path.
+     */
+    public StockLedgerDB() {
+        super(LEDGER_FILE); // Pass the filename to the parent class
+        this.movements = new ArrayList<>();
+        this.movementsByMedicine = new HashMap<>();
+        this.checkpointsByMedicine = new HashMap<>();
+        this.balances = new HashMap<>();
+    }
+
+    /**
+     * Records a single stock movement and appends it to the ledger file.
+     *
+     * @param movement the StockMovement to record
+     * @return true if the movement was recorded, false otherwise
+     */
+    @Override
+    public boolean create(StockMovement movement) {
+        try {
+            return record(Collections.singletonList(movement));
+        } catch (IOException e) {
+            System.out.println("Error recording stock movement: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Records a batch of stock movements, appending them to the ledger file in a
+     * single write. Checkpoints are appended for any medicine that has reached
+     * the checkpoint interval. Movements of medicines that have not been opened
+     * in the ledger are ignored.
+     *
+     * @param batch the movements to record
+     * @return true if the movements were recorded
+     * @throws IOException if an I/O error occurs while appending
+     */
+    public boolean record(List<StockMovement> batch) throws IOException {
+        List<StockMovement> recorded = new ArrayList<>();
+        List<Checkpoint> newCheckpoints = new ArrayList<>();
+        for (StockMovement movement : batch) {
+            String medicineId = movement.getMedicineId();
+            if (!isOpen(medicineId)) {
+                System.out.println("Stock ledger has not been opened for medicine " + medicineId + ".");
+                continue;
+            }
+            addMovement(movement);
+            recorded.add(movement);
+            int balance = balances.merge(medicineId, movement.getDelta(), Integer::sum);
+
+            int count = movementsByMedicine.get(medicineId).size();
+            if (count - checkpointsByMedicine.get(medicineId).lastEntry().getValue().movementCount
+                    >= CHECKPOINT_INTERVAL) {
+                Checkpoint checkpoint = new Checkpoint(movement.getTimestamp(), medicineId, balance, count);
+                addCheckpoint(checkpoint);
+                newCheckpoints.add(checkpoint);
+            }
+        }
+
+        if (!recorded.isEmpty()) {
+            appendData(LEDGER_FILE, recorded, LEDGER_HEADER);
+        }
+        if (!newCheckpoints.isEmpty()) {
+            appendData(CHECKPOINT_FILE, newCheckpoints, CHECKPOINT_HEADER);
+        }
+        return !recorded.isEmpty();
+    }
+
+    /**
+     * Opens a medicine in the ledger by writing an opening checkpoint with its
+     * current stock level. Stock levels before the opening checkpoint cannot be
+     * reconstructed. Medicines that are already open are left unchanged.
+     *
+     * @param medicineId the ID of the medicine
+     * @param stockLevel the medicine's current stock level
+     * @return true if an opening checkpoint was written, false if the medicine
+     *         was already open
+     * @throws IOException if an I/O error occurs while appending
+     */
+    public boolean open(String medicineId, int stockLevel) throws IOException {
+        if (isOpen(medicineId)) {
+            return false;
+        }
+        int count = movementsByMedicine.getOrDefault(medicineId, Collections.emptyList()).size();
+        Checkpoint checkpoint = new Checkpoint(LocalDateTime.now(), medicineId, stockLevel, count);
+        addCheckpoint(checkpoint);
+        balances.put(medicineId, stockLevel);
+        appendData(CHECKPOINT_FILE, Collections.singletonList(checkpoint), CHECKPOINT_HEADER);
+        return true;
+    }
+
+    /**
+     * Checks whether a medicine has been opened in the ledger.
+     *
+     * @param medicineId the ID of the medicine
+     * @return true if the medicine has an opening checkpoint, false otherwise
+     */
+    public boolean isOpen(String medicineId) {
+        return checkpointsByMedicine.containsKey(medicineId);
+    }
+
+    /**
+     * Gets a medicine's stock level according to the ledger.
+     *
+     * @param medicineId the ID of the medicine
+     * @return the stock level, or null if the medicine has not been opened
+     */
+    public Integer getBalance(String medicineId) {
+        return balances.get(medicineId);
+    }
+
+    /**
+     * Works out a medicine's stock level at a past time, starting from the
+     * latest checkpoint at or before that time and applying only the movements
+     * recorded after it.
+     *
+     * @param medicineId the ID of the medicine
+     * @param time       the time to reconstruct the stock level at
+     * @return the stock level at that time, or null if the time is before the
+     *         medicine was opened in the ledger
+     */
+    public Integer getStockAt(String medicineId, LocalDateTime time) {
+        TreeMap<LocalDateTime, Checkpoint> checkpoints = checkpointsByMedicine.get(medicineId);
+        if (checkpoints == null) {
+            return null;
+        }
+        Map.Entry<LocalDateTime, Checkpoint> entry = checkpoints.floorEntry(time);
+        if (entry == null) {
+            return null;
+        }
+
+        Checkpoint checkpoint = entry.getValue();
+        int stockLevel = checkpoint.stockLevel;
+        List<StockMovement> medicineMovements = movementsByMedicine.getOrDefault(medicineId,
+                Collections.emptyList());
+        for (int i = checkpoint.movementCount; i < medicineMovements.size(); i++) {
+            StockMovement movement = medicineMovements.get(i);
+            if (movement.getTimestamp().isAfter(time)) {
+                break;
+            }
+            stockLevel += movement.getDelta();
+        }
+        return stockLevel;
+    }
+
+    /**
+     * Retrieves the movements of a medicine recorded within a period.
+     *
+     * @param medicineId the ID of the medicine
+     * @param from       the start of the period, inclusive
+     * @param to         the end of the period, inclusive
+     * @return the movements in the order they were recorded
+     */
+    public List<StockMovement> getMovements(String medicineId, LocalDateTime from, LocalDateTime to) {
+        List<StockMovement> results = new ArrayList<>();
+        for (StockMovement movement : movementsByMedicine.getOrDefault(medicineId, Collections.emptyList())) {
+            if (!movement.getTimestamp().isBefore(from) && !movement.getTimestamp().isAfter(to)) {
+                results.add(movement);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Retrieves every recorded movement.
+     *
+     * @return a list of all movements, in the order they were recorded
+     */
+    @Override
+    public List<StockMovement> getAll() {
+        return new ArrayList<>(movements);
+    }
+
+    /**
+     * Saves the ledger. Movements and checkpoints are appended to their files as
+     * soon as they are recorded, so there is nothing left to write.
+     *
+     * @return true
+     */
+    @Override
+    public boolean save() {
+        return true;
+    }
+
+    /**
+     * Loads the movements and checkpoints from their CSV files. Files that do
+     * not exist yet are treated as empty.
+     *
+     * @return true if the data was successfully loaded
+     * @throws IOException if an I/O error occurs during loading
+     */
+    @Override
+    public boolean load() throws IOException {
+        if (new File(LEDGER_FILE).exists()) {
+            for (String line : readFile(LEDGER_FILE)) {
+                try {
+                    addMovement(StockMovement.fromCSV(line));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.out.println("Invalid line in " + LEDGER_FILE + ": " + line);
+                }
+            }
+        }
+
+        if (new File(CHECKPOINT_FILE).exists()) {
+            for (String line : readFile(CHECKPOINT_FILE)) {
+                String[] tokens = splitLine(line);
+                try {
+                    if (tokens.length != 4) {
+                        throw new IllegalArgumentException();
+                    }
+                    addCheckpoint(new Checkpoint(LocalDateTime.parse(tokens[0].trim()), tokens[1].trim(),
+                            Integer.parseInt(tokens[2].trim()), Integer.parseInt(tokens[3].trim())));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.out.println("Invalid line in " + CHECKPOINT_FILE + ": " + line);
+                }
+            }
+        }
+
+        // Work out the current balances from each medicine's latest checkpoint
+        for (Map.Entry<String, TreeMap<LocalDateTime, Checkpoint>> entry : checkpointsByMedicine.entrySet()) {
+            balances.put(entry.getKey(), getStockAt(entry.getKey(), LocalDateTime.MAX));
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves a ledger entry by its sequence number, which is its position in
+     * the ledger counting from 1.
+     *
+     * @param id the sequence number of the entry
+     * @return the movement, or null if there is no entry with that number
+     */
+    @Override
+    public StockMovement getById(String id) {
+        try {
+            int sequence = Integer.parseInt(id.trim());
+            if (sequence < 1 || sequence > movements.size()) {
+                return null;
+            }
+            return movements.get(sequence - 1);
+        } catch (NumberFormatException e) {
+            return null; // Not a sequence number
+        }
+    }
+
+    // The ledger is append-only: a mistake is put right by recording a
+    // correcting movement, so the methods below change nothing.
+
+    /**
+     * Ledger entries cannot be changed once recorded. Use
+     * {@link #create(StockMovement)} to record a correcting movement instead.
+     *
+     * @param entity the entry to update
+     * @return false, as nothing is updated
+     */
+    @Override
+    public boolean update(StockMovement entity) {
+        return false;
+    }
+
+    /**
+     * Ledger entries cannot be deleted once recorded. Use
+     * {@link #create(StockMovement)} to record a correcting movement instead.
+     *
+     * @param id the ID of the entry to delete
+     * @return false, as nothing is deleted
+     */
+    @Override
+    public boolean delete(String id) {
+        return false;
+    }
+
+    /**
+     * Adds a movement to the in-memory lists.
+     *
+     * @param movement the movement to add
+     */
+    private void addMovement(StockMovement movement) {
+        movements.add(movement);
+        movementsByMedicine.computeIfAbsent(movement.getMedicineId(), key -> new ArrayList<>()).add(movement);
+        markModified();
+    }
+
+    /**
+     * Adds a checkpoint to the in-memory index.
+     *
+     * @param checkpoint the checkpoint to add
+     */
+    private void addCheckpoint(Checkpoint checkpoint) {
+        checkpointsByMedicine.computeIfAbsent(checkpoint.medicineId, key -> new TreeMap<>())
+                .put(checkpoint.timestamp, checkpoint);
+    }
+}
@@ -2,7 +2,11 @@ package database;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import users.Administrator;
 import users.Doctor;
 import users.Patient;
@@ -12,19 +16,29 @@ import users.User;
 /**
  * Manages a collection of users, providing methods for creating, retrieving,
  * updating, deleting, and saving user data to a CSV file.
+ * Users are kept by ID, and each role also has its own map, so users of one
+ * role can be listed or looked up without going through everyone else.
  */
 public class UserDB extends Database<User> {
 
-    private List<User> users;
+    private Map<String, User> users; // User ID -> user, in file order
+    private Map<String, Doctor> doctors; // Doctor ID -> doctor
+    private Map<String, Patient> patients; // Patient ID -> patient
+    private Map<String, Pharmacist> pharmacists; // Pharmacist ID -> pharmacist
+    private Map<String, Administrator> administrators; // Administrator ID -> administrator
     private static final String USER_FILE = "csv_data/User_List.csv";
     private static final String USER_HEADER = "ID,Name,Date of Birth,Gender,Phone Number,Email Address,Password,Role";
 
     /**
-     * Constructs a new UserDB instance and initializes the list of users.
+     * Constructs a new UserDB instance and initializes the maps of users.
      */
     public UserDB() {
         super(USER_FILE);
-        users = new ArrayList<>();
+        users = new LinkedHashMap<>();
+        doctors = new LinkedHashMap<>();
+        patients = new LinkedHashMap<>();
+        pharmacists = new LinkedHashMap<>();
+        administrators = new LinkedHashMap<>();
     }
 
     /**
@@ -39,7 +53,7 @@ public class UserDB extends Database<User> {
             System.out.println("Invalid user data or user with ID " + user.getId() + " already exists.");
             return false; // Prevent adding duplicates or null objects
         }
-        users.add(user);
+        addUser(user);
         try {
             save(); // Automatically save after addition
             return true;
@@ -56,7 +70,7 @@ public class UserDB extends Database<User> {
      * @return true if the user exists, false otherwise.
      */
     public boolean exists(String id) {
-        return users.stream().anyMatch(user -> user.getId().equals(id));
+        return users.containsKey(id);
     }
 
     /**
@@ -67,10 +81,7 @@ public class UserDB extends Database<User> {
      */
     @Override
     public User getById(String id) {
-        return users.stream()
-                .filter(user -> user.getId().equals(id))
-                .findFirst()
-                .orElse(null); // Return null if no match
+        return users.get(id); // Null if no match
     }
 
     /**
@@ -80,7 +91,7 @@ public class UserDB extends Database<User> {
      */
     @Override
     public List<User> getAll() {
-        return new ArrayList<>(users); // Return a copy for safety
+        return new ArrayList<>(users.values()); // Return a copy for safety
     }
 
     /**
@@ -95,8 +106,8 @@ public class UserDB extends Database<User> {
             return false; // Prevent null input
         User existingUser = getById(updatedUser.getId());
         if (existingUser != null) {
-            users.remove(existingUser);
-            users.add(updatedUser);
+            removeUser(existingUser);
+            addUser(updatedUser);
             try {
                 save(); // Automatically save after update
                 return true;
@@ -118,7 +129,7 @@ public class UserDB extends Database<User> {
     public boolean delete(String id) {
         User user = getById(id);
         if (user != null) {
-            users.remove(user);
+            removeUser(user);
             try {
                 save(); // Automatically save after deletion
                 return true;
@@ -138,7 +149,7 @@ public class UserDB extends Database<User> {
      */
     @Override
     public boolean save() throws IOException {
-        saveData(USER_FILE, users, USER_HEADER);
+        saveData(USER_FILE, users.values(), USER_HEADER);
         return true;
     }
 
@@ -169,7 +180,7 @@ public class UserDB extends Database<User> {
                     // Create specific User objects based on the role
                     User user = createUserByRole(id, name, dob, gender, phoneNumber, emailAddress, password, role);
                     if (user != null) {
-                        users.add(user);
+                        addUser(user);
                     } else {
                         System.err.println("Invalid role: " + role + " for user ID: " + id);
                     }
@@ -213,32 +224,91 @@ public class UserDB extends Database<User> {
     }
 
     /**
-     * Retrieves all doctors from the database.
+     * Adds a user to the map of all users and to the map of their role.
      *
-     * @return A list of all doctors.
+     * @param user The user to add.
      */
-    public List<Doctor> getAllDoctors() {
-        List<Doctor> doctors = new ArrayList<>();
-        for (User user : users) {
-            if (user instanceof Doctor) {
-                doctors.add((Doctor) user);
-            }
+    private void addUser(User user) {
+        users.put(user.getId(), user);
+        if (user instanceof Doctor) {
+            doctors.put(user.getId(), (Doctor) user);
+        } else if (user instanceof Patient) {
+            patients.put(user.getId(), (Patient) user);
+        } else if (user instanceof Pharmacist) {
+            pharmacists.put(user.getId(), (Pharmacist) user);
+        } else if (user instanceof Administrator) {
+            administrators.put(user.getId(), (Administrator) user);
         }
-        return doctors;
+        markModified();
+    }
+
+    /**
+     * Removes a user from the map of all users and from the map of their role.
+     *
+     * @param user The user to remove.
+     */
+    private void removeUser(User user) {
+        users.remove(user.getId());
+        doctors.remove(user.getId());
+        patients.remove(user.getId());
+        pharmacists.remove(user.getId());
+        administrators.remove(user.getId());
+        markModified();
+    }
+
+    /**
+     * Retrieves all doctors from the database.
+     *
+     * @return A read-only view of all doctors.
+     */
+    public Collection<Doctor> getAllDoctors() {
+        return Collections.unmodifiableCollection(doctors.values());
     }
 
     /**
      * Retrieves all patients from the database.
      *
-     * @return A list of all patients.
+     * @return A read-only view of all patients.
      */
-    public List<Patient> getAllPatients() {
-        List<Patient> patients = new ArrayList<>();
-        for (User user : users) {
-            if (user instanceof Patient) {
-                patients.add((Patient) user);
-            }
-        }
-        return patients;
+    public Collection<Patient> getAllPatients() {
+        return Collections.unmodifiableCollection(patients.values());
+    }
+
+    /**
+     * Retrieves all pharmacists from the database.
+     *
+     * @return A read-only view of all pharmacists.
+     */
+    public Collection<Pharmacist> getAllPharmacists() {
+        return Collections.unmodifiableCollection(pharmacists.values());
+    }
+
+    /**
+     * Retrieves all administrators from the database.
+     *
+     * @return A read-only view of all administrators.
+     */
+    public Collection<Administrator> getAllAdministrators() {
+        return Collections.unmodifiableCollection(administrators.values());
+    }
+
+    /**
+     * Retrieves a doctor by their ID.
+     *
+     * @param id The ID of the doctor to retrieve.
+     * @return The doctor if found, null if there is no doctor with that ID.
+     */
+    public Doctor getDoctorById(String id) {
+        return doctors.get(id);
+    }
+
+    /**
+     * Checks if a doctor with the given ID exists in the database.
+     *
+     * @param id The ID to check.
+     * @return true if the ID belongs to a doctor, false otherwise.
+     */
+    public boolean isDoctor(String id) {
+        return doctors.containsKey(id);
     }
 }
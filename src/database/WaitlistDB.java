@@ -0,0 +1,280 @@
+package database;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import appointments.WaitlistEntry;
+
+/**
+ * A class that manages the appointment waitlists in the database. Each doctor
+ * has a separate waitlist for each day, kept in the order patients joined.
+ * Waitlists for days that have passed are dropped when the data is loaded.
+ *
+ * @see WaitlistEntry
+ */
+public class WaitlistDB extends Database<WaitlistEntry> {
+    private Map<String, Deque<WaitlistEntry>> waitlists; // "doctorId|date" -> entries, first joined first
+    private int depth; // Number of entries across all waitlists
+    private static final String filename = "csv_data/Waitlist.csv"; // File path for saving/loading data
+    private static final String header = "PatientID,DoctorID,Date,DurationMinutes,JoinedAt"; // Header for the CSV file
+
+    /**
+     * Constructor for initializing the WaitlistDB with the specified CSV file
+     * path.
+     */
+    public WaitlistDB() {
+        super(filename); // Pass the filename to the parent class
+        this.waitlists = new TreeMap<>();
+    }
+
+    /**
+     * Adds an entry to the end of its waitlist and saves the changes to the
+     * file. A patient can only wait once for the same doctor and day.
+     *
+     * @param entry the WaitlistEntry object to be added
+     * @return true if the entry was successfully added, false otherwise
+     */
+    @Override
+    public boolean create(WaitlistEntry entry) {
+        if (entry == null || isWaiting(entry.getPatientId(), entry.getDoctorId(), entry.getDate())) {
+            return false;
+        }
+        waitlists.computeIfAbsent(key(entry.getDoctorId(), entry.getDate()), k -> new ArrayDeque<>()).addLast(entry);
+        depth++;
+        markModified();
+        saveQuietly("creating waitlist entry");
+        return true;
+    }
+
+    /**
+     * Removes an entry from its waitlist and saves the changes to the file.
+     *
+     * @param entry the entry to remove
+     * @return true if the entry was removed, false if it was not waiting
+     */
+    public boolean remove(WaitlistEntry entry) {
+        String key = key(entry.getDoctorId(), entry.getDate());
+        Deque<WaitlistEntry> waitlist = waitlists.get(key);
+        if (waitlist == null || !waitlist.remove(entry)) {
+            return false;
+        }
+        if (waitlist.isEmpty()) {
+            waitlists.remove(key);
+        }
+        depth--;
+        markModified();
+        saveQuietly("removing waitlist entry");
+        return true;
+    }
+
+    /**
+     * Retrieves the waitlist of a doctor for a day.
+     *
+     * @param doctorId the ID of the doctor
+     * @param date     the day
+     * @return a copy of the waitlist, first joined first
+     */
+    public List<WaitlistEntry> getWaitlist(String doctorId, LocalDate date) {
+        Deque<WaitlistEntry> waitlist = waitlists.get(key(doctorId, date));
+        return waitlist == null ? new ArrayList<>() : new ArrayList<>(waitlist);
+    }
+
+    /**
+     * Checks whether a patient is already waiting for a doctor on a day.
+     *
+     * @param patientId the ID of the patient
+     * @param doctorId  the ID of the doctor
+     * @param date      the day
+     * @return true if the patient is on that waitlist
+     */
+    public boolean isWaiting(String patientId, String doctorId, LocalDate date) {
+        return find(patientId, doctorId, date) != null;
+    }
+
+    /**
+     * Gets the number of entries across all waitlists.
+     *
+     * @return the total waitlist depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Retrieves all waitlist entries in the database.
+     *
+     * @return a list of all WaitlistEntry objects, by doctor and then by day
+     */
+    @Override
+    public List<WaitlistEntry> getAll() {
+        List<WaitlistEntry> all = new ArrayList<>();
+        for (Deque<WaitlistEntry> waitlist : waitlists.values()) {
+            all.addAll(waitlist);
+        }
+        return all;
+    }
+
+    /**
+     * Saves all waitlist entries to a CSV file.
+     *
+     * @return true if the data was successfully saved
+     * @throws IOException if an I/O error occurs during saving
+     */
+    @Override
+    public boolean save() throws IOException {
+        if (waitlists.isEmpty() && !new File(filename).exists()) {
+            return true; // Nothing to save until a patient first joins a waitlist
+        }
+        saveData(filename, getAll(), header);
+        return true;
+    }
+
+    /**
+     * Loads all waitlist entries from a CSV file into the database, leaving out
+     * days that have passed. If the file does not exist yet, every waitlist is
+     * empty.
+     *
+     * @return true if the data was successfully loaded
+     * @throws IOException if an I/O error occurs during loading
+     */
+    @Override
+    public boolean load() throws IOException {
+        if (!new File(filename).exists()) {
+            return true;
+        }
+        LocalDate today = LocalDate.now();
+        for (String line : readFile(filename)) {
+            String[] tokens = splitLine(line); // Split line into tokens
+            try {
+                if (tokens.length != 5) {
+                    throw new IllegalArgumentException();
+                }
+                WaitlistEntry entry = new WaitlistEntry(
+                        tokens[0].trim(), // PatientID
+                        tokens[1].trim(), // DoctorID
+                        LocalDate.parse(tokens[2].trim()), // Date
+                        Integer.parseInt(tokens[3].trim()), // DurationMinutes
+                        LocalDateTime.parse(tokens[4].trim()) // JoinedAt
+                );
+                if (!entry.getDate().isBefore(today)) {
+                    waitlists.computeIfAbsent(key(entry.getDoctorId(), entry.getDate()), k -> new ArrayDeque<>())
+                            .addLast(entry);
+                    depth++;
+                    markModified();
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                System.out.println("Invalid line in " + filename + ": " + line);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the key of a doctor's waitlist for a day.
+     *
+     * @param doctorId the ID of the doctor
+     * @param date     the day
+     * @return the key
+     */
+    private static String key(String doctorId, LocalDate date) {
+        return doctorId + "|" + date;
+    }
+
+    /**
+     * Saves the waitlists, reporting rather than throwing any error.
+     *
+     * @param action what was being done, for the error message
+     */
+    private void saveQuietly(String action) {
+        try {
+            save(); // Automatically save after each change
+        } catch (IOException e) {
+            System.err.println("Error saving data after " + action + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds a patient's entry on a doctor's waitlist for a day.
+     *
+     * @param patientId the ID of the patient
+     * @param doctorId  the ID of the doctor
+     * @param date      the day
+     * @return the entry, or null if the patient is not on that waitlist
+     */
+    private WaitlistEntry find(String patientId, String doctorId, LocalDate date) {
+        Deque<WaitlistEntry> waitlist = waitlists.get(key(doctorId, date));
+        if (waitlist != null) {
+            for (WaitlistEntry entry : waitlist) {
+                if (entry.getPatientId().equals(patientId)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves a waitlist entry by its ID.
+     *
+     * @param id the ID of the entry, in the format "patientId|doctorId|date"
+     * @return the entry, or null if it is not found or the ID is malformed
+     * @see WaitlistEntry#getId()
+     */
+    @Override
+    public WaitlistEntry getById(String id) {
+        String[] parts = id.split("\\|");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return find(parts[0], parts[1], LocalDate.parse(parts[2]));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces a waitlist entry with one for the same patient, doctor and day,
+     * keeping its place in the waitlist, and saves the changes to the file.
+     *
+     * @param entity the updated entry
+     * @return true if the entry was updated, false if it was not waiting
+     */
+    @Override
+    public boolean update(WaitlistEntry entity) {
+        WaitlistEntry existing = find(entity.getPatientId(), entity.getDoctorId(), entity.getDate());
+        if (existing == null) {
+            return false;
+        }
+        String key = key(entity.getDoctorId(), entity.getDate());
+        Deque<WaitlistEntry> updated = new ArrayDeque<>();
+        for (WaitlistEntry entry : waitlists.get(key)) {
+            updated.addLast(entry == existing ? entity : entry);
+        }
+        waitlists.put(key, updated);
+        markModified();
+        saveQuietly("updating waitlist entry");
+        return true;
+    }
+
+    /**
+     * Removes a waitlist entry by its ID and saves the changes to the file.
+     *
+     * @param id the ID of the entry, in the format "patientId|doctorId|date"
+     * @return true if the entry was removed, false if it was not found
+     */
+    @Override
+    public boolean delete(String id) {
+        WaitlistEntry entry = getById(id);
+        return entry != null && remove(entry);
+    }
+}
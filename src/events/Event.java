@@ -0,0 +1,104 @@
+package events;
+
+import java.time.Instant;
+
+/**
+ * A slot in the {@link EventBus} ring buffer. The bus creates every Event up
+ * front and overwrites their fields as events are published, so publishing
+ * allocates nothing. An Event is only valid during the call to
+ * {@link EventSubscriber#onEvent(Event, long, boolean)} it is passed to;
+ * subscribers that need it afterwards must copy the fields they want.
+ */
+public class Event {
+    private EventType type; // The kind of event
+    private String subjectId; // The appointment, medicine or patient the event is about
+    private String actorId; // The user involved, if any
+    private String detail; // Extra information, depending on the type
+    private long value; // A number, depending on the type
+    private long timestampMillis; // When the event was published
+
+    /**
+     * Overwrites the fields of this slot. Only called by the bus's publisher.
+     *
+     * @param type            the kind of event
+     * @param subjectId       the ID of what the event is about
+     * @param actorId         the ID of the user involved, or null
+     * @param detail          extra information, or null
+     * @param value           a number carried by the event
+     * @param timestampMillis when the event was published
+     */
+    void set(EventType type, String subjectId, String actorId, String detail, long value, long timestampMillis) {
+        this.type = type;
+        this.subjectId = subjectId;
+        this.actorId = actorId;
+        this.detail = detail;
+        this.value = value;
+        this.timestampMillis = timestampMillis;
+    }
+
+    /**
+     * Gets the kind of event.
+     *
+     * @return the event type
+     */
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of what the event is about.
+     *
+     * @return the subject ID
+     */
+    public String getSubjectId() {
+        return subjectId;
+    }
+
+    /**
+     * Gets the ID of the user involved.
+     *
+     * @return the actor ID, or null if there is none
+     */
+    public String getActorId() {
+        return actorId;
+    }
+
+    /**
+     * Gets the extra information about the event.
+     *
+     * @return the detail, or null if there is none
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Gets the number carried by the event.
+     *
+     * @return the value
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Gets when the event was published.
+     *
+     * @return the time, in milliseconds since the epoch
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Converts the Event object to a string representation.
+     * The format is "timestamp,type,subjectId,actorId,detail,value".
+     *
+     * @return a string representation of the object
+     */
+    @Override
+    public String toString() {
+        return String.format("%s,%s,%s,%s,%s,%d", Instant.ofEpochMilli(timestampMillis), type, subjectId,
+                actorId == null ? "" : actorId, detail == null ? "" : detail, value);
+    }
+}
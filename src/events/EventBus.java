@@ -0,0 +1,226 @@
+package events;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes domain events from the managers to subscribers that react to them,
+ * such as the audit log. Events are written into a ring buffer of Event slots
+ * created up front, so publishing allocates nothing. Publishers take turns, so
+ * there is only ever one writer, and each subscriber reads the buffer on its
+ * own thread, handling every event published since its last batch in one go.
+ * Publishing never waits for a subscriber: if the slowest one has fallen a
+ * whole ring behind, the new event is dropped and counted instead. A subscriber
+ * with nothing to do spins briefly and then sleeps until the next event is
+ * published.
+ */
+public class EventBus {
+    private static final int IDLE_SPINS = 1000; // Busy-waits before an idle consumer parks
+
+    /**
+     * A subscriber and the thread that feeds it events.
+     */
+    private class Consumer implements Runnable {
+        private final EventSubscriber subscriber;
+        private volatile long sequence; // The last event handled
+        private volatile Thread parked; // Set while the consumer sleeps waiting for events
+
+        private Consumer(EventSubscriber subscriber, long sequence) {
+            this.subscriber = subscriber;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence + 1;
+            int idle = 0;
+            while (true) {
+                long available = cursor;
+                if (available < next) {
+                    if (!running) {
+                        return; // Stopped and caught up
+                    }
+                    // Spin briefly so bursts are picked up quickly, then sleep until woken
+                    if (++idle < IDLE_SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked = Thread.currentThread();
+                        // Check again after announcing, so a publish in between is not missed
+                        if (cursor < next && running) {
+                            LockSupport.park(this);
+                        }
+                        parked = null;
+                    }
+                    continue;
+                }
+                idle = 0;
+                for (long s = next; s <= available; s++) {
+                    try {
+                        subscriber.onEvent(ring[(int) (s & mask)], s, s == available);
+                    } catch (Throwable e) {
+                        // Keep going whatever the subscriber throws, or the publisher would stall on it
+                        System.err.println("Error in event subscriber: " + e);
+                    }
+                }
+                sequence = available; // Frees the slots for the publisher
+                next = available + 1;
+            }
+        }
+    }
+
+    private final Event[] ring;
+    private final int mask;
+    private volatile long cursor = -1; // The last event published
+    private volatile boolean running = true;
+
+    // Written only while holding the bus's lock
+    private long nextSequence;
+    private long gatingSequence = -1; // Cached lowest sequence of all consumers
+    private volatile Consumer[] consumers = new Consumer[0];
+    private Thread[] threads = new Thread[0];
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructs an EventBus with a ring buffer of the given size.
+     *
+     * @param capacity the number of events the buffer holds; must be a power of
+     *                 two.
+     */
+    public EventBus(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.ring = new Event[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Event();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a subscriber and starts its thread. The subscriber receives events
+     * published from now on.
+     *
+     * @param subscriber the subscriber to add.
+     * @param name       the name of the subscriber's thread.
+     */
+    public synchronized void subscribe(EventSubscriber subscriber, String name) {
+        if (!running) {
+            throw new IllegalStateException("Event bus has been shut down.");
+        }
+        Consumer consumer = new Consumer(subscriber, nextSequence - 1);
+        Consumer[] updatedConsumers = Arrays.copyOf(consumers, consumers.length + 1);
+        updatedConsumers[consumers.length] = consumer;
+        consumers = updatedConsumers;
+        gatingSequence = Math.min(gatingSequence, consumer.sequence);
+
+        Thread thread = new Thread(consumer, name);
+        thread.setDaemon(true); // Never keep the program alive
+        threads = Arrays.copyOf(threads, threads.length + 1);
+        threads[threads.length - 1] = thread;
+        thread.start();
+    }
+
+    /**
+     * Publishes an event. See {@link EventType} for what each field holds.
+     *
+     * @param type      the kind of event.
+     * @param subjectId the ID of what the event is about.
+     * @param actorId   the ID of the user involved, or null.
+     * @param detail    extra information, or null.
+     * @param value     a number carried by the event.
+     * @return true if the event was published, false if it was dropped because
+     *         a subscriber has fallen too far behind or the bus is shut down.
+     */
+    public synchronized boolean publish(EventType type, String subjectId, String actorId, String detail,
+            long value) {
+        if (!running) {
+            return false;
+        }
+        long sequence = nextSequence;
+        long wrapPoint = sequence - ring.length;
+        if (gatingSequence < wrapPoint) {
+            // Only look at the consumers again once the cached position is reached
+            gatingSequence = getLowestConsumerSequence(sequence - 1);
+            if (gatingSequence < wrapPoint) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        ring[(int) (sequence & mask)].set(type, subjectId, actorId, detail, value, System.currentTimeMillis());
+        nextSequence = sequence + 1;
+        cursor = sequence; // Makes the event visible to the consumers
+        wakeConsumers();
+        return true;
+    }
+
+    /**
+     * Gets the number of events published.
+     *
+     * @return the number of events published.
+     */
+    public long getPublishedCount() {
+        return cursor + 1;
+    }
+
+    /**
+     * Gets the number of events dropped because a subscriber had fallen a whole
+     * ring behind.
+     *
+     * @return the number of dropped events.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting events and waits briefly for the subscribers to handle
+     * the events already published.
+     */
+    public void shutdown() {
+        Thread[] toJoin;
+        synchronized (this) {
+            running = false;
+            toJoin = threads;
+        }
+        wakeConsumers();
+        for (Thread thread : toJoin) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wakes the consumers that are asleep waiting for events.
+     */
+    private void wakeConsumers() {
+        Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            Thread thread = current[i].parked;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Finds the last event handled by every consumer.
+     *
+     * @param lowest the value to return if there are no consumers.
+     * @return the lowest consumer sequence.
+     */
+    private long getLowestConsumerSequence(long lowest) {
+        Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            lowest = Math.min(lowest, current[i].sequence);
+        }
+        return lowest;
+    }
+}
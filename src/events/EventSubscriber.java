@@ -0,0 +1,20 @@
+package events;
+
+/**
+ * Receives events from the {@link EventBus}. Each subscriber runs on its own
+ * thread and is handed events in batches: every event published since its last
+ * batch, in order, with the last one flagged so work such as flushing a file
+ * can be done once per batch.
+ */
+public interface EventSubscriber {
+
+    /**
+     * Handles one event. The event is overwritten once this returns, so copy
+     * anything that is needed later.
+     *
+     * @param event      the event
+     * @param sequence   the event's position in the bus, counting from 0
+     * @param endOfBatch true if this is the last event of the batch
+     */
+    void onEvent(Event event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,39 @@
+package events;
+
+/**
+ * The kinds of domain events published on the {@link EventBus}. The fields of
+ * an {@link Event} mean different things for each kind, as described below.
+ */
+public enum EventType {
+    /**
+     * An appointment started holding time in a doctor's schedule. Subject: the
+     * appointment ID; actor: the patient ID; detail: the doctor ID; value: the
+     * length of the appointment in minutes.
+     */
+    APPOINTMENT_BOOKED,
+
+    /**
+     * An appointment was confirmed, cancelled or otherwise changed status.
+     * Subject: the appointment ID; actor: the patient ID; detail: the new
+     * status.
+     */
+    APPOINTMENT_STATUS_CHANGED,
+
+    /**
+     * The outcome of an appointment was recorded. Subject: the appointment ID;
+     * actor: the patient ID; detail: the service provided.
+     */
+    OUTCOME_RECORDED,
+
+    /**
+     * The stock level of a medicine changed. Subject: the medicine ID; detail:
+     * the medicine name; value: the new stock level.
+     */
+    STOCK_CHANGED,
+
+    /**
+     * A patient's medical record was amended. Subject: the patient ID; detail:
+     * what was amended.
+     */
+    RECORD_AMENDED
+}
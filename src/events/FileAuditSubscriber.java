@@ -0,0 +1,50 @@
+package events;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * An EventSubscriber that appends every event to an audit file, one line per
+ * event in the format "timestamp,type,subjectId,actorId,detail,value". The file
+ * is opened once per batch rather than once per event.
+ */
+public class FileAuditSubscriber implements EventSubscriber {
+    private final String filename; // The file events are appended to
+    private BufferedWriter writer; // Open while a batch is being written
+
+    /**
+     * Constructs a FileAuditSubscriber that appends to the given file.
+     *
+     * @param filename the path of the audit file
+     */
+    public FileAuditSubscriber(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * Appends an event to the audit file, closing the file at the end of the
+     * batch.
+     *
+     * @param event      the event
+     * @param sequence   the event's position in the bus
+     * @param endOfBatch true if this is the last event of the batch
+     */
+    @Override
+    public void onEvent(Event event, long sequence, boolean endOfBatch) {
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new FileWriter(filename, true));
+            }
+            writer.write(event.toString());
+            writer.newLine();
+            if (endOfBatch) {
+                writer.close();
+                writer = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to audit file " + filename + ": " + e.getMessage());
+            writer = null;
+        }
+    }
+}
@@ -12,13 +12,27 @@ package main;
  */
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Scanner;
+import appointments.FileReminderSink;
+import events.EventBus;
+import events.FileAuditSubscriber;
 import managers.AppointmentManager;
 import managers.AppointmentOutcomeManager;
 import managers.AuthenticationManager;
+import managers.CredentialManager;
 import managers.DatabaseManager;
 import managers.InventoryManager;
+import managers.LoginRateLimiter;
 import managers.MedicalRecordManager;
+import managers.ReminderService;
+import managers.ReplenishmentPlanner;
+import managers.SearchManager;
+import managers.SessionManager;
+import managers.WaitlistManager;
+import medicine.Medicine;
+import medicine.StockLevelListener;
 import menus.AdministratorMenu;
 import menus.DoctorMenu;
 import menus.PatientMenu;
@@ -38,15 +52,30 @@ import users.User;
 public class HospitalManagementSystem {
 
     private static DatabaseManager databaseManager = new DatabaseManager();
-    private static AuthenticationManager loginSystem = new AuthenticationManager(databaseManager.getUserDB());
+    private static EventBus eventBus = new EventBus(1024);
+    private static CredentialManager credentialManager = new CredentialManager(databaseManager.getUserDB());
+    private static LoginRateLimiter loginRateLimiter = new LoginRateLimiter();
+    private static AuthenticationManager loginSystem = new AuthenticationManager(databaseManager.getUserDB(),
+            credentialManager, loginRateLimiter);
+    private static SessionManager sessionManager = new SessionManager(Duration.ofMinutes(30));
+    private static SearchManager searchManager = new SearchManager(databaseManager.getMedicalRecordDB(),
+            databaseManager.getAppointmentOutcomeRecordDB());
     private static MedicalRecordManager medicalRecordManager = new MedicalRecordManager(
-            databaseManager.getMedicalRecordDB());
+            databaseManager.getMedicalRecordDB(), searchManager, eventBus);
     private static AppointmentManager appointmentManager = new AppointmentManager(
-            databaseManager.getdoctorAvailabilityDB(), databaseManager.getAppointmentDB(), databaseManager.getUserDB());
+            databaseManager.getdoctorAvailabilityDB(), databaseManager.getAppointmentDB(),
+            databaseManager.getScheduleTemplateDB(), databaseManager.getUserDB(), Duration.ofMinutes(60), eventBus);
+    private static WaitlistManager waitlistManager = new WaitlistManager(databaseManager.getWaitlistDB(),
+            databaseManager.getAppointmentDB(), appointmentManager);
+    private static ReminderService reminderService = new ReminderService(databaseManager.getAppointmentDB(),
+            new FileReminderSink("csv_data/Reminders.log"), Duration.ofSeconds(1),
+            List.of(Duration.ofHours(24), Duration.ofHours(1)));
     private static AppointmentOutcomeManager appointmentOutcomeManager = new AppointmentOutcomeManager(
-            databaseManager.getAppointmentOutcomeRecordDB());
+            databaseManager.getAppointmentOutcomeRecordDB(), searchManager, eventBus);
     private static InventoryManager inventory = new InventoryManager(databaseManager.getMedicineDB(),
-            databaseManager.getReplenishmentDB());
+            databaseManager.getReplenishmentDB(), databaseManager.getStockLedgerDB(), eventBus);
+    private static ReplenishmentPlanner replenishmentPlanner = new ReplenishmentPlanner(appointmentOutcomeManager,
+            inventory);
     private static Scanner scanner = new Scanner(System.in);
 
     /**
@@ -62,11 +91,42 @@ public class HospitalManagementSystem {
             System.out.println("Loading database...");
             databaseManager.initialize();
 
+            // Record domain events in the audit log
+            eventBus.subscribe(new FileAuditSubscriber("csv_data/Audit.log"), "audit-log-subscriber");
+
+            // Build the in-memory indexes over the loaded data
+            searchManager.buildIndex();
+            appointmentOutcomeManager.buildPendingQueue();
+            reminderService.armAll(databaseManager.getAppointmentDB().snapshot());
+            inventory.buildLowStockIndex();
+            inventory.openStockLedger();
+            replenishmentPlanner.buildConsumptionHistory();
+            appointmentOutcomeManager.addDispenseListener(replenishmentPlanner);
+            inventory.addStockLevelListener(new StockLevelListener() {
+                @Override
+                public void onStockLow(Medicine medicine) {
+                    System.out.println("Low stock alert: " + medicine.getName() + " is down to "
+                            + medicine.getStockLevel() + " units (alert level " + medicine.getLowStockLevelAlert()
+                            + ").");
+                }
+
+                @Override
+                public void onStockRestored(Medicine medicine) {
+                    System.out.println("Stock restored: " + medicine.getName() + " is back to "
+                            + medicine.getStockLevel() + " units.");
+                }
+            });
+
             // Handle user login
             User currentUser = loginSystem.handleLogin();
 
             if (currentUser != null) {
-                handleUserRole(scanner, currentUser);
+                String token = sessionManager.createSession(currentUser);
+                try {
+                    handleUserRole(scanner, token);
+                } finally {
+                    sessionManager.invalidate(token);
+                }
             }
 
         } catch (Exception e) {
@@ -75,6 +135,10 @@ public class HospitalManagementSystem {
         } finally {
             // Close the scanner
             scanner.close();
+            credentialManager.shutdown();
+            sessionManager.shutdown();
+            reminderService.shutdown();
+            eventBus.shutdown();
         }
 
         // Save changes to the database before exiting
@@ -88,37 +152,54 @@ public class HospitalManagementSystem {
     }
 
     /**
-     * Directs the user to the appropriate menu based on their role in the system.
+     * Directs the user to the appropriate menu based on the role held in their
+     * session.
      *
-     * @param scanner     the Scanner object for reading user input
-     * @param currentUser the user currently logged in
+     * @param scanner the Scanner object for reading user input
+     * @param token   the session token issued at login
      */
-    private static void handleUserRole(Scanner scanner, User currentUser) {
-        String role = currentUser.getRole();
-
-        if (role.equals("Patient")) {
-            Patient patient = (Patient) currentUser;
-            PatientMenu patientMenu = new PatientMenu(patient, medicalRecordManager, appointmentManager,
-                    appointmentOutcomeManager, databaseManager.getUserDB());
-            patientMenu.displayMenu();
-        } else if (role.equals("Doctor")) {
-            Doctor doctor = (Doctor) currentUser;
-            DoctorMenu doctorMenu = new menus.DoctorMenu(doctor, appointmentManager, appointmentOutcomeManager,
-                    medicalRecordManager,
-                    databaseManager.getdoctorAvailabilityDB(), databaseManager.getUserDB());
-            doctorMenu.displayMenu();
-        } else if (role.equals("Pharmacist")) {
-            Pharmacist pharmacist = (Pharmacist) currentUser;
-            PharmacistMenu pharmacistMenu = new PharmacistMenu(pharmacist, appointmentOutcomeManager, inventory,
-                    databaseManager.getUserDB());
-            pharmacistMenu.displayMenu();
-        } else if (role.equals("Administrator")) {
-            Administrator administrator = (Administrator) currentUser;
-            AdministratorMenu administratorMenu = new AdministratorMenu(administrator, databaseManager.getUserDB(),
-                    inventory, appointmentManager);
-            administratorMenu.displayMenu();
-        } else {
+    private static void handleUserRole(Scanner scanner, String token) {
+        SessionManager.Session session = sessionManager.getSession(token);
+        if (token == null) {
+            // No session is created for a user whose role is not recognised
             System.out.println("Invalid role. Logging out.");
+            return;
+        }
+        if (session == null) {
+            System.out.println("Your session is invalid or has expired. Logging out.");
+            return;
+        }
+        User currentUser = session.getUser();
+
+        switch (session.getRole()) {
+            case PATIENT:
+                Patient patient = (Patient) currentUser;
+                PatientMenu patientMenu = new PatientMenu(patient, medicalRecordManager, appointmentManager,
+                        appointmentOutcomeManager, waitlistManager, databaseManager.getUserDB(), sessionManager,
+                        token);
+                patientMenu.displayMenu();
+                break;
+            case DOCTOR:
+                Doctor doctor = (Doctor) currentUser;
+                DoctorMenu doctorMenu = new menus.DoctorMenu(doctor, appointmentManager, appointmentOutcomeManager,
+                        medicalRecordManager, searchManager,
+                        databaseManager.getdoctorAvailabilityDB(), databaseManager.getUserDB(), sessionManager,
+                        token);
+                doctorMenu.displayMenu();
+                break;
+            case PHARMACIST:
+                Pharmacist pharmacist = (Pharmacist) currentUser;
+                PharmacistMenu pharmacistMenu = new PharmacistMenu(pharmacist, appointmentOutcomeManager, inventory,
+                        replenishmentPlanner, databaseManager.getUserDB(), sessionManager, token);
+                pharmacistMenu.displayMenu();
+                break;
+            case ADMINISTRATOR:
+                Administrator administrator = (Administrator) currentUser;
+                AdministratorMenu administratorMenu = new AdministratorMenu(administrator, databaseManager.getUserDB(),
+                        inventory, appointmentManager, waitlistManager, credentialManager, loginRateLimiter,
+                        reminderService, sessionManager, token);
+                administratorMenu.displayMenu();
+                break;
         }
     }
-}
\ No newline at end of file
+}
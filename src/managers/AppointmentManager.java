@@ -2,35 +2,136 @@ package managers;
 
 import database.AppointmentDB;
 import database.DoctorUnavailabilityDB;
+import database.ScheduleTemplateDB;
 import database.UserDB;
+import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
+import appointments.AllocationRequest;
+import appointments.AllocationResult;
 import appointments.Appointment;
+import appointments.AppointmentListener;
+import appointments.AvailableSlot;
+import appointments.DayBitmap;
 import appointments.DoctorUnavailableSlots;
+import appointments.ScheduleTemplateEntry;
+import appointments.Visit;
+import events.EventBus;
+import events.EventType;
 import users.Doctor;
+import users.Patient;
+
+public class AppointmentManager implements AppointmentListener {
+    private static final LocalTime STANDARD_START = LocalTime.of(9, 0); // Start of the standard working hours
+    private static final LocalTime STANDARD_END = LocalTime.of(17, 0); // End of the standard working hours
+    private static final int WEEK_CACHE_SIZE = 64; // Expanded doctor-weeks kept in the cache
+    private static final int SEARCH_DAYS = 60; // Days ahead searched for the earliest appointments
 
-public class AppointmentManager {
     private AppointmentDB appointmentDB;
     private DoctorUnavailabilityDB availabilityDB;
+    private ScheduleTemplateDB templateDB;
     private UserDB userDB;
+    private int slotMinutes; // Length of one appointment slot
+
+    // "doctorId|Monday of the week" -> working hours of each day of that week,
+    // least recently used first
+    private Map<String, Map<LocalDate, DayBitmap>> weekCache;
+    private Map<String, NextFree> nextFree; // Doctor ID -> where that doctor's next free slot may be
+    private long releaseCount; // Cancellations so far, guarded by nextFree
+    private final Object bookingLock = new Object(); // Makes checking and booking a slot one step
+    private EventBus eventBus;
 
     /**
      * Constructor for the AppointmentManager.
      *
      * @param availabilityDB the DoctorUnavailabilityDB instance
      * @param appointmentDB  the AppointmentDB instance
+     * @param templateDB     the ScheduleTemplateDB instance
      * @param userDB         the UserDB instance
+     * @param slotLength     the length of one appointment slot, a whole number
+     *                       of five-minute units
+     * @param eventBus       the bus to publish appointment events on
+     * @throws IllegalArgumentException if the slot length is not a positive
+     *                                  multiple of five minutes within a day
      */
-    public AppointmentManager(DoctorUnavailabilityDB availabilityDB, AppointmentDB appointmentDB, UserDB userDB) {
+    public AppointmentManager(DoctorUnavailabilityDB availabilityDB, AppointmentDB appointmentDB,
+            ScheduleTemplateDB templateDB, UserDB userDB, Duration slotLength, EventBus eventBus) {
+        long minutes = slotLength.toMinutes();
+        if (minutes <= 0 || minutes >= 24 * 60 || minutes % DayBitmap.UNIT_MINUTES != 0
+                || !slotLength.equals(Duration.ofMinutes(minutes))) {
+            throw new IllegalArgumentException("Slot length must be a multiple of "
+                    + DayBitmap.UNIT_MINUTES + " minutes within a day: " + slotLength);
+        }
         this.appointmentDB = appointmentDB;
         this.availabilityDB = availabilityDB;
+        this.templateDB = templateDB;
         this.userDB = userDB;
+        this.slotMinutes = (int) minutes;
+        this.eventBus = eventBus;
+        this.weekCache = new LinkedHashMap<String, Map<LocalDate, DayBitmap>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<LocalDate, DayBitmap>> eldest) {
+                return size() > WEEK_CACHE_SIZE;
+            }
+        };
+        this.nextFree = new HashMap<>();
+        appointmentDB.addListener(this);
+    }
+
+    /**
+     * A pointer to where a doctor's next free slot may be: no slot in
+     * [searchedFrom, next) was free when the pointer was last moved. Bookings
+     * only take slots away, so they leave the pointer valid; cancellations move
+     * it back to the freed time.
+     */
+    private static class NextFree {
+        private LocalDateTime searchedFrom;
+        private LocalDateTime next;
+
+        NextFree(LocalDateTime searchedFrom, LocalDateTime next) {
+            this.searchedFrom = searchedFrom;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A doctor's place in the search for the earliest appointments. A candidate
+     * is either a confirmed open slot or only a lower bound on the doctor's
+     * next open slot, still to be checked.
+     */
+    private static class Candidate {
+        private String doctorId;
+        private LocalDateTime at;
+        private boolean checked;
+        private boolean first; // Whether this is the doctor's first candidate in the search
+
+        Candidate(String doctorId, LocalDateTime at, boolean checked, boolean first) {
+            this.doctorId = doctorId;
+            this.at = at;
+            this.checked = checked;
+            this.first = first;
+        }
     }
 
     /**
@@ -39,15 +140,23 @@ public class AppointmentManager {
      * @return a list of formatted strings with doctor names and IDs
      */
     public List<String> getAllAvailableDoctors() {
-        List<Doctor> doctorList = userDB.getAllDoctors();
         List<String> doctorListFormatted = new ArrayList<>();
-        for (int i = 0; i < doctorList.size(); i++) {
-            Doctor doctor = doctorList.get(i);
+        for (Doctor doctor : userDB.getAllDoctors()) {
             doctorListFormatted.add(doctor.getName() + " - " + doctor.getId());
         }
         return doctorListFormatted;
     }
 
+    /**
+     * Gets the length of one appointment slot. Appointments last a whole number
+     * of slots.
+     *
+     * @return the slot length in minutes
+     */
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
     /**
      * Displays available appointment slots for a given doctor starting from a
      * specified date.
@@ -56,6 +165,18 @@ public class AppointmentManager {
      * @param startDate the starting date to view available slots
      */
     public void showAvailableSlots(String doctorId, LocalDate startDate) {
+        showAvailableSlots(doctorId, startDate, slotMinutes);
+    }
+
+    /**
+     * Displays the times at which an appointment of a given length could start
+     * with a doctor, starting from a specified date.
+     *
+     * @param doctorId        the ID of the doctor
+     * @param startDate       the starting date to view available slots
+     * @param durationMinutes the length of the appointment in minutes
+     */
+    public void showAvailableSlots(String doctorId, LocalDate startDate, int durationMinutes) {
         System.out.println("Viewing available appointment slots for Doctor " + userDB.getById(doctorId).getName());
         System.out.println("===========================================================================");
 
@@ -63,7 +184,7 @@ public class AppointmentManager {
             LocalDate currentDate = startDate.plusDays(i);
             System.out.print((i + 1) + ". Date: " + currentDate + "  ");
 
-            List<LocalTime> availableSlots = getAvailableSlotsForDoctor(doctorId, currentDate);
+            List<LocalTime> availableSlots = getAvailableSlotsForDoctor(doctorId, currentDate, durationMinutes);
 
             if (availableSlots.isEmpty()) {
                 System.out.print("No available slots.");
@@ -81,32 +202,35 @@ public class AppointmentManager {
     }
 
     /**
-     * Retrieves a doctor's personal schedule for a specific date.
+     * Retrieves a doctor's personal schedule for a specific date: the slots the
+     * doctor works and has not marked as unavailable, whether or not they are
+     * booked.
      *
      * @param doctorId the ID of the doctor
      * @param date     the date to get the schedule for
-     * @return a list of available slots for the doctor on the given date
+     * @return the start times of the slots, each lasting one slot length
      */
     public List<String> getPersonalSchedule(String doctorId, LocalDate date) {
-        LocalTime startOfWork = LocalTime.of(9, 0);
-        LocalTime endOfWork = LocalTime.of(17, 0);
-
-        List<LocalTime> allPossibleSlots = new ArrayList<>();
-        for (LocalTime time = startOfWork; !time.isAfter(endOfWork); time = time.plusHours(1)) {
-            allPossibleSlots.add(time);
-        }
-
-        Set<LocalTime> unavailableTimes = getUnavailableTimes(doctorId, date);
+        DayBitmap free = getFreeTime(doctorId, date, false);
 
         List<String> availableSlots = new ArrayList<>();
-        for (LocalTime slot : allPossibleSlots) {
-            if (!unavailableTimes.contains(slot)) {
-                availableSlots.add(slot.toString());
-            }
+        for (LocalTime slot : free.findFreeRuns(slotMinutes, slotMinutes)) {
+            availableSlots.add(slot.toString());
         }
         return availableSlots;
     }
 
+    /**
+     * Retrieves a patient's visits, each appointment with its outcome record,
+     * ordered by date and time.
+     *
+     * @param patientId the ID of the patient
+     * @return a list of the patient's visits
+     */
+    public List<Visit> getPatientVisits(String patientId) {
+        return appointmentDB.getPatientVisits(patientId);
+    }
+
     /**
      * Retrieves all appointments for a specific patient.
      *
@@ -147,67 +271,219 @@ public class AppointmentManager {
     }
 
     /**
-     * Retrieves the unavailable times for a doctor on a specific date.
+     * Retrieves a doctor's weekly schedule template.
      *
      * @param doctorId the ID of the doctor
-     * @param date     the date to check for unavailable times
-     * @return a set of unavailable times for the doctor on the given date
+     * @return the doctor's template entries, empty if the doctor works the
+     *         standard hours every day
      */
-    private Set<LocalTime> getUnavailableTimes(String doctorId, LocalDate date) {
-        List<DoctorUnavailableSlots> unavailableSlots = availabilityDB.getDoctorUnavailability(doctorId, date);
-        Set<LocalTime> unavailableTimes = new HashSet<>();
-        for (DoctorUnavailableSlots unavailable : unavailableSlots) {
-            unavailableTimes.add(unavailable.getTime());
+    public List<ScheduleTemplateEntry> getWeeklyTemplate(String doctorId) {
+        return templateDB.getTemplate(doctorId);
+    }
+
+    /**
+     * Sets a doctor's working hours and recurring time off for one day of the
+     * week, replacing whatever was set for that day before. The change applies
+     * to every future week without storing anything per date.
+     *
+     * @param doctorId  the ID of the doctor
+     * @param dayOfWeek the day of the week to set
+     * @param entries   the working hours and time off for that day; an empty list
+     *                  returns the day to the standard hours
+     * @return true if the template was saved, false otherwise
+     */
+    public boolean setWeeklyTemplate(String doctorId, DayOfWeek dayOfWeek, List<ScheduleTemplateEntry> entries) {
+        boolean saved = templateDB.replaceDay(doctorId, dayOfWeek, entries);
+        synchronized (weekCache) {
+            weekCache.keySet().removeIf(key -> key.startsWith(doctorId + "|"));
         }
-        return unavailableTimes;
+        synchronized (nextFree) {
+            nextFree.remove(doctorId); // New working hours may open earlier slots
+        }
+        return saved;
     }
 
     /**
-     * Retrieves the booked times for a doctor on a specific date.
+     * Removes a period from a doctor's unavailability, such as leave that has
+     * been cancelled. Any blocks overlapping the period are shortened or split.
      *
      * @param doctorId the ID of the doctor
-     * @param date     the date to check for booked times
-     * @return a set of booked times for the doctor on the given date
+     * @param from     the start of the period, inclusive
+     * @param to       the end of the period, exclusive
+     * @return true if any unavailability was removed, false otherwise
      */
-    private Set<LocalTime> getBookedTimes(String doctorId, LocalDate date) {
-        List<Appointment> doctorAppointments = appointmentDB.getDoctorAppointments(doctorId);
-        Set<LocalTime> bookedTimes = new HashSet<>();
-        for (Appointment appointment : doctorAppointments) {
-            if (appointment.getAppointmentDate().equals(date)
-                    && !appointment.getStatus().equalsIgnoreCase("Cancelled")) {
-                bookedTimes.add(appointment.getAppointmentTime());
+    public boolean removeUnavailability(String doctorId, LocalDateTime from, LocalDateTime to) {
+        boolean removed = availabilityDB.removeUnavailability(doctorId, from, to);
+        if (removed) {
+            synchronized (nextFree) {
+                nextFree.remove(doctorId); // The freed time may open earlier slots
             }
         }
-        return bookedTimes;
+        return removed;
     }
 
     /**
-     * Retrieves available appointment slots for a doctor on a specific date.
+     * Retrieves the hours a doctor works on a date, according to their weekly
+     * template. The template is only expanded when a week is first looked at,
+     * and the expanded week is cached. The result is shared with the cache and
+     * must be copied before it is changed.
      *
      * @param doctorId the ID of the doctor
-     * @param date     the date to check for available slots
-     * @return a list of available appointment slots for the doctor
+     * @param date     the date to get the working hours for
+     * @return the working hours, with every working unit free
      */
-    public List<LocalTime> getAvailableSlotsForDoctor(String doctorId, LocalDate date) {
-        LocalTime startOfWork = LocalTime.of(9, 0);
-        LocalTime lastAppointmentTime = LocalTime.of(16, 0);
+    private DayBitmap getWorkingHours(String doctorId, LocalDate date) {
+        LocalDate weekStart = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        String key = doctorId + "|" + weekStart;
+        synchronized (weekCache) {
+            Map<LocalDate, DayBitmap> week = weekCache.get(key);
+            if (week == null) {
+                week = expandWeek(doctorId, weekStart);
+                weekCache.put(key, week);
+            }
+            return week.get(date);
+        }
+    }
 
-        List<LocalTime> allPossibleSlots = new ArrayList<>();
-        for (LocalTime time = startOfWork; !time.isAfter(lastAppointmentTime); time = time.plusHours(1)) {
-            allPossibleSlots.add(time);
+    /**
+     * Expands a doctor's weekly template into the working hours of each day of
+     * a week.
+     *
+     * @param doctorId  the ID of the doctor
+     * @param weekStart the Monday of the week
+     * @return the working hours of each date in the week
+     */
+    private Map<LocalDate, DayBitmap> expandWeek(String doctorId, LocalDate weekStart) {
+        List<ScheduleTemplateEntry> template = templateDB.getTemplate(doctorId);
+        Map<LocalDate, DayBitmap> week = new HashMap<>();
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = weekStart.plusDays(i);
+            week.put(date, expandDay(template, date.getDayOfWeek()));
         }
+        return week;
+    }
+
+    /**
+     * Works out the hours a doctor works on a day of the week. If the template
+     * sets working hours for the day they are used, otherwise the standard
+     * hours are; any time off is then taken out.
+     *
+     * @param template  the doctor's template entries
+     * @param dayOfWeek the day of the week
+     * @return the working hours
+     */
+    private DayBitmap expandDay(List<ScheduleTemplateEntry> template, DayOfWeek dayOfWeek) {
+        DayBitmap working = new DayBitmap();
+        boolean hasWorkingHours = false;
+        for (ScheduleTemplateEntry entry : template) {
+            if (entry.getDayOfWeek() == dayOfWeek && entry.getType() == ScheduleTemplateEntry.Type.WORK) {
+                working.setFree(toMinutes(entry.getStart()), toMinutes(entry.getEnd()));
+                hasWorkingHours = true;
+            }
+        }
+        if (!hasWorkingHours) {
+            working.setFree(toMinutes(STANDARD_START), toMinutes(STANDARD_END));
+        }
+        for (ScheduleTemplateEntry entry : template) {
+            if (entry.getDayOfWeek() == dayOfWeek && entry.getType() == ScheduleTemplateEntry.Type.OFF) {
+                working.setBusy(toMinutes(entry.getStart()), toMinutes(entry.getEnd()));
+            }
+        }
+        return working;
+    }
+
+    /**
+     * Works out when a doctor is free on a date: their working hours, less any
+     * unavailability and, if asked, less the appointments already booked.
+     *
+     * @param doctorId        the ID of the doctor
+     * @param date            the date to check
+     * @param includeBookings whether booked appointments count as busy
+     * @return the free time, which the caller may change
+     */
+    private DayBitmap getFreeTime(String doctorId, LocalDate date, boolean includeBookings) {
+        DayBitmap free = new DayBitmap(getWorkingHours(doctorId, date));
 
-        Set<LocalTime> unavailableTimes = getUnavailableTimes(doctorId, date);
-        Set<LocalTime> bookedTimes = getBookedTimes(doctorId, date);
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+        for (DoctorUnavailableSlots block : availabilityDB.getDoctorUnavailability(doctorId, dayStart, dayEnd)) {
+            int from = block.getStart().isAfter(dayStart) ? toMinutes(block.getStart().toLocalTime()) : 0;
+            int to = block.getEnd().isBefore(dayEnd) ? toMinutes(block.getEnd().toLocalTime()) : 24 * 60;
+            free.setBusy(from, to);
+        }
 
-        List<LocalTime> availableSlots = new ArrayList<>();
-        for (LocalTime slot : allPossibleSlots) {
-            if (!unavailableTimes.contains(slot) && !bookedTimes.contains(slot)) {
-                availableSlots.add(slot);
+        if (includeBookings) {
+            for (Appointment appointment : appointmentDB.getDoctorAppointments(doctorId)) {
+                if (appointment.getAppointmentDate().equals(date)
+                        && !appointment.getStatus().equalsIgnoreCase("Cancelled")) {
+                    int from = toMinutes(appointment.getAppointmentTime());
+                    free.setBusy(from, from + appointment.getDurationMinutes());
+                }
             }
         }
+        return free;
+    }
 
-        return availableSlots;
+    /**
+     * Converts a time to the number of minutes since midnight.
+     *
+     * @param time the time to convert
+     * @return the minute of the day
+     */
+    private int toMinutes(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Checks whether an appointment length is a whole number of slots.
+     *
+     * @param durationMinutes the length of the appointment in minutes
+     * @return true if the length can be booked
+     */
+    public boolean isValidDuration(int durationMinutes) {
+        return durationMinutes > 0 && durationMinutes % slotMinutes == 0 && durationMinutes < 24 * 60;
+    }
+
+    /**
+     * Checks whether an appointment of a given length could be booked with a
+     * doctor at a given time.
+     *
+     * @param doctorId        the ID of the doctor
+     * @param date            the date of the appointment
+     * @param time            the start time of the appointment
+     * @param durationMinutes the length of the appointment in minutes
+     * @return true if the start lies on the slot grid and the doctor is free
+     *         for the whole appointment
+     */
+    public boolean isSlotOpen(String doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        int from = toMinutes(time);
+        return isValidDuration(durationMinutes) && from % slotMinutes == 0
+                && getFreeTime(doctorId, date, true).isFree(from, from + durationMinutes);
+    }
+
+    /**
+     * Retrieves available appointment slots for a doctor on a specific date.
+     *
+     * @param doctorId the ID of the doctor
+     * @param date     the date to check for available slots
+     * @return a list of available appointment slots for the doctor
+     */
+    public List<LocalTime> getAvailableSlotsForDoctor(String doctorId, LocalDate date) {
+        return getAvailableSlotsForDoctor(doctorId, date, slotMinutes);
+    }
+
+    /**
+     * Retrieves the times at which an appointment of a given length could start
+     * with a doctor on a specific date. Start times lie on the slot grid and the
+     * whole appointment must fit in free time.
+     *
+     * @param doctorId        the ID of the doctor
+     * @param date            the date to check for available slots
+     * @param durationMinutes the length of the appointment in minutes
+     * @return the possible start times, in order
+     */
+    public List<LocalTime> getAvailableSlotsForDoctor(String doctorId, LocalDate date, int durationMinutes) {
+        return getFreeTime(doctorId, date, true).findFreeRuns(slotMinutes, durationMinutes);
     }
 
     /**
@@ -220,20 +496,482 @@ public class AppointmentManager {
      * @return true if the appointment is successfully scheduled, false otherwise
      */
     public boolean scheduleAppointment(String patientId, String doctorId, LocalDate date, int slotIndex) {
-        List<LocalTime> availableSlots = getAvailableSlotsForDoctor(doctorId, date);
+        return scheduleAppointment(patientId, doctorId, date, slotIndex, slotMinutes);
+    }
+
+    /**
+     * Schedules an appointment of a given length for a patient with a doctor.
+     *
+     * @param patientId       the ID of the patient
+     * @param doctorId        the ID of the doctor
+     * @param date            the date of the appointment
+     * @param slotIndex       the index of the selected start time, as listed by
+     *                        {@link #getAvailableSlotsForDoctor(String, LocalDate, int)}
+     * @param durationMinutes the length of the appointment in minutes
+     * @return true if the appointment is successfully scheduled, false otherwise
+     */
+    public boolean scheduleAppointment(String patientId, String doctorId, LocalDate date, int slotIndex,
+            int durationMinutes) {
+        List<LocalTime> availableSlots = getAvailableSlotsForDoctor(doctorId, date, durationMinutes);
         if (!validateSlotSelection(slotIndex, availableSlots)) {
             return false;
         }
+        return scheduleAppointmentAt(patientId, doctorId, date, availableSlots.get(slotIndex), durationMinutes);
+    }
 
-        LocalTime appointmentTime = availableSlots.get(slotIndex);
-        String appointmentId = UUID.randomUUID().toString();
-        Appointment appointment = new Appointment(appointmentId, doctorId, patientId, date, appointmentTime, "Pending");
-        if (appointmentDB.create(appointment)) {
-            System.out.println("Appointment scheduled to " + date + " at " + appointmentTime + ".");
-            return true;
-        } else {
+    /**
+     * Schedules an appointment for a patient with a doctor at a given time,
+     * provided the doctor is free for the whole appointment.
+     *
+     * @param patientId       the ID of the patient
+     * @param doctorId        the ID of the doctor
+     * @param date            the date of the appointment
+     * @param time            the start time of the appointment
+     * @param durationMinutes the length of the appointment in minutes
+     * @return true if the appointment is successfully scheduled, false otherwise
+     */
+    public boolean scheduleAppointmentAt(String patientId, String doctorId, LocalDate date, LocalTime time,
+            int durationMinutes) {
+        if (!isValidDuration(durationMinutes)) {
+            System.out.println("Appointments must last a whole number of " + slotMinutes + "-minute slots.");
             return false;
         }
+        int from = toMinutes(time);
+        synchronized (bookingLock) {
+            if (from % slotMinutes != 0
+                    || !getFreeTime(doctorId, date, true).isFree(from, from + durationMinutes)) {
+                System.out.println("The doctor is not available on " + date + " at " + time + " for "
+                        + durationMinutes + " minutes.");
+                return false;
+            }
+
+            String appointmentId = UUID.randomUUID().toString();
+            Appointment appointment = new Appointment(appointmentId, doctorId, patientId, date, time,
+                    durationMinutes, "Pending");
+            if (appointmentDB.create(appointment)) {
+                System.out.println("Appointment scheduled to " + date + " at " + time + ".");
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Finds the earliest open appointments across all doctors, starting now.
+     *
+     * @param count           the number of appointments to find
+     * @param durationMinutes the length of the appointment in minutes
+     * @return up to count open slots, earliest first
+     */
+    public List<AvailableSlot> findEarliestSlots(int count, int durationMinutes) {
+        return findEarliestSlots(null, LocalDateTime.now(), durationMinutes, count);
+    }
+
+    /**
+     * Finds the earliest open appointments across a set of doctors.
+     * <p>
+     * Each doctor starts in a priority queue at their next-free pointer, which
+     * is only a lower bound. The earliest entry is taken from the queue; if it
+     * has not been checked yet, the doctor's days are searched from that point
+     * and the open slot found goes back in the queue. Checked entries are
+     * results, and the doctor's next candidate follows one slot later. Doctors
+     * whose pointers lie after the last result found are therefore never
+     * searched at all.
+     *
+     * @param doctorIds       the IDs of the doctors to search, or null for all
+     *                        doctors
+     * @param from            the earliest start to consider
+     * @param durationMinutes the length of the appointment in minutes
+     * @param count           the number of appointments to find
+     * @return up to count open slots, earliest first
+     */
+    public List<AvailableSlot> findEarliestSlots(Collection<String> doctorIds, LocalDateTime from,
+            int durationMinutes, int count) {
+        List<AvailableSlot> found = new ArrayList<>();
+        if (count <= 0 || !isValidDuration(durationMinutes)) {
+            return found;
+        }
+        if (doctorIds == null) {
+            doctorIds = new ArrayList<>();
+            for (Doctor doctor : userDB.getAllDoctors()) {
+                doctorIds.add(doctor.getId());
+            }
+        }
+        LocalDate lastDate = from.toLocalDate().plusDays(SEARCH_DAYS);
+        long releasesAtStart;
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator
+                .comparing((Candidate candidate) -> candidate.at)
+                .thenComparing(candidate -> candidate.doctorId)
+                .thenComparing(candidate -> !candidate.checked));
+        synchronized (nextFree) {
+            releasesAtStart = releaseCount;
+            for (String doctorId : doctorIds) {
+                if (!isValidDoctorId(doctorId)) {
+                    continue;
+                }
+                NextFree pointer = nextFree.get(doctorId);
+                boolean usable = pointer != null && !from.isBefore(pointer.searchedFrom)
+                        && pointer.next.isAfter(from);
+                queue.add(new Candidate(doctorId, usable ? pointer.next : from, false, true));
+            }
+        }
+
+        while (found.size() < count && !queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (candidate.checked) {
+                found.add(new AvailableSlot(candidate.doctorId, candidate.at, durationMinutes));
+                queue.add(new Candidate(candidate.doctorId, candidate.at.plusMinutes(slotMinutes), false, false));
+                continue;
+            }
+            LocalDateTime open = findOpenSlot(candidate.doctorId, candidate.at, durationMinutes, lastDate);
+            if (candidate.first && durationMinutes == slotMinutes) {
+                moveNextFree(candidate.doctorId, from, candidate.at, open, releasesAtStart);
+            }
+            if (open != null) {
+                queue.add(new Candidate(candidate.doctorId, open, true, false));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Searches a doctor's days for the first open slot at or after a time.
+     *
+     * @param doctorId        the ID of the doctor
+     * @param from            the earliest start to consider
+     * @param durationMinutes the length of the appointment in minutes
+     * @param lastDate        the last date to search
+     * @return the start of the open slot, or null if there is none by the last
+     *         date
+     */
+    private LocalDateTime findOpenSlot(String doctorId, LocalDateTime from, int durationMinutes, LocalDate lastDate) {
+        for (LocalDate date = from.toLocalDate(); !date.isAfter(lastDate); date = date.plusDays(1)) {
+            for (LocalTime time : getAvailableSlotsForDoctor(doctorId, date, durationMinutes)) {
+                if (!date.atTime(time).isBefore(from)) {
+                    return date.atTime(time);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves a doctor's next-free pointer after their days were searched from a
+     * lower bound. If any appointment was cancelled during the search, what was
+     * found may be out of date and the pointer is left alone.
+     *
+     * @param doctorId        the ID of the doctor
+     * @param from            the start of the search
+     * @param searchedAt      where the doctor's days were searched from
+     * @param open            the open slot found, or null if there was none
+     * @param releasesAtStart the number of cancellations when the search began
+     */
+    private void moveNextFree(String doctorId, LocalDateTime from, LocalDateTime searchedAt, LocalDateTime open,
+            long releasesAtStart) {
+        if (open == null) {
+            return; // Nothing is known beyond the end of the search
+        }
+        synchronized (nextFree) {
+            if (releaseCount != releasesAtStart) {
+                return;
+            }
+            NextFree pointer = nextFree.get(doctorId);
+            if (pointer != null && pointer.next.equals(searchedAt) && !from.isBefore(pointer.searchedFrom)) {
+                pointer.next = open; // Nothing was free before the old pointer either
+            } else if (searchedAt.equals(from)) {
+                nextFree.put(doctorId, new NextFree(from, open));
+            }
+        }
+    }
+
+    /**
+     * Publishes the booking. Bookings only take slots away, so next-free
+     * pointers stay valid.
+     *
+     * @param appointment the appointment that was booked
+     */
+    @Override
+    public void slotBooked(Appointment appointment) {
+        eventBus.publish(EventType.APPOINTMENT_BOOKED, appointment.getAppointmentId(),
+                appointment.getPatientId(), appointment.getDoctorId(), appointment.getDurationMinutes());
+    }
+
+    /**
+     * Updates that change whether an appointment holds its time are handled by
+     * {@link #slotFreed(Appointment)}, so nothing else needs to be done.
+     *
+     * @param appointment the appointment that was updated
+     */
+    @Override
+    public void appointmentUpdated(Appointment appointment) {
+    }
+
+    /**
+     * Moves a doctor's next-free pointer back when an appointment no longer
+     * holds its time.
+     *
+     * @param appointment the appointment that was cancelled or deleted
+     */
+    @Override
+    public void slotFreed(Appointment appointment) {
+        int minute = toMinutes(appointment.getAppointmentTime()) / slotMinutes * slotMinutes;
+        LocalDateTime freed = appointment.getAppointmentDate().atTime(minute / 60, minute % 60);
+        synchronized (nextFree) {
+            releaseCount++;
+            NextFree pointer = nextFree.get(appointment.getDoctorId());
+            if (pointer != null && freed.isBefore(pointer.next)) {
+                pointer.next = freed.isAfter(pointer.searchedFrom) ? freed : pointer.searchedFrom;
+            }
+        }
+    }
+
+    /**
+     * Books appointments for many patients at once, such as for a vaccination
+     * or screening campaign, and saves them all in one write.
+     * <p>
+     * The free time of every doctor involved is first worked out over the whole
+     * date range in parallel, one ForkJoin task per doctor. Each request is then
+     * given to one of its doctors: the first preferred doctor with room left in
+     * the request's window, or the doctor with the most room if the patient has
+     * no preference. The doctors then place their requests in parallel, those
+     * with the earliest deadline first, each in the earliest free run of its
+     * window. Requests a doctor cannot place go to their next doctor in another
+     * round, until no doctors are left to try.
+     *
+     * @param requests the patients' requests
+     * @return the appointments booked and the requests that could not be placed
+     */
+    public AllocationResult allocateAppointments(List<AllocationRequest> requests) {
+        List<AllocationRequest> unallocated = new ArrayList<>();
+        List<AllocationRequest> pending = new ArrayList<>();
+        Map<AllocationRequest, List<String>> candidates = new IdentityHashMap<>(); // Doctors left to try
+        LocalDate today = LocalDate.now();
+
+        List<String> allDoctorIds = new ArrayList<>();
+        for (Doctor doctor : userDB.getAllDoctors()) {
+            allDoctorIds.add(doctor.getId());
+        }
+        Set<String> involvedDoctorIds = new LinkedHashSet<>();
+        LocalDate firstDate = null;
+        LocalDate lastDate = null;
+        for (AllocationRequest request : requests) {
+            List<String> doctorIds = new ArrayList<>();
+            for (String doctorId : request.getPreferredDoctorIds().isEmpty() ? allDoctorIds
+                    : request.getPreferredDoctorIds()) {
+                if (isValidDoctorId(doctorId) && !doctorIds.contains(doctorId)) {
+                    doctorIds.add(doctorId);
+                }
+            }
+            if (!(userDB.getById(request.getPatientId()) instanceof Patient) || doctorIds.isEmpty()
+                    || !isValidDuration(request.getDurationMinutes()) || request.getLatestDate().isBefore(today)) {
+                unallocated.add(request);
+                continue;
+            }
+            candidates.put(request, doctorIds);
+            pending.add(request);
+            involvedDoctorIds.addAll(doctorIds);
+            LocalDate earliest = request.getEarliestDate().isBefore(today) ? today : request.getEarliestDate();
+            firstDate = firstDate == null || earliest.isBefore(firstDate) ? earliest : firstDate;
+            lastDate = lastDate == null || request.getLatestDate().isAfter(lastDate) ? request.getLatestDate()
+                    : lastDate;
+        }
+        if (pending.isEmpty()) {
+            return new AllocationResult(new ArrayList<>(), unallocated);
+        }
+
+        synchronized (bookingLock) {
+            // Work out every involved doctor's free time over the whole range
+            List<Appointment> existing = appointmentDB.snapshot();
+            Map<String, GridTask> gridTasks = new LinkedHashMap<>();
+            for (String doctorId : involvedDoctorIds) {
+                gridTasks.put(doctorId, new GridTask(doctorId, firstDate, lastDate, existing));
+            }
+            runPerDoctor(new ArrayList<>(gridTasks.values()));
+            Map<String, TreeMap<LocalDate, DayBitmap>> grids = new HashMap<>();
+            for (Map.Entry<String, GridTask> entry : gridTasks.entrySet()) {
+                grids.put(entry.getKey(), entry.getValue().join());
+            }
+
+            List<Appointment> booked = new ArrayList<>();
+            while (!pending.isEmpty()) {
+                // Give each request to one doctor, keeping track of the room taken
+                Map<String, List<AllocationRequest>> byDoctor = new LinkedHashMap<>();
+                Map<String, Integer> assignedMinutes = new HashMap<>();
+                for (AllocationRequest request : pending) {
+                    String doctorId = chooseDoctor(request, candidates.get(request), grids, assignedMinutes);
+                    byDoctor.computeIfAbsent(doctorId, key -> new ArrayList<>()).add(request);
+                    assignedMinutes.merge(doctorId, request.getDurationMinutes(), Integer::sum);
+                }
+
+                // Let the doctors place their requests in parallel
+                List<AllocationTask> allocationTasks = new ArrayList<>();
+                for (Map.Entry<String, List<AllocationRequest>> entry : byDoctor.entrySet()) {
+                    allocationTasks.add(new AllocationTask(entry.getKey(), grids.get(entry.getKey()),
+                            entry.getValue()));
+                }
+                runPerDoctor(allocationTasks);
+
+                pending = new ArrayList<>();
+                for (AllocationTask task : allocationTasks) {
+                    booked.addAll(task.join());
+                    for (AllocationRequest request : task.failed) {
+                        List<String> doctorIds = candidates.get(request);
+                        doctorIds.remove(task.doctorId);
+                        (doctorIds.isEmpty() ? unallocated : pending).add(request);
+                    }
+                }
+            }
+
+            appointmentDB.createAll(booked);
+            return new AllocationResult(booked, unallocated);
+        }
+    }
+
+    /**
+     * Chooses which doctor a request in a bulk allocation is given to.
+     *
+     * @param request         the request
+     * @param doctorIds       the doctors left to try, in order of preference
+     * @param grids           the free time of each doctor by date
+     * @param assignedMinutes the minutes already given to each doctor this round
+     * @return the ID of the chosen doctor
+     */
+    private String chooseDoctor(AllocationRequest request, List<String> doctorIds,
+            Map<String, TreeMap<LocalDate, DayBitmap>> grids, Map<String, Integer> assignedMinutes) {
+        boolean hasPreference = !request.getPreferredDoctorIds().isEmpty();
+        String best = doctorIds.get(0);
+        int bestRoom = Integer.MIN_VALUE;
+        for (String doctorId : doctorIds) {
+            int room = -assignedMinutes.getOrDefault(doctorId, 0);
+            for (DayBitmap day : grids.get(doctorId)
+                    .subMap(request.getEarliestDate(), true, request.getLatestDate(), true).values()) {
+                room += day.countFreeMinutes();
+            }
+            if (hasPreference && room >= request.getDurationMinutes()) {
+                return doctorId; // The most preferred doctor with room
+            }
+            if (room > bestRoom) {
+                best = doctorId;
+                bestRoom = room;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Runs one ForkJoin task per doctor and waits for all of them.
+     *
+     * @param tasks the tasks to run
+     */
+    private void runPerDoctor(List<? extends ForkJoinTask<?>> tasks) {
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Works out a doctor's free time on each date of a bulk allocation, less
+     * the appointments already booked and any time today that has passed.
+     */
+    private class GridTask extends RecursiveTask<TreeMap<LocalDate, DayBitmap>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String doctorId;
+        private final LocalDate firstDate;
+        private final LocalDate lastDate;
+        private final List<Appointment> existing;
+
+        GridTask(String doctorId, LocalDate firstDate, LocalDate lastDate, List<Appointment> existing) {
+            this.doctorId = doctorId;
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+            this.existing = existing;
+        }
+
+        @Override
+        protected TreeMap<LocalDate, DayBitmap> compute() {
+            TreeMap<LocalDate, DayBitmap> grid = new TreeMap<>();
+            for (LocalDate date = firstDate; !date.isAfter(lastDate); date = date.plusDays(1)) {
+                grid.put(date, getFreeTime(doctorId, date, false));
+            }
+            for (Appointment appointment : existing) {
+                DayBitmap day = grid.get(appointment.getAppointmentDate());
+                if (day != null && appointment.getDoctorId().equals(doctorId)
+                        && !appointment.getStatus().equalsIgnoreCase("Cancelled")) {
+                    int from = toMinutes(appointment.getAppointmentTime());
+                    day.setBusy(from, from + appointment.getDurationMinutes());
+                }
+            }
+            DayBitmap today = grid.get(LocalDate.now());
+            if (today != null) {
+                today.setBusy(0, toMinutes(LocalTime.now()) + 1);
+            }
+            return grid;
+        }
+    }
+
+    /**
+     * Places the requests given to one doctor in a bulk allocation, those with
+     * the earliest deadline first. Requests that do not fit are kept in
+     * {@code failed}.
+     */
+    private class AllocationTask extends RecursiveTask<List<Appointment>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String doctorId;
+        private final TreeMap<LocalDate, DayBitmap> grid;
+        private final List<AllocationRequest> requests;
+        private final List<AllocationRequest> failed = new ArrayList<>();
+
+        AllocationTask(String doctorId, TreeMap<LocalDate, DayBitmap> grid, List<AllocationRequest> requests) {
+            this.doctorId = doctorId;
+            this.grid = grid;
+            this.requests = requests;
+        }
+
+        @Override
+        protected List<Appointment> compute() {
+            List<AllocationRequest> ordered = new ArrayList<>(requests);
+            ordered.sort(Comparator.comparing(AllocationRequest::getLatestDate)
+                    .thenComparing(AllocationRequest::getEarliestDate));
+
+            List<Appointment> booked = new ArrayList<>();
+            for (AllocationRequest request : ordered) {
+                Appointment appointment = place(request);
+                if (appointment == null) {
+                    failed.add(request);
+                } else {
+                    booked.add(appointment);
+                }
+            }
+            return booked;
+        }
+
+        /**
+         * Books a request into the earliest free run of its window.
+         *
+         * @param request the request to place
+         * @return the new appointment, or null if the window has no room
+         */
+        private Appointment place(AllocationRequest request) {
+            int duration = request.getDurationMinutes();
+            for (Map.Entry<LocalDate, DayBitmap> day : grid
+                    .subMap(request.getEarliestDate(), true, request.getLatestDate(), true).entrySet()) {
+                List<LocalTime> starts = day.getValue().findFreeRuns(slotMinutes, duration);
+                if (!starts.isEmpty()) {
+                    LocalTime time = starts.get(0);
+                    day.getValue().setBusy(toMinutes(time), toMinutes(time) + duration);
+                    return new Appointment(UUID.randomUUID().toString(), doctorId, request.getPatientId(),
+                            day.getKey(), time, duration, "Pending");
+                }
+            }
+            return null;
+        }
     }
 
     // Helper method to validate slot selection
@@ -257,8 +995,9 @@ public class AppointmentManager {
 
         String patientId = originalAppointment.getPatientId();
 
-        // Attempt to schedule the new appointment first
-        boolean isNewAppointmentScheduled = scheduleAppointment(patientId, doctorId, newDate, newSlotIndex);
+        // Attempt to schedule the new appointment first, keeping its length
+        boolean isNewAppointmentScheduled = scheduleAppointment(patientId, doctorId, newDate, newSlotIndex,
+                originalAppointment.getDurationMinutes());
         if (!isNewAppointmentScheduled) {
             System.out.println("Error: Failed to schedule the new appointment. Rescheduling aborted.");
             return;
@@ -281,7 +1020,12 @@ public class AppointmentManager {
         }
 
         // Remove the appointment from the database
-        return appointmentDB.delete(appointment.getAppointmentId());
+        if (appointmentDB.delete(appointment.getAppointmentId())) {
+            eventBus.publish(EventType.APPOINTMENT_STATUS_CHANGED, appointmentId, appointment.getPatientId(),
+                    "Cancelled", 0);
+            return true;
+        }
+        return false;
     }
 
     // TODO: Change boolean to void upon validation of method
@@ -292,15 +1036,73 @@ public class AppointmentManager {
             return false;
         }
 
+        // A request can outlive the doctor marking its time as unavailable
+        if (status.equalsIgnoreCase("Confirmed") && !appointment.getStatus().equalsIgnoreCase("Confirmed")
+                && availabilityDB.isUnavailable(appointment.getDoctorId(),
+                        appointment.getAppointmentDate().atTime(appointment.getAppointmentTime()),
+                        appointment.getAppointmentDate().atTime(appointment.getAppointmentTime())
+                                .plusMinutes(appointment.getDurationMinutes()))) {
+            System.out.println("The doctor is unavailable at the time of this appointment.");
+            return false;
+        }
+
         appointment.setStatus(status);
-        return appointmentDB.update(appointment); // Test and make sure that this is working
-        // return true;
+        if (appointmentDB.update(appointment)) {
+            eventBus.publish(EventType.APPOINTMENT_STATUS_CHANGED, appointmentId, appointment.getPatientId(),
+                    status, 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the patients under a doctor's care, meaning those with a
+     * confirmed appointment with the doctor.
+     *
+     * @param doctorId the ID of the doctor
+     * @return a read-only set of patient IDs
+     */
+    public Set<String> getPatientsUnderCare(String doctorId) {
+        return appointmentDB.getPatientsUnderCare(doctorId);
+    }
+
+    /**
+     * Checks whether a patient is under a doctor's care.
+     *
+     * @param doctorId  the ID of the doctor
+     * @param patientId the ID of the patient
+     * @return true if the patient has a confirmed appointment with the doctor
+     */
+    public boolean isPatientUnderCare(String doctorId, String patientId) {
+        return appointmentDB.isUnderCare(doctorId, patientId);
+    }
+
+    /**
+     * Retrieves the date of a patient's latest confirmed appointment with a
+     * doctor.
+     *
+     * @param doctorId  the ID of the doctor
+     * @param patientId the ID of the patient
+     * @return the date, or null if the patient is not under the doctor's care
+     */
+    public LocalDate getLastVisitDate(String doctorId, String patientId) {
+        return appointmentDB.getLastVisit(doctorId, patientId);
     }
 
     public boolean isValidDoctorId(String doctorId) {
-        List<Doctor> doctorList = userDB.getAllDoctors();
+        return userDB.isDoctor(doctorId);
+    }
 
-        return doctorList.stream().anyMatch(doctor -> doctor.getId().equals(doctorId));
+    /**
+     * Gets the length of an appointment.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the length in minutes, or the slot length if the appointment is
+     *         not found
+     */
+    public int getAppointmentDuration(String appointmentId) {
+        Appointment appointment = appointmentDB.getById(appointmentId);
+        return appointment == null ? slotMinutes : appointment.getDurationMinutes();
     }
 
     public boolean isValidAppointmentId(String appointmentId) {
@@ -312,7 +1114,7 @@ public class AppointmentManager {
     }
 
     public List<String> viewAllAppointments() {
-        List<Appointment> allAppointments = appointmentDB.getAll();
+        List<Appointment> allAppointments = appointmentDB.snapshot();
         List<String> allAppointmentsFormatted = new ArrayList<>();
 
         for (Appointment appointment : allAppointments) {
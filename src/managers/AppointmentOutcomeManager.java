@@ -5,13 +5,33 @@
 package managers;
 
 import database.AppointmentOutcomeRecordDB;
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import appointments.AppointmentOutcomeRecord;
+import appointments.DispenseListener;
+import events.EventBus;
+import events.EventType;
+import medicalrecords.Prescription;
+import medicine.StockAllocation;
 
 public class AppointmentOutcomeManager {
+    private static final String PENDING = "Pending";
+    private static final String DISPENSED = "Dispensed";
+
     private AppointmentOutcomeRecordDB appointmentOutcomeRecordDB;
+    private SearchManager searchManager;
+    // Appointment ID -> time (epoch millis) the prescription started waiting, in
+    // FIFO order
+    private Map<String, Long> pendingQueue;
+    private List<DispenseListener> dispenseListeners;
+    private EventBus eventBus;
 
     /**
      * Constructor to initialize the AppointmentOutcomeManager with a database
@@ -19,14 +39,54 @@ public class AppointmentOutcomeManager {
      *
      * @param appointmentOutcomeRecordDB the database instance for appointment
      *                                   outcome records.
+     * @param searchManager              the search index to update when records
+     *                                   change.
+     * @param eventBus                   the bus to publish recorded outcomes on.
      */
-    public AppointmentOutcomeManager(AppointmentOutcomeRecordDB appointmentOutcomeRecordDB) {
+    public AppointmentOutcomeManager(AppointmentOutcomeRecordDB appointmentOutcomeRecordDB,
+            SearchManager searchManager, EventBus eventBus) {
         this.appointmentOutcomeRecordDB = appointmentOutcomeRecordDB;
+        this.searchManager = searchManager;
+        this.pendingQueue = new LinkedHashMap<>();
+        this.dispenseListeners = new ArrayList<>();
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Registers a listener to be notified whenever prescriptions are dispensed.
+     *
+     * @param listener the listener to add.
+     */
+    public void addDispenseListener(DispenseListener listener) {
+        dispenseListeners.add(listener);
+    }
+
+    /**
+     * Builds the pending-dispense queue from the records currently in the
+     * database. This should be called once after the database has been loaded.
+     * Records loaded from file are queued by appointment date, and are treated as
+     * having waited since the start of that day.
+     */
+    public void buildPendingQueue() {
+        pendingQueue.clear();
+        List<AppointmentOutcomeRecord> pending = new ArrayList<>();
+        for (AppointmentOutcomeRecord record : appointmentOutcomeRecordDB.snapshot()) {
+            if (isPending(record)) {
+                pending.add(record);
+            }
+        }
+        pending.sort(Comparator.comparing(AppointmentOutcomeRecord::getAppointmentDate));
+        for (AppointmentOutcomeRecord record : pending) {
+            long waitingSince = record.getAppointmentDate().atStartOfDay(ZoneId.systemDefault()).toInstant()
+                    .toEpochMilli();
+            pendingQueue.put(record.getAppointmentId(), waitingSince);
+        }
     }
 
     /**
-     * Creates a new appointment outcome record.
+     * Creates a new appointment outcome record with no prescriptions.
      *
+     * @param appointmentId     the ID of the appointment the outcome is for.
      * @param patientId         the ID of the patient.
      * @param appointmentDate   the date of the appointment.
      * @param serviceProvided   the service provided during the appointment.
@@ -35,13 +95,12 @@ public class AppointmentOutcomeManager {
      * @param consultationNotes notes from the consultation.
      * @return true if the record is successfully created, false otherwise.
      */
-    public boolean createOutcomeRecord(String patientId, LocalDate appointmentDate,
+    public boolean createOutcomeRecord(String appointmentId, String patientId, LocalDate appointmentDate,
             String serviceProvided, String prescribedStatus, String consultationNotes) {
-        String appointmentId = UUID.randomUUID().toString();
         AppointmentOutcomeRecord newRecord = new AppointmentOutcomeRecord(
                 appointmentId, patientId, appointmentDate, serviceProvided, "", prescribedStatus, consultationNotes);
 
-        return appointmentOutcomeRecordDB.create(newRecord);
+        return createAndIndex(newRecord);
     }
 
     /**
@@ -57,10 +116,10 @@ public class AppointmentOutcomeManager {
     /**
      * Retrieves all appointment outcome records.
      *
-     * @return a list of all appointment outcome records.
+     * @return a read-only list of all appointment outcome records.
      */
     public List<AppointmentOutcomeRecord> getAllOutcomeRecords() {
-        return appointmentOutcomeRecordDB.getAll();
+        return appointmentOutcomeRecordDB.snapshot();
     }
 
     /**
@@ -69,9 +128,24 @@ public class AppointmentOutcomeManager {
      * @param patientId the ID of the patient.
      */
     public void viewPatientOutcomeRecords(String patientId) {
-        List<AppointmentOutcomeRecord> records = appointmentOutcomeRecordDB.getByPatientId(patientId);
+        viewPatientOutcomeRecords(patientId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Displays one page of the appointment outcome records for a specific
+     * patient, ordered by appointment date.
+     *
+     * @param patientId the ID of the patient.
+     * @param page      the zero-based page number.
+     * @param pageSize  the maximum number of records per page.
+     * @return true if there are more records after this page, false otherwise.
+     */
+    public boolean viewPatientOutcomeRecords(String patientId, int page, int pageSize) {
+        List<AppointmentOutcomeRecord> records = appointmentOutcomeRecordDB.getByPatientId(patientId, page, pageSize);
+        int total = appointmentOutcomeRecordDB.countByPatientId(patientId);
         if (records.isEmpty()) {
             System.out.println("No appointment outcome records found for patient " + patientId);
+            return false;
         } else {
             System.out.println("Viewing past appointment outcome records...");
             System.out.println("========================================");
@@ -86,6 +160,9 @@ public class AppointmentOutcomeManager {
                 System.out.println("Consultation Notes: " + record.getConsultationNotes());
             }
             System.out.println("========================================");
+            long shown = (long) page * pageSize + records.size();
+            System.out.println("Showing " + shown + " of " + total + " records.");
+            return shown < total;
         }
     }
 
@@ -108,13 +185,29 @@ public class AppointmentOutcomeManager {
     }
 
     /**
-     * Updates an existing appointment outcome record.
+     * Updates an existing appointment outcome record. A record cannot be marked
+     * as dispensed here, since that would skip deducting its medicines from the
+     * inventory; use {@link #dispensePrescriptions} instead.
      *
      * @param updatedRecord the updated appointment outcome record.
      * @return true if the update is successful, false otherwise.
      */
     public boolean updateOutcomeRecord(AppointmentOutcomeRecord updatedRecord) {
-        return appointmentOutcomeRecordDB.update(updatedRecord);
+        AppointmentOutcomeRecord existingRecord = appointmentOutcomeRecordDB.getById(updatedRecord.getAppointmentId());
+        // The caller may have changed the stored record itself, so a record still queued was not dispensed yet
+        boolean wasDispensed = existingRecord != null && isDispensed(existingRecord)
+                && !pendingQueue.containsKey(updatedRecord.getAppointmentId());
+        if (isDispensed(updatedRecord) && !wasDispensed) {
+            System.out.println("Error: The prescriptions for appointment " + updatedRecord.getAppointmentId()
+                    + " can only be marked as dispensed by dispensing them.");
+            return false;
+        }
+        if (appointmentOutcomeRecordDB.update(updatedRecord)) {
+            searchManager.indexOutcomeRecord(updatedRecord);
+            syncPendingQueue(updatedRecord);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -140,11 +233,111 @@ public class AppointmentOutcomeManager {
                 prescription,
                 prescribedStatus,
                 consultationNotes);
-        return appointmentOutcomeRecordDB.create(newRecord);
+        return createAndIndex(newRecord);
+    }
+
+    /**
+     * Saves a new appointment outcome record, adds it to the search index and
+     * publishes it.
+     *
+     * @param newRecord the record to create.
+     * @return true if the record is successfully created, false otherwise.
+     */
+    private boolean createAndIndex(AppointmentOutcomeRecord newRecord) {
+        if (appointmentOutcomeRecordDB.create(newRecord)) {
+            searchManager.indexOutcomeRecord(newRecord);
+            syncPendingQueue(newRecord);
+            eventBus.publish(EventType.OUTCOME_RECORDED, newRecord.getAppointmentId(), newRecord.getPatientId(),
+                    newRecord.getServiceProvided(), 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the records waiting to be dispensed, in the order they were
+     * queued.
+     *
+     * @return the pending records, oldest first.
+     */
+    public List<AppointmentOutcomeRecord> getPendingPrescriptions() {
+        List<AppointmentOutcomeRecord> pending = new ArrayList<>();
+        for (String appointmentId : pendingQueue.keySet()) {
+            AppointmentOutcomeRecord record = appointmentOutcomeRecordDB.getById(appointmentId);
+            if (record != null) {
+                pending.add(record);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Retrieves the records waiting to be dispensed, prioritised by appointment
+     * date so that the earliest appointments are served first. Records on the
+     * same date keep their queue order.
+     *
+     * @return the pending records in priority order.
+     */
+    public List<AppointmentOutcomeRecord> getPendingPrescriptionsByPriority() {
+        List<AppointmentOutcomeRecord> pending = getPendingPrescriptions();
+        pending.sort(Comparator.comparing(AppointmentOutcomeRecord::getAppointmentDate));
+        return pending;
     }
 
     /**
-     * Updates the prescription status of an appointment outcome record.
+     * Gets the number of records waiting to be dispensed.
+     *
+     * @return the length of the pending-dispense queue.
+     */
+    public int getPendingQueueLength() {
+        return pendingQueue.size();
+    }
+
+    /**
+     * Gets how long the oldest record in the pending-dispense queue has been
+     * waiting.
+     *
+     * @return the age of the oldest pending record, or zero if the queue is empty.
+     */
+    public Duration getOldestPendingAge() {
+        if (pendingQueue.isEmpty()) {
+            return Duration.ZERO;
+        }
+        long waitingSince = pendingQueue.values().iterator().next();
+        return Duration.ofMillis(Math.max(0, System.currentTimeMillis() - waitingSince));
+    }
+
+    /**
+     * Adds a record to or removes it from the pending-dispense queue to match its
+     * prescription status. Records already in the queue keep their place.
+     *
+     * @param record the record whose status may have changed.
+     */
+    private void syncPendingQueue(AppointmentOutcomeRecord record) {
+        if (isPending(record)) {
+            pendingQueue.putIfAbsent(record.getAppointmentId(), System.currentTimeMillis());
+        } else {
+            pendingQueue.remove(record.getAppointmentId());
+        }
+    }
+
+    /**
+     * Checks whether a record's prescriptions are still waiting to be dispensed.
+     *
+     * @param record the record to check.
+     * @return true if the prescription status is pending, false otherwise.
+     */
+    private boolean isPending(AppointmentOutcomeRecord record) {
+        return PENDING.equalsIgnoreCase(record.getPrescribedStatus());
+    }
+
+    /**
+     * Updates the prescription status of an appointment outcome record. A
+     * record that has been dispensed cannot be changed back, since its
+     * medicines have already left the inventory and dispensing it again would
+     * deduct them twice. Nor can a record be set to dispensed here, since its
+     * medicines would never be deducted; use {@link #dispensePrescriptions}
+     * instead.
      *
      * @param appointmentId the ID of the appointment.
      * @param newStatus     the new prescription status.
@@ -153,12 +346,123 @@ public class AppointmentOutcomeManager {
     public boolean updatePrescriptionStatus(String appointmentId, String newStatus) {
         AppointmentOutcomeRecord record = appointmentOutcomeRecordDB.getById(appointmentId);
         if (record != null) {
+            if (isDispensed(record) && !DISPENSED.equalsIgnoreCase(newStatus)) {
+                System.out.println("Error: The prescriptions for appointment " + appointmentId
+                        + " have already been dispensed and cannot be changed back to " + newStatus + ".");
+                return false;
+            }
+            if (DISPENSED.equalsIgnoreCase(newStatus)) {
+                System.out.println("Error: The prescriptions for appointment " + appointmentId
+                        + " can only be marked as dispensed by dispensing them.");
+                return false;
+            }
             record.setPrescribedStatus(newStatus);
+            syncPendingQueue(record);
             return appointmentOutcomeRecordDB.update(record);
         }
         return false;
     }
 
+    /**
+     * Dispenses the prescriptions of several pending appointment outcome records
+     * as one batch. The stock required by every record is validated and
+     * deducted from the inventory together, all statuses are changed to
+     * Dispensed, and the records are saved once. If any record cannot be
+     * dispensed, nothing is changed.
+     *
+     * @param appointmentIds the IDs of the appointments to dispense.
+     * @param inventory      the inventory to take the medicines from.
+     * @return true if the whole batch was dispensed, false otherwise.
+     */
+    public boolean dispensePrescriptions(List<String> appointmentIds, InventoryManager inventory) {
+        List<AppointmentOutcomeRecord> records = new ArrayList<>();
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (String appointmentId : appointmentIds) {
+            AppointmentOutcomeRecord record = appointmentOutcomeRecordDB.getById(appointmentId);
+            if (record == null) {
+                System.out.println("Appointment outcome record " + appointmentId + " not found.");
+                return false;
+            }
+            if (!isPending(record)) {
+                System.out.println("Prescriptions for appointment " + appointmentId + " are not pending.");
+                return false;
+            }
+            if (!records.contains(record)) {
+                records.add(record);
+                for (Prescription prescription : record.getPrescriptions()) {
+                    if (prescription.getAmount() > 0 && !prescription.getMedicationName().equalsIgnoreCase("Nil")) {
+                        quantities.merge(prescription.getMedicationName(), prescription.getAmount(), Integer::sum);
+                    }
+                }
+            }
+        }
+
+        StockAllocation allocation = inventory.dispenseStock(quantities);
+        if (allocation == null) {
+            return false;
+        }
+
+        for (AppointmentOutcomeRecord record : records) {
+            record.setPrescribedStatus(DISPENSED);
+            syncPendingQueue(record);
+        }
+        try {
+            appointmentOutcomeRecordDB.save();
+        } catch (IOException e) {
+            System.out.println("Error saving dispensed prescriptions: " + e.getMessage());
+            // Undo the batch so the records and inventory stay consistent
+            for (AppointmentOutcomeRecord record : records) {
+                record.setPrescribedStatus(PENDING);
+                syncPendingQueue(record);
+            }
+            inventory.returnStock(allocation);
+            return false;
+        }
+
+        for (AppointmentOutcomeRecord record : records) {
+            notifyDispensed(record);
+        }
+        return true;
+    }
+
+    /**
+     * Gets every appointment outcome record whose prescriptions have been
+     * dispensed.
+     *
+     * @return the list of dispensed records.
+     */
+    public List<AppointmentOutcomeRecord> getDispensedRecords() {
+        List<AppointmentOutcomeRecord> dispensed = new ArrayList<>();
+        for (AppointmentOutcomeRecord record : appointmentOutcomeRecordDB.snapshot()) {
+            if (isDispensed(record)) {
+                dispensed.add(record);
+            }
+        }
+        return dispensed;
+    }
+
+    /**
+     * Notifies the registered listeners that a record's prescriptions were
+     * dispensed.
+     *
+     * @param record the dispensed record.
+     */
+    private void notifyDispensed(AppointmentOutcomeRecord record) {
+        for (DispenseListener listener : dispenseListeners) {
+            listener.onPrescriptionsDispensed(record);
+        }
+    }
+
+    /**
+     * Checks whether a record's prescriptions have been dispensed.
+     *
+     * @param record the record to check.
+     * @return true if the prescription status is dispensed, false otherwise.
+     */
+    private boolean isDispensed(AppointmentOutcomeRecord record) {
+        return DISPENSED.equalsIgnoreCase(record.getPrescribedStatus());
+    }
+
     /**
      * Gets the database instance for appointment outcome records.
      *
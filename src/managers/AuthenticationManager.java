@@ -6,20 +6,31 @@ package managers;
 
 import users.User;
 import java.util.Scanner;
+import java.util.concurrent.RejectedExecutionException;
 import database.UserDB;
 
 public class AuthenticationManager {
+    private static final String CONSOLE_ORIGIN = "console"; // Origin of logins typed at this terminal
+
     private Scanner scanner;
     private UserDB userDB;
+    private CredentialManager credentialManager;
+    private LoginRateLimiter rateLimiter;
 
     /**
      * Constructor to initialize the AuthenticationManager.
      *
-     * @param userDB the database instance for storing and retrieving user data.
+     * @param userDB            the database instance for storing and retrieving
+     *                          user data.
+     * @param credentialManager the manager used to verify passwords.
+     * @param rateLimiter       the limiter throttling login attempts.
      */
-    public AuthenticationManager(UserDB userDB) {
+    public AuthenticationManager(UserDB userDB, CredentialManager credentialManager,
+            LoginRateLimiter rateLimiter) {
         this.scanner = new Scanner(System.in);
         this.userDB = userDB;
+        this.credentialManager = credentialManager;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
@@ -27,14 +38,25 @@ public class AuthenticationManager {
      *
      * @param userId   the User ID entered by the user.
      * @param password the password entered by the user.
+     * @param origin   where the login attempt comes from.
      * @return the authenticated user if credentials are valid; null otherwise.
      */
-    public User login(String userId, String password) {
+    public User login(String userId, String password, String origin) {
+        if (!rateLimiter.tryAcquire(userId, origin)) {
+            System.out.println("Too many login attempts. Please wait a while before trying again.");
+            return null;
+        }
+
         User user = userDB.getById(userId); // Retrieve the user by ID using UserDB
 
-        if (user != null && user.getPassword().equals(password)) {
-            System.out.println("Login successful for user: " + userId);
-            return user; // Return the authenticated user
+        try {
+            if (user != null && credentialManager.verify(user, password)) {
+                System.out.println("Login successful for user: " + userId);
+                return user; // Return the authenticated user
+            }
+        } catch (RejectedExecutionException e) {
+            System.out.println("The system is busy processing other logins. Please try again shortly.");
+            return null;
         }
 
         System.out.println("Login failed for user: " + userId);
@@ -83,7 +105,7 @@ public class AuthenticationManager {
             System.out.print("Enter password: ");
             String password = scanner.nextLine();
 
-            currentUser = login(userId, password);
+            currentUser = login(userId, password, CONSOLE_ORIGIN);
             if (currentUser == null) {
                 System.out.println("Invalid credentials. Please try again.");
             }
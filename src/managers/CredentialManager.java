@@ -0,0 +1,207 @@
+/**
+ * Verifies user passwords against their stored hashes. Hashing is deliberately
+ * slow, so verification runs on a small, bounded pool of worker threads with a
+ * limited queue; when the queue is full, new attempts are rejected straight
+ * away instead of piling up. Accounts that still have a plaintext password are
+ * moved to a hash on their first successful login.
+ */
+package managers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import database.UserDB;
+import users.PasswordHasher;
+import users.User;
+
+public class CredentialManager {
+
+    private static final int WORKER_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int QUEUE_CAPACITY = 32; // Verifications allowed to wait for a worker
+    private static final long TIMEOUT_SECONDS = 10; // Longest a login waits for its verification
+
+    private UserDB userDB;
+    private ThreadPoolExecutor executor;
+
+    // Metrics
+    private AtomicLong verified = new AtomicLong();
+    private AtomicLong failed = new AtomicLong();
+    private AtomicLong rejected = new AtomicLong();
+    private AtomicLong timedOut = new AtomicLong();
+    private AtomicLong migrated = new AtomicLong();
+    private AtomicLong totalVerificationNanos = new AtomicLong();
+
+    /**
+     * The outcome of a single verification, computed on a worker thread.
+     */
+    private static class Verification {
+        private boolean matched;
+        private String upgradedHash; // New hash for a plaintext password, or null
+
+        Verification(boolean matched, String upgradedHash) {
+            this.matched = matched;
+            this.upgradedHash = upgradedHash;
+        }
+    }
+
+    /**
+     * Constructor to initialize the CredentialManager and start its worker pool.
+     *
+     * @param userDB the database instance for storing and retrieving user data.
+     */
+    public CredentialManager(UserDB userDB) {
+        this.userDB = userDB;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "credential-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true); // Never keep the program alive
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Verifies a user's password on the worker pool. If the user still has a
+     * plaintext password and it matches, it is replaced with a hash and saved.
+     *
+     * @param user     the user logging in.
+     * @param password the password entered.
+     * @return true if the password matches, false otherwise.
+     * @throws RejectedExecutionException if too many verifications are already
+     *                                    waiting.
+     */
+    public boolean verify(User user, String password) {
+        String stored = user.getPassword();
+        Future<Verification> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                boolean matched = PasswordHasher.verify(password, stored);
+                String upgradedHash = matched && !PasswordHasher.isHashed(stored) ? PasswordHasher.hash(password)
+                        : null;
+                totalVerificationNanos.addAndGet(System.nanoTime() - start);
+                return new Verification(matched, upgradedHash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+
+        Verification verification;
+        try {
+            verification = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.out.println("Error verifying password: " + e.getCause().getMessage());
+            failed.incrementAndGet();
+            return false;
+        }
+
+        if (!verification.matched) {
+            failed.incrementAndGet();
+            return false;
+        }
+        verified.incrementAndGet();
+        if (verification.upgradedHash != null) {
+            user.setPassword(verification.upgradedHash);
+            if (userDB.update(user)) {
+                migrated.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of verifications waiting for a worker.
+     *
+     * @return the current queue depth.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of verifications currently running.
+     *
+     * @return the number of busy workers.
+     */
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of successful verifications.
+     *
+     * @return the number of passwords that matched.
+     */
+    public long getVerifiedCount() {
+        return verified.get();
+    }
+
+    /**
+     * Gets the number of failed verifications.
+     *
+     * @return the number of passwords that did not match.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Gets the number of verifications turned away because the queue was full.
+     *
+     * @return the number of rejected verifications.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Gets the number of verifications that took too long.
+     *
+     * @return the number of timed out verifications.
+     */
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    /**
+     * Gets the number of plaintext passwords replaced with hashes.
+     *
+     * @return the number of migrated accounts.
+     */
+    public long getMigratedCount() {
+        return migrated.get();
+    }
+
+    /**
+     * Gets the average time a worker spent on a verification.
+     *
+     * @return the average verification time in milliseconds, or 0 if none have
+     *         completed.
+     */
+    public double getAverageVerificationMillis() {
+        long completed = executor.getCompletedTaskCount();
+        return completed == 0 ? 0 : totalVerificationNanos.get() / 1_000_000.0 / completed;
+    }
+
+    /**
+     * Stops the worker pool. Verifications already queued are still completed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -12,16 +12,22 @@ import database.DoctorUnavailabilityDB;
 import database.MedicalRecordDB;
 import database.MedicineDB;
 import database.ReplenishmentDB;
+import database.ScheduleTemplateDB;
+import database.StockLedgerDB;
 import database.UserDB;
+import database.WaitlistDB;
 
 public class DatabaseManager {
     private UserDB userDB;
     private MedicalRecordDB medicalRecordDB;
     private MedicineDB medicineDB;
     private ReplenishmentDB replenishmentDB;
+    private StockLedgerDB stockLedgerDB;
     private AppointmentDB appointmentDB;
     private AppointmentOutcomeRecordDB appointmentOutcomeRecordDB;
     private DoctorUnavailabilityDB doctorAvailabilityDB;
+    private ScheduleTemplateDB scheduleTemplateDB;
+    private WaitlistDB waitlistDB;
 
     /**
      * Constructor to initialize the database manager with all database instances.
@@ -31,9 +37,13 @@ public class DatabaseManager {
         this.medicalRecordDB = new MedicalRecordDB();
         this.medicineDB = new MedicineDB();
         this.replenishmentDB = new ReplenishmentDB();
+        this.stockLedgerDB = new StockLedgerDB();
         this.appointmentDB = new AppointmentDB();
         this.appointmentOutcomeRecordDB = new AppointmentOutcomeRecordDB();
+        this.appointmentDB.setOutcomeRecordDB(appointmentOutcomeRecordDB);
         this.doctorAvailabilityDB = new DoctorUnavailabilityDB();
+        this.scheduleTemplateDB = new ScheduleTemplateDB();
+        this.waitlistDB = new WaitlistDB();
     }
 
     /**
@@ -46,9 +56,12 @@ public class DatabaseManager {
         medicalRecordDB.load();
         medicineDB.load();
         replenishmentDB.load();
+        stockLedgerDB.load();
         appointmentDB.load();
         appointmentOutcomeRecordDB.load();
         doctorAvailabilityDB.load();
+        scheduleTemplateDB.load();
+        waitlistDB.load();
     }
 
     /**
@@ -61,9 +74,12 @@ public class DatabaseManager {
         medicalRecordDB.save();
         medicineDB.save();
         replenishmentDB.save();
+        stockLedgerDB.save();
         appointmentDB.save();
         appointmentOutcomeRecordDB.save();
         doctorAvailabilityDB.save();
+        scheduleTemplateDB.save();
+        waitlistDB.save();
     }
 
     /**
@@ -102,6 +118,15 @@ public class DatabaseManager {
         return replenishmentDB;
     }
 
+    /**
+     * Accessor for the StockLedgerDB instance.
+     *
+     * @return the StockLedgerDB instance.
+     */
+    public StockLedgerDB getStockLedgerDB() {
+        return stockLedgerDB;
+    }
+
     /**
      * Accessor for the AppointmentDB instance.
      *
@@ -128,4 +153,22 @@ public class DatabaseManager {
     public DoctorUnavailabilityDB getdoctorAvailabilityDB() {
         return doctorAvailabilityDB;
     }
+
+    /**
+     * Accessor for the ScheduleTemplateDB instance.
+     *
+     * @return the ScheduleTemplateDB instance.
+     */
+    public ScheduleTemplateDB getScheduleTemplateDB() {
+        return scheduleTemplateDB;
+    }
+
+    /**
+     * Accessor for the WaitlistDB instance.
+     *
+     * @return the WaitlistDB instance.
+     */
+    public WaitlistDB getWaitlistDB() {
+        return waitlistDB;
+    }
 }
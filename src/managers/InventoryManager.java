@@ -2,10 +2,27 @@ package managers;
 
 import database.MedicineDB;
 import database.ReplenishmentDB;
+import database.StockLedgerDB;
+import events.EventBus;
+import events.EventType;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import medicine.LotAllocator;
 import medicine.Medicine;
+import medicine.MedicineLot;
 import medicine.ReplenishmentRequest;
+import medicine.StockAllocation;
+import medicine.StockLevelListener;
+import medicine.StockMovement;
 
 /**
  * The InventoryManager class provides methods for managing the inventory of
@@ -17,16 +34,213 @@ public class InventoryManager {
 
     private MedicineDB medicineDB; // Reference to MedicineDB
     private ReplenishmentDB replenishmentDB; // Reference to ReplenishmentDB
+    private StockLedgerDB stockLedgerDB; // Reference to StockLedgerDB
+
+    // Stock-to-alert ratio of each low-stock medicine, captured when it was last
+    // indexed so that the ordered set below stays consistent
+    private Map<String, Double> stockRatios;
+    // IDs of the medicines at or below their alert level, lowest ratio first
+    private TreeSet<String> lowStockIds;
+    private List<StockLevelListener> stockLevelListeners;
+    private EventBus eventBus; // Bus that stock changes are published on
 
     /**
      * Constructs an InventoryManager object with the given database references.
      *
      * @param medicineDB the database handling medicine data
      * @param replenishmentDB the database handling replenishment requests
+     * @param stockLedgerDB the database recording changes to stock levels
+     * @param eventBus the bus to publish stock changes on
      */
-    public InventoryManager(MedicineDB medicineDB, ReplenishmentDB replenishmentDB) {
+    public InventoryManager(MedicineDB medicineDB, ReplenishmentDB replenishmentDB, StockLedgerDB stockLedgerDB,
+            EventBus eventBus) {
         this.medicineDB = medicineDB;
         this.replenishmentDB = replenishmentDB;
+        this.stockLedgerDB = stockLedgerDB;
+        this.stockRatios = new HashMap<>();
+        this.lowStockIds = new TreeSet<>(Comparator.comparing((String id) -> stockRatios.get(id))
+                .thenComparing(Comparator.naturalOrder()));
+        this.stockLevelListeners = new ArrayList<>();
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Builds the set of low-stock medicines from the medicines currently in the
+     * database. This should be called once after the database has been loaded;
+     * listeners are not notified for medicines that are already low.
+     */
+    public void buildLowStockIndex() {
+        lowStockIds.clear();
+        stockRatios.clear();
+        for (Medicine medicine : medicineDB.snapshot()) {
+            if (medicine.isStockLow()) {
+                stockRatios.put(medicine.getId(), getStockRatio(medicine));
+                lowStockIds.add(medicine.getId());
+            }
+        }
+    }
+
+    /**
+     * Registers a listener to be notified whenever a medicine's stock level
+     * crosses its low stock alert level.
+     *
+     * @param listener the listener to add
+     */
+    public void addStockLevelListener(StockLevelListener listener) {
+        stockLevelListeners.add(listener);
+    }
+
+    /**
+     * Gets the medicines that are at or below their low stock alert level,
+     * ordered from the most to the least critical stock-to-alert ratio.
+     *
+     * @return a list of low-stock medicines
+     */
+    public List<Medicine> getLowStockMedicines() {
+        List<Medicine> lowStockMedicines = new ArrayList<>();
+        for (String id : lowStockIds) {
+            Medicine medicine = medicineDB.getById(id);
+            if (medicine != null) {
+                lowStockMedicines.add(medicine);
+            }
+        }
+        return lowStockMedicines;
+    }
+
+    /**
+     * Re-evaluates whether a medicine is low on stock after its stock level
+     * changed, updating the low-stock set and notifying listeners if the
+     * medicine crossed its alert level. The change is published either way.
+     *
+     * @param medicine the medicine whose stock level changed
+     */
+    private void refreshStockStatus(Medicine medicine) {
+        String id = medicine.getId();
+        eventBus.publish(EventType.STOCK_CHANGED, id, null, medicine.getName(), medicine.getStockLevel());
+        // Remove using the ratio the ID was indexed with before replacing it;
+        // IDs without a ratio are not in the set and cannot be compared
+        boolean wasLow = stockRatios.containsKey(id) && lowStockIds.remove(id);
+        stockRatios.remove(id);
+
+        if (medicine.isStockLow()) {
+            stockRatios.put(id, getStockRatio(medicine));
+            lowStockIds.add(id);
+            if (!wasLow) {
+                for (StockLevelListener listener : stockLevelListeners) {
+                    listener.onStockLow(medicine);
+                }
+            }
+        } else if (wasLow) {
+            for (StockLevelListener listener : stockLevelListeners) {
+                listener.onStockRestored(medicine);
+            }
+        }
+    }
+
+    /**
+     * Removes a medicine from the low-stock set, for example after it has been
+     * deleted from the inventory.
+     *
+     * @param id the ID of the medicine
+     */
+    private void forgetStockStatus(String id) {
+        if (stockRatios.containsKey(id)) {
+            lowStockIds.remove(id);
+            stockRatios.remove(id);
+        }
+    }
+
+    /**
+     * Calculates how much stock a medicine has relative to its alert level.
+     *
+     * @param medicine the medicine
+     * @return the ratio of stock level to low stock alert level
+     */
+    private double getStockRatio(Medicine medicine) {
+        return (double) medicine.getStockLevel() / Math.max(1, medicine.getLowStockLevelAlert());
+    }
+
+    /**
+     * Opens every medicine in the stock ledger. Medicines that have no history
+     * yet get an opening checkpoint with their current stock level; medicines
+     * whose ledger balance no longer matches their stock level, for example
+     * after the inventory file was edited by hand, get an adjusting movement.
+     * This should be called once after the databases have been loaded.
+     */
+    public void openStockLedger() {
+        for (Medicine medicine : medicineDB.snapshot()) {
+            openInLedger(medicine);
+        }
+    }
+
+    /**
+     * Gets a medicine's stock level at a past time from the stock ledger.
+     *
+     * @param id the ID of the medicine
+     * @param time the time to look up
+     * @return the stock level at that time, or null if the ledger has no history
+     * for the medicine at that time
+     */
+    public Integer getStockAt(String id, LocalDateTime time) {
+        return stockLedgerDB.getStockAt(id, time);
+    }
+
+    /**
+     * Gets the stock movements of a medicine recorded within a period.
+     *
+     * @param id the ID of the medicine
+     * @param from the start of the period, inclusive
+     * @param to the end of the period, inclusive
+     * @return the movements in the order they were recorded
+     */
+    public List<StockMovement> getStockMovements(String id, LocalDateTime from, LocalDateTime to) {
+        return stockLedgerDB.getMovements(id, from, to);
+    }
+
+    /**
+     * Opens a medicine in the stock ledger, or records an adjustment if the
+     * ledger's balance differs from its stock level.
+     *
+     * @param medicine the medicine to open
+     */
+    private void openInLedger(Medicine medicine) {
+        try {
+            if (!stockLedgerDB.open(medicine.getId(), medicine.getStockLevel())) {
+                int difference = medicine.getStockLevel() - stockLedgerDB.getBalance(medicine.getId());
+                recordMovement(medicine.getId(), difference, StockMovement.Reason.ADJUSTED);
+            }
+        } catch (IOException e) {
+            System.out.println("Error opening stock ledger for " + medicine.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a single change to a medicine's stock level in the stock ledger.
+     * Changes of zero are not recorded.
+     *
+     * @param id the ID of the medicine
+     * @param delta the change in the stock level
+     * @param reason why the stock level changed
+     */
+    private void recordMovement(String id, int delta, StockMovement.Reason reason) {
+        if (delta != 0) {
+            recordMovements(Collections.singletonList(new StockMovement(LocalDateTime.now(), id, delta, reason)));
+        }
+    }
+
+    /**
+     * Records a batch of stock changes in the stock ledger with a single write.
+     * The ledger is written after the inventory has been saved, so a failure
+     * here is reported but does not undo the change.
+     *
+     * @param movements the changes to record
+     */
+    private void recordMovements(List<StockMovement> movements) {
+        try {
+            stockLedgerDB.record(movements);
+        } catch (IOException e) {
+            System.out.println("Error recording stock movements: " + e.getMessage());
+        }
     }
 
     /**
@@ -38,6 +252,8 @@ public class InventoryManager {
         try {
             if (medicineDB.create(medicine)) {
                 medicineDB.save();
+                refreshStockStatus(medicine);
+                openInLedger(medicine);
                 System.out.println("Added medicine: " + medicine.getName());
             } else {
                 System.out.println("Failed to add medicine.");
@@ -56,12 +272,20 @@ public class InventoryManager {
     public void updateMedicine(String id, int newStockLevel) {
         Medicine medicine = medicineDB.getById(id);
         if (medicine != null) {
+            int lotted = medicineDB.getLotAllocator().getLottedQuantity(id);
+            if (newStockLevel < lotted) {
+                System.out.println("Stock level cannot be lower than the " + lotted + " units held in lots.");
+                return;
+            }
+            int previousStockLevel = medicine.getStockLevel();
             medicine.setStockLevel(newStockLevel);
             System.out.println("Updated stock level for " + medicine.getName() + " to " + newStockLevel);
 
             try {
                 if (medicineDB.update(medicine)) {
                     medicineDB.save();
+                    refreshStockStatus(medicine); // Only once the new level has been saved
+                    recordMovement(id, newStockLevel - previousStockLevel, StockMovement.Reason.ADJUSTED);
                     System.out.println("Medicine stock updated and saved.");
                 } else {
                     System.out.println("Failed to update medicine stock.");
@@ -80,9 +304,12 @@ public class InventoryManager {
      * @param id the ID of the medicine to remove
      */
     public void removeMedicine(String id) {
+        Medicine medicine = medicineDB.getById(id);
         try {
             if (medicineDB.delete(id)) {
                 medicineDB.save();
+                forgetStockStatus(id);
+                recordMovement(id, -medicine.getStockLevel(), StockMovement.Reason.REMOVED);
                 System.out.println("Removed medicine with ID: " + id);
             } else {
                 System.out.println("Failed to remove medicine. Medicine not found.");
@@ -114,11 +341,124 @@ public class InventoryManager {
         return false;
     }
 
+    /**
+     * Submits several replenishment requests as one batch, regardless of the
+     * current stock levels. Quantities for medicines that already have a request
+     * are added to it. The requests are saved once; if saving fails, the batch is
+     * undone.
+     *
+     * @param quantitiesById the quantity to request for each medicine ID
+     * @return true if every request was submitted and saved, false otherwise
+     */
+    public boolean submitReplenishmentRequests(Map<String, Integer> quantitiesById) {
+        for (Map.Entry<String, Integer> entry : quantitiesById.entrySet()) {
+            if (medicineDB.getById(entry.getKey()) == null) {
+                System.out.println("Medicine with ID " + entry.getKey() + " not found.");
+                return false;
+            }
+            if (entry.getValue() <= 0) {
+                System.out.println("Invalid replenishment quantity for medicine ID " + entry.getKey() + ".");
+                return false;
+            }
+        }
+
+        List<ReplenishmentRequest> newRequests = new ArrayList<>();
+        Map<ReplenishmentRequest, Integer> previousQuantities = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : quantitiesById.entrySet()) {
+            ReplenishmentRequest existingRequest = replenishmentDB.getById(entry.getKey());
+            if (existingRequest != null) {
+                previousQuantities.put(existingRequest, existingRequest.getQuantity());
+                existingRequest.setQuantity(existingRequest.getQuantity() + entry.getValue());
+            } else {
+                ReplenishmentRequest request = new ReplenishmentRequest(replenishmentDB);
+                request.setMedicineId(entry.getKey());
+                request.setQuantity(entry.getValue());
+                newRequests.add(request);
+            }
+        }
+        replenishmentDB.addAll(newRequests);
+
+        try {
+            replenishmentDB.save();
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving replenishment requests: " + e.getMessage());
+            // Undo the batch so memory matches the file
+            replenishmentDB.removeAll(newRequests);
+            for (Map.Entry<ReplenishmentRequest, Integer> entry : previousQuantities.entrySet()) {
+                entry.getKey().setQuantity(entry.getValue());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Approves every pending replenishment request as one operation. The stock
+     * increases and request removals are applied in memory, then the inventory
+     * and the requests are each saved once. If either save fails, every change is
+     * undone. Requests for medicines that are no longer in the inventory are left
+     * in place.
+     *
+     * @return the list of approved requests, or null if the approval failed
+     */
+    public List<ReplenishmentRequest> approveAllReplenishmentRequests() {
+        List<ReplenishmentRequest> approved = new ArrayList<>();
+        Map<Medicine, Integer> increases = new HashMap<>();
+        for (ReplenishmentRequest request : replenishmentDB.snapshot()) {
+            Medicine medicine = medicineDB.getById(request.getMedicineId());
+            if (medicine == null) {
+                System.out.println("Medicine with ID " + request.getMedicineId() + " not found.");
+                continue;
+            }
+            approved.add(request);
+            increases.merge(medicine, request.getQuantity(), Integer::sum);
+        }
+        if (approved.isEmpty()) {
+            return approved;
+        }
+
+        for (Map.Entry<Medicine, Integer> entry : increases.entrySet()) {
+            Medicine medicine = entry.getKey();
+            medicine.setStockLevel(medicine.getStockLevel() + entry.getValue());
+        }
+        replenishmentDB.removeAll(approved);
+
+        try {
+            medicineDB.save();
+            replenishmentDB.save();
+        } catch (IOException e) {
+            System.out.println("Error approving replenishment requests: " + e.getMessage());
+            // Undo the batch and write the original stock levels back
+            for (Map.Entry<Medicine, Integer> entry : increases.entrySet()) {
+                Medicine medicine = entry.getKey();
+                medicine.setStockLevel(medicine.getStockLevel() - entry.getValue());
+            }
+            replenishmentDB.addAll(approved);
+            try {
+                medicineDB.save();
+            } catch (IOException restoreError) {
+                System.out.println("Error restoring inventory: " + restoreError.getMessage());
+            }
+            return null;
+        }
+
+        // Only notify listeners once the batch is committed
+        List<StockMovement> movements = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Medicine, Integer> entry : increases.entrySet()) {
+            refreshStockStatus(entry.getKey());
+            movements.add(new StockMovement(now, entry.getKey().getId(), entry.getValue(),
+                    StockMovement.Reason.REPLENISHED));
+        }
+        recordMovements(movements);
+        return approved;
+    }
+
     /**
      * Displays the current inventory from the database.
      */
     public void displayInventory() {
-        List<Medicine> medicineList = medicineDB.getAll();
+        List<Medicine> medicineList = medicineDB.snapshot();
         if (medicineList.isEmpty()) {
             System.out.println("Inventory is empty.");
             return;
@@ -132,17 +472,13 @@ public class InventoryManager {
      * Displays medicines that are low on stock.
      */
     public void displayLowStockMedicines() {
-        List<Medicine> medicineList = medicineDB.getAll();
-        boolean lowStockFound = false;
+        List<Medicine> medicineList = getLowStockMedicines();
         for (Medicine medicine : medicineList) {
-            if (medicine.isStockLow()) {
-                System.out.println("Low stock alert for: " + medicine.getName()
-                        + " (Current Stock: " + medicine.getStockLevel()
-                        + ", Alert Level: " + medicine.getLowStockLevelAlert() + ")");
-                lowStockFound = true;
-            }
+            System.out.println("Low stock alert for: " + medicine.getName()
+                    + " (Current Stock: " + medicine.getStockLevel()
+                    + ", Alert Level: " + medicine.getLowStockLevelAlert() + ")");
         }
-        if (!lowStockFound) {
+        if (medicineList.isEmpty()) {
             System.out.println("No medicines are currently below their low stock levels.");
         }
     }
@@ -151,7 +487,7 @@ public class InventoryManager {
      * Displays all replenishment requests from the database.
      */
     public void displayReplenishmentRequests() {
-        List<ReplenishmentRequest> requests = replenishmentDB.getAll();
+        List<ReplenishmentRequest> requests = replenishmentDB.snapshot();
         if (requests.isEmpty()) {
             System.out.println("No replenishment requests have been submitted.");
         } else {
@@ -165,10 +501,10 @@ public class InventoryManager {
     /**
      * Gets a list of all replenishment requests.
      *
-     * @return a list of all replenishment requests
+     * @return a read-only list of all replenishment requests
      */
     public List<ReplenishmentRequest> getReplenishmentRequests() {
-        return replenishmentDB.getAll();
+        return replenishmentDB.snapshot();
     }
 
     /**
@@ -198,6 +534,244 @@ public class InventoryManager {
         }
     }
 
+    /**
+     * Retrieves a medicine by its name, ignoring case and surrounding spaces.
+     *
+     * @param name the name of the medicine to retrieve
+     * @return the Medicine object if found, or null if not found
+     */
+    public Medicine getMedicineByName(String name) {
+        return medicineDB.getByName(name);
+    }
+
+    /**
+     * Retrieves every medicine whose name starts with the given text, ignoring
+     * case and surrounding spaces.
+     *
+     * @param prefix the start of the medicine name
+     * @return a list of matching medicines, ordered by name
+     */
+    public List<Medicine> findMedicinesByPrefix(String prefix) {
+        return medicineDB.getByNamePrefix(prefix);
+    }
+
+    /**
+     * Dispenses several medicines as one operation. Every medicine must exist
+     * and have enough unexpired stock before any stock level is changed; the
+     * inventory is then saved once. If saving fails, all stock levels are
+     * restored. Units are drawn from the medicine's lots first expiry, first
+     * out, and only then from stock that is not tracked by lot.
+     *
+     * @param quantitiesByName the quantity to dispense, keyed by medicine name
+     * @return the stock that was taken, or null if nothing was changed
+     */
+    public StockAllocation dispenseStock(Map<String, Integer> quantitiesByName) {
+        LotAllocator lots = medicineDB.getLotAllocator();
+        LocalDate today = LocalDate.now();
+        Map<Medicine, Integer> required = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : quantitiesByName.entrySet()) {
+            Medicine medicine = getMedicineByName(entry.getKey());
+            if (medicine == null) {
+                System.out.println("Medicine " + entry.getKey() + " is not in the inventory.");
+                return null;
+            }
+            int quantity = required.getOrDefault(medicine, 0) + entry.getValue();
+            int available = medicine.getStockLevel() - lots.getExpiredQuantity(medicine.getId(), today);
+            if (available < quantity) {
+                System.out.println("Insufficient stock for " + medicine.getName() + " (Required: " + quantity
+                        + ", Available: " + available + ").");
+                return null;
+            }
+            required.put(medicine, quantity);
+        }
+
+        StockAllocation allocation = new StockAllocation();
+        for (Map.Entry<Medicine, Integer> entry : required.entrySet()) {
+            Medicine medicine = entry.getKey();
+            allocation.addQuantity(medicine, entry.getValue());
+            for (Map.Entry<MedicineLot, Integer> draw : lots.allocate(medicine.getId(), entry.getValue(), today)
+                    .entrySet()) {
+                allocation.addLotDraw(draw.getKey(), draw.getValue());
+            }
+        }
+        for (Map.Entry<Medicine, Integer> entry : allocation.getQuantities().entrySet()) {
+            Medicine medicine = entry.getKey();
+            medicine.setStockLevel(medicine.getStockLevel() - entry.getValue());
+        }
+        for (Map.Entry<MedicineLot, Integer> draw : allocation.getLotDraws().entrySet()) {
+            lots.draw(draw.getKey(), draw.getValue());
+        }
+
+        try {
+            medicineDB.save();
+        } catch (IOException e) {
+            System.out.println("Error saving dispensed stock: " + e.getMessage());
+            undoAllocation(allocation);
+            return null;
+        }
+
+        // Only notify listeners once the batch is committed
+        for (Medicine medicine : allocation.getQuantities().keySet()) {
+            refreshStockStatus(medicine);
+        }
+        recordAllocation(allocation, -1, StockMovement.Reason.DISPENSED);
+        return allocation;
+    }
+
+    /**
+     * Returns previously dispensed medicines to stock and to the lots they were
+     * taken from, then saves the inventory. This is used when the dispensing it
+     * belonged to could not be completed.
+     *
+     * @param allocation the stock taken by the dispense
+     */
+    public void returnStock(StockAllocation allocation) {
+        undoAllocation(allocation);
+        try {
+            medicineDB.save();
+            for (Medicine medicine : allocation.getQuantities().keySet()) {
+                refreshStockStatus(medicine);
+            }
+            recordAllocation(allocation, 1, StockMovement.Reason.RETURNED);
+        } catch (IOException e) {
+            System.out.println("Error saving returned stock: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the stock taken or returned by a dispense in the stock ledger.
+     *
+     * @param allocation the stock taken by the dispense
+     * @param sign -1 if the stock was taken out, 1 if it was put back
+     * @param reason why the stock level changed
+     */
+    private void recordAllocation(StockAllocation allocation, int sign, StockMovement.Reason reason) {
+        List<StockMovement> movements = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Medicine, Integer> entry : allocation.getQuantities().entrySet()) {
+            movements.add(new StockMovement(now, entry.getKey().getId(), sign * entry.getValue(), reason));
+        }
+        recordMovements(movements);
+    }
+
+    /**
+     * Puts the units of an allocation back into the medicines and lots they
+     * were taken from, without saving.
+     *
+     * @param allocation the stock to put back
+     */
+    private void undoAllocation(StockAllocation allocation) {
+        LotAllocator lots = medicineDB.getLotAllocator();
+        for (Map.Entry<Medicine, Integer> entry : allocation.getQuantities().entrySet()) {
+            Medicine medicine = entry.getKey();
+            medicine.setStockLevel(medicine.getStockLevel() + entry.getValue());
+        }
+        for (Map.Entry<MedicineLot, Integer> draw : allocation.getLotDraws().entrySet()) {
+            lots.restore(draw.getKey(), draw.getValue());
+        }
+    }
+
+    /**
+     * Receives a new lot of a medicine into the inventory, adding its units to
+     * the medicine's stock. The inventory is saved once; if saving fails, the
+     * lot is removed again.
+     *
+     * @param lot the lot received
+     * @return true if the lot was received and saved, false otherwise
+     */
+    public boolean receiveLot(MedicineLot lot) {
+        Medicine medicine = medicineDB.getById(lot.getMedicineId());
+        if (medicine == null) {
+            System.out.println("Medicine with ID " + lot.getMedicineId() + " not found.");
+            return false;
+        }
+        if (lot.getQuantity() <= 0) {
+            System.out.println("A lot must contain at least one unit.");
+            return false;
+        }
+        if (lot.isExpired(LocalDate.now())) {
+            System.out.println("Lot " + lot.getLotNumber() + " has already expired.");
+            return false;
+        }
+        LotAllocator lots = medicineDB.getLotAllocator();
+        if (!lots.addLot(lot)) {
+            System.out.println("Lot number " + lot.getLotNumber() + " is already in use.");
+            return false;
+        }
+        medicine.setStockLevel(medicine.getStockLevel() + lot.getQuantity());
+
+        try {
+            medicineDB.save();
+        } catch (IOException e) {
+            System.out.println("Error saving received lot: " + e.getMessage());
+            lots.removeLot(lot.getLotNumber());
+            medicine.setStockLevel(medicine.getStockLevel() - lot.getQuantity());
+            return false;
+        }
+        refreshStockStatus(medicine);
+        recordMovement(medicine.getId(), lot.getQuantity(), StockMovement.Reason.LOT_RECEIVED);
+        return true;
+    }
+
+    /**
+     * Gets the lots of a medicine in the order they will be dispensed.
+     *
+     * @param medicineId the ID of the medicine
+     * @return the medicine's lots, earliest expiry first
+     */
+    public List<MedicineLot> getLots(String medicineId) {
+        return medicineDB.getLotAllocator().getLots(medicineId);
+    }
+
+    /**
+     * Gets the lots that have expired or will expire within the given number of
+     * days, earliest expiry first.
+     *
+     * @param days the number of days to look ahead
+     * @return the lots expiring within that many days
+     */
+    public List<MedicineLot> getLotsExpiringWithin(int days) {
+        return medicineDB.getLotAllocator().getLotsExpiringBefore(LocalDate.now().plusDays(days + 1L));
+    }
+
+    /**
+     * Removes every expired lot from the inventory, taking its units out of the
+     * medicine's stock. The inventory is saved once; if saving fails, the lots
+     * are put back.
+     *
+     * @return the lots that were removed, or null if saving failed
+     */
+    public List<MedicineLot> disposeExpiredLots() {
+        LotAllocator lots = medicineDB.getLotAllocator();
+        List<MedicineLot> expired = lots.getLotsExpiringBefore(LocalDate.now());
+        for (MedicineLot lot : expired) {
+            lots.removeLot(lot.getLotNumber());
+            Medicine medicine = medicineDB.getById(lot.getMedicineId());
+            medicine.setStockLevel(medicine.getStockLevel() - lot.getQuantity());
+        }
+
+        try {
+            medicineDB.save();
+        } catch (IOException e) {
+            System.out.println("Error saving disposed lots: " + e.getMessage());
+            for (MedicineLot lot : expired) {
+                lots.addLot(lot);
+                Medicine medicine = medicineDB.getById(lot.getMedicineId());
+                medicine.setStockLevel(medicine.getStockLevel() + lot.getQuantity());
+            }
+            return null;
+        }
+        List<StockMovement> movements = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (MedicineLot lot : expired) {
+            refreshStockStatus(medicineDB.getById(lot.getMedicineId()));
+            movements.add(new StockMovement(now, lot.getMedicineId(), -lot.getQuantity(),
+                    StockMovement.Reason.LOT_EXPIRED));
+        }
+        recordMovements(movements);
+        return expired;
+    }
+
     /**
      * Increases the stock level of a medicine.
      *
@@ -213,6 +787,8 @@ public class InventoryManager {
             try {
                 if (medicineDB.update(medicine)) {
                     medicineDB.save();
+                    refreshStockStatus(medicine); // Only once the new level has been saved
+                    recordMovement(id, amount, StockMovement.Reason.REPLENISHED);
                 } else {
                     System.out.println("Failed to update stock for " + medicine.getName() + ".");
                 }
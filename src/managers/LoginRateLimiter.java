@@ -0,0 +1,253 @@
+/**
+ * Limits how often logins can be attempted, so that guessing passwords cannot
+ * tie up the workers that verify them. Each user ID and each origin the login
+ * comes from has its own token bucket: every attempt takes a token, and tokens
+ * are slowly refilled up to the bucket's capacity. Buckets are updated with
+ * compare-and-set instead of locks, and the number of buckets kept is bounded:
+ * only buckets that have refilled completely are ever forgotten, and while
+ * every kept bucket is still limiting someone, attempts for user IDs and
+ * origins that have no bucket yet are rejected.
+ */
+package managers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LoginRateLimiter {
+
+    private static final int USER_CAPACITY = 5; // Attempts allowed in a burst for one user ID
+    private static final long USER_REFILL_MILLIS = 30_000; // Time to regain one attempt for a user ID
+    private static final int ORIGIN_CAPACITY = 20; // Attempts allowed in a burst from one origin
+    private static final long ORIGIN_REFILL_MILLIS = 3_000; // Time to regain one attempt for an origin
+    private static final int MAX_BUCKETS = 10_000; // Buckets kept before old ones are evicted
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejectedByUser = new AtomicLong();
+    private final AtomicLong rejectedByOrigin = new AtomicLong();
+    private final AtomicLong rejectedWhileFull = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    /**
+     * The tokens left in a bucket and when they were last refilled. States are
+     * never changed once created; a bucket moves to a new state with
+     * compare-and-set.
+     */
+    private static class State {
+        private final double tokens;
+        private final long refilledAt;
+
+        State(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    /**
+     * A token bucket for a single user ID or origin.
+     */
+    private static class Bucket {
+        private final int capacity;
+        private final long refillMillis;
+        private final AtomicReference<State> state;
+
+        Bucket(int capacity, long refillMillis, long now) {
+            this.capacity = capacity;
+            this.refillMillis = refillMillis;
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        /**
+         * Takes a token from the bucket if one is available.
+         *
+         * @param now the current time in milliseconds.
+         * @return true if a token was taken, false if the bucket is empty.
+         */
+        boolean tryAcquire(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = available(current, now);
+                if (tokens < 1) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Checks whether the bucket has refilled completely, in which case it
+         * behaves exactly like a new bucket and can be forgotten.
+         *
+         * @param now the current time in milliseconds.
+         * @return true if the bucket is full.
+         */
+        boolean isFull(long now) {
+            return available(state.get(), now) >= capacity;
+        }
+
+        /**
+         * Gets when the bucket was last refilled, which is also when a token
+         * was last taken from it.
+         *
+         * @return the time of the last refill in milliseconds.
+         */
+        long refilledAt() {
+            return state.get().refilledAt;
+        }
+
+        private double available(State current, long now) {
+            long elapsed = Math.max(0, now - current.refilledAt);
+            return Math.min(capacity, current.tokens + (double) elapsed / refillMillis);
+        }
+    }
+
+    /**
+     * Checks whether a login attempt may go ahead, taking a token from the
+     * buckets of both the origin and the user ID.
+     *
+     * @param userId the user ID being logged into.
+     * @param origin where the attempt comes from.
+     * @return true if the attempt is allowed, false if it should be rejected.
+     */
+    public boolean tryAcquire(String userId, String origin) {
+        long now = System.currentTimeMillis();
+        Bucket originBucket = bucket("origin:" + origin, ORIGIN_CAPACITY, ORIGIN_REFILL_MILLIS, now);
+        if (originBucket == null) {
+            rejectedWhileFull.incrementAndGet();
+            return false;
+        }
+        if (!originBucket.tryAcquire(now)) {
+            rejectedByOrigin.incrementAndGet();
+            return false;
+        }
+        Bucket userBucket = bucket("user:" + userId, USER_CAPACITY, USER_REFILL_MILLIS, now);
+        if (userBucket == null) {
+            rejectedWhileFull.incrementAndGet();
+            return false;
+        }
+        if (!userBucket.tryAcquire(now)) {
+            rejectedByUser.incrementAndGet();
+            return false;
+        }
+        allowed.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gets the number of attempts allowed.
+     *
+     * @return the number of allowed attempts.
+     */
+    public long getAllowedCount() {
+        return allowed.get();
+    }
+
+    /**
+     * Gets the number of attempts rejected because the user ID had too many.
+     *
+     * @return the number of attempts rejected per user ID.
+     */
+    public long getRejectedByUserCount() {
+        return rejectedByUser.get();
+    }
+
+    /**
+     * Gets the number of attempts rejected because the origin had too many.
+     *
+     * @return the number of attempts rejected per origin.
+     */
+    public long getRejectedByOriginCount() {
+        return rejectedByOrigin.get();
+    }
+
+    /**
+     * Gets the number of attempts rejected because no more user IDs or origins
+     * could be tracked.
+     *
+     * @return the number of attempts rejected while the map was full.
+     */
+    public long getRejectedWhileFullCount() {
+        return rejectedWhileFull.get();
+    }
+
+    /**
+     * Gets the number of buckets evicted to keep the map bounded.
+     *
+     * @return the number of evicted buckets.
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    /**
+     * Gets the number of buckets currently kept.
+     *
+     * @return the number of tracked user IDs and origins.
+     */
+    public int getTrackedCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Gets the bucket for a key, creating it if needed. When the map is over
+     * its limit, full buckets are evicted first; if none can be, no new bucket
+     * is created.
+     *
+     * @param key          the user ID or origin key.
+     * @param capacity     the capacity of a new bucket.
+     * @param refillMillis the refill time of a new bucket.
+     * @param now          the current time in milliseconds.
+     * @return the bucket for the key, or null if the map is full of buckets
+     *         that are still limiting someone.
+     */
+    private Bucket bucket(String key, int capacity, long refillMillis, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= MAX_BUCKETS) {
+            evict(now);
+            if (buckets.size() >= MAX_BUCKETS) {
+                return null; // Fail closed rather than forget a draining bucket
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new Bucket(capacity, refillMillis, now));
+    }
+
+    /**
+     * Brings the map down towards three quarters of its limit, so eviction only
+     * runs once per many new keys. Only full buckets are removed, as forgetting
+     * them changes nothing, and those idle the longest go first. A bucket that
+     * is still draining is never removed, since a new one in its place would
+     * hand out a fresh burst of attempts.
+     *
+     * @param now the current time in milliseconds.
+     */
+    private void evict(long now) {
+        int excess = buckets.size() - MAX_BUCKETS * 3 / 4;
+        List<Map.Entry<String, Bucket>> full = new ArrayList<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isFull(now)) {
+                full.add(entry);
+            }
+        }
+        full.sort(Comparator.comparingLong(entry -> entry.getValue().refilledAt()));
+        for (int i = 0; i < full.size() && excess > 0; i++) {
+            Map.Entry<String, Bucket> entry = full.get(i);
+            // Skip a bucket that was used since it was found to be full
+            if (entry.getValue().isFull(now) && buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted.incrementAndGet();
+                excess--;
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@
 package managers;
 
 import database.MedicalRecordDB;
+import events.EventBus;
+import events.EventType;
 import medicalrecords.Diagnosis;
 import medicalrecords.MedicalRecord;
 import medicalrecords.Prescription;
@@ -13,14 +15,22 @@ import medicalrecords.Treatment;
 public class MedicalRecordManager {
     // Reference to the MedicalRecordDB
     private MedicalRecordDB database;
+    // Search index kept up to date with every record written
+    private SearchManager searchManager;
+    // Bus that amendments to records are published on
+    private EventBus eventBus;
 
     /**
      * Constructor to initialize the MedicalRecordManager with a database instance.
      *
-     * @param database the MedicalRecordDB instance.
+     * @param database      the MedicalRecordDB instance.
+     * @param searchManager the search index to update when records change.
+     * @param eventBus      the bus to publish amendments on.
      */
-    public MedicalRecordManager(MedicalRecordDB database) {
+    public MedicalRecordManager(MedicalRecordDB database, SearchManager searchManager, EventBus eventBus) {
         this.database = database;
+        this.searchManager = searchManager;
+        this.eventBus = eventBus;
     }
 
     /**
@@ -32,7 +42,10 @@ public class MedicalRecordManager {
      */
     public boolean addMedicalRecord(String patientId, MedicalRecord medicalRecord) {
         if (medicalRecord != null && patientId != null && !patientId.isEmpty()) {
-            return database.create(medicalRecord);
+            if (database.create(medicalRecord)) {
+                searchManager.indexMedicalRecord(medicalRecord);
+                return true;
+            }
         }
         return false;
     }
@@ -59,8 +72,12 @@ public class MedicalRecordManager {
             }
             if (treatment != null) {
                 record.addTreatment(treatment);
-            }       
-            return database.update(record);
+            }
+            if (database.update(record)) {
+                searchManager.indexMedicalRecord(record);
+                eventBus.publish(EventType.RECORD_AMENDED, patientId, null, "Diagnosis", 0);
+                return true;
+            }
         }
         return false;
     }
@@ -72,7 +89,11 @@ public class MedicalRecordManager {
      * @return true if the record was successfully deleted, false otherwise.
      */
     public boolean deleteMedicalRecord(String patientId) {
-        return database.delete(patientId);
+        if (database.delete(patientId)) {
+            searchManager.removeMedicalRecord(patientId);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -100,7 +121,10 @@ public class MedicalRecordManager {
         MedicalRecord record = database.getById(patientId);
         if (record != null) {
             record.updateContactInfo(newPhoneNumber, newEmailAddress);
-            return database.update(record);
+            if (database.update(record)) {
+                eventBus.publish(EventType.RECORD_AMENDED, patientId, null, "Contact", 0);
+                return true;
+            }
         }
         return false;
     }
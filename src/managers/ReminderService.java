@@ -0,0 +1,359 @@
+/**
+ * Sends patients reminders of their confirmed appointments, a set time before
+ * each one starts (for example 24 hours and 1 hour before). Pending reminders
+ * are kept in a hierarchical timing wheel: each level has 64 slots, and each
+ * slot of a level covers a whole turn of the level below it. A reminder is
+ * placed in the lowest level that can hold it and moves down a level each time
+ * the wheel reaches its slot, so arming and cancelling a reminder take constant
+ * time and each tick only looks at the reminders in one slot. AppointmentDB
+ * tells this service about every change, so reminders are re-armed when an
+ * appointment is confirmed or rescheduled and dropped when it is cancelled.
+ */
+package managers;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import appointments.Appointment;
+import appointments.AppointmentListener;
+import appointments.Reminder;
+import appointments.ReminderSink;
+import database.AppointmentDB;
+
+public class ReminderService implements AppointmentListener {
+    private static final int WHEEL_BITS = 6; // Each level has 2^6 = 64 slots
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int LEVELS = 4; // 64^4 ticks, about 194 days at one tick a second
+    private static final String CONFIRMED = "Confirmed";
+
+    /**
+     * A reminder waiting in the wheel, with the slot it is in so it can be
+     * removed without searching.
+     */
+    private static class Timer {
+        private final Reminder reminder;
+        private final long dueTick;
+        private Set<Timer> slot;
+
+        private Timer(Reminder reminder, long dueTick) {
+            this.reminder = reminder;
+            this.dueTick = dueTick;
+        }
+    }
+
+    private final ReminderSink sink;
+    private final List<Duration> leadTimes;
+    private final long tickMillis;
+
+    // wheel[level][slot]; reminders too far away for the top level wait in overflow
+    private final Set<Timer>[][] wheel;
+    private final Set<Timer> overflow = new HashSet<>();
+    private final Map<String, List<Timer>> byAppointment = new HashMap<>();
+    private long currentTick;
+    private final ScheduledExecutorService ticker;
+
+    // Metrics
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * Constructs a ReminderService, registers it to hear about appointment
+     * changes and starts its timing wheel.
+     *
+     * @param appointmentDB the database of appointments.
+     * @param sink          where due reminders are delivered.
+     * @param tick          how often the wheel advances; reminders are sent at
+     *                      most this late.
+     * @param leadTimes     how long before each appointment reminders are sent.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ReminderService(AppointmentDB appointmentDB, ReminderSink sink, Duration tick,
+            List<Duration> leadTimes) {
+        if (tick.toMillis() <= 0) {
+            throw new IllegalArgumentException("Tick must be at least one millisecond.");
+        }
+        this.sink = sink;
+        this.leadTimes = List.copyOf(leadTimes);
+        this.tickMillis = tick.toMillis();
+        this.wheel = new Set[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[level][i] = new HashSet<>();
+            }
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-timing-wheel");
+            thread.setDaemon(true); // Never keep the program alive
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        appointmentDB.addListener(this);
+    }
+
+    /**
+     * Arms the reminders of existing appointments, such as those loaded when
+     * the system starts.
+     *
+     * @param appointments the appointments to arm reminders for.
+     */
+    public void armAll(List<Appointment> appointments) {
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            for (Appointment appointment : appointments) {
+                arm(appointment, due);
+            }
+        }
+        deliverAll(due);
+    }
+
+    /**
+     * Arms the reminders of a newly booked appointment if it is confirmed.
+     *
+     * @param appointment the appointment that was booked.
+     */
+    @Override
+    public void slotBooked(Appointment appointment) {
+        rearm(appointment);
+    }
+
+    /**
+     * Drops the reminders of a cancelled or deleted appointment.
+     *
+     * @param appointment the appointment whose time was freed.
+     */
+    @Override
+    public synchronized void slotFreed(Appointment appointment) {
+        cancelled.addAndGet(cancel(appointment.getAppointmentId()));
+    }
+
+    /**
+     * Re-arms the reminders of an updated appointment, since it may have been
+     * confirmed, moved or cancelled.
+     *
+     * @param appointment the appointment that was updated.
+     */
+    @Override
+    public void appointmentUpdated(Appointment appointment) {
+        rearm(appointment);
+    }
+
+    /**
+     * Gets the number of reminders armed.
+     *
+     * @return the number of reminders armed.
+     */
+    public long getScheduledCount() {
+        return scheduled.get();
+    }
+
+    /**
+     * Gets the number of reminders delivered.
+     *
+     * @return the number of reminders delivered.
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Gets the number of reminders dropped because their appointment was
+     * cancelled before they were due.
+     *
+     * @return the number of cancelled reminders.
+     */
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * Gets the number of reminders waiting to be delivered.
+     *
+     * @return the number of pending reminders.
+     */
+    public synchronized int getPendingCount() {
+        int pending = 0;
+        for (List<Timer> timers : byAppointment.values()) {
+            pending += timers.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Stops the timing wheel. Reminders still pending are not delivered.
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Drops an appointment's reminders and arms them again from its current
+     * details.
+     *
+     * @param appointment the appointment to re-arm.
+     */
+    private void rearm(Appointment appointment) {
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            cancel(appointment.getAppointmentId());
+            arm(appointment, due);
+        }
+        deliverAll(due);
+    }
+
+    /**
+     * Arms a reminder for each lead time of a confirmed appointment. Reminders
+     * whose time has already passed are skipped, so an appointment booked an
+     * hour ahead does not get its day-before reminder.
+     *
+     * @param appointment the appointment to arm.
+     * @param due         collects reminders due in the current tick.
+     */
+    private synchronized void arm(Appointment appointment, List<Reminder> due) {
+        if (!CONFIRMED.equalsIgnoreCase(appointment.getStatus())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Duration leadTime : leadTimes) {
+            Reminder reminder = new Reminder(appointment, leadTime);
+            long dueMillis = reminder.getDueAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (dueMillis < now) {
+                continue;
+            }
+            Timer timer = new Timer(reminder, Math.floorDiv(dueMillis + tickMillis - 1, tickMillis));
+            scheduled.incrementAndGet();
+            if (timer.dueTick <= currentTick) {
+                due.add(reminder);
+                continue;
+            }
+            byAppointment.computeIfAbsent(reminder.getAppointmentId(), k -> new ArrayList<>()).add(timer);
+            place(timer);
+        }
+    }
+
+    /**
+     * Removes all pending reminders of an appointment.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return the number of reminders removed.
+     */
+    private synchronized int cancel(String appointmentId) {
+        List<Timer> timers = byAppointment.remove(appointmentId);
+        if (timers == null) {
+            return 0;
+        }
+        for (Timer timer : timers) {
+            timer.slot.remove(timer);
+        }
+        return timers.size();
+    }
+
+    /**
+     * Places a reminder in the lowest level whose current turn contains its due
+     * tick. At level n the due tick and the current tick differ only in their
+     * lowest (n + 1) * 6 bits, so the slot is reached before the reminder is due
+     * and moving it down then puts it in a lower level.
+     *
+     * @param timer the reminder to place; its due tick must not be in the past.
+     */
+    private void place(Timer timer) {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+            if ((timer.dueTick >>> shift) == (currentTick >>> shift)) {
+                int index = (int) ((timer.dueTick >>> (WHEEL_BITS * level)) & (WHEEL_SIZE - 1));
+                timer.slot = wheel[level][index];
+                timer.slot.add(timer);
+                return;
+            }
+        }
+        timer.slot = overflow;
+        overflow.add(timer);
+    }
+
+    /**
+     * Advances the wheel to the current time, one tick at a time so that no
+     * slot is skipped if the thread was delayed, and delivers the reminders
+     * that fall due.
+     */
+    private void tick() {
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            long target = System.currentTimeMillis() / tickMillis;
+            while (currentTick < target) {
+                currentTick++;
+                advance(due);
+            }
+        }
+        deliverAll(due);
+    }
+
+    /**
+     * Handles one tick: slots of higher levels that start a new turn at this
+     * tick are moved down, then the reminders in the level 0 slot are due.
+     *
+     * @param due collects the reminders that are due.
+     */
+    private void advance(List<Reminder> due) {
+        if ((currentTick & ((1L << (WHEEL_BITS * LEVELS)) - 1)) == 0) {
+            cascade(overflow);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & (WHEEL_SIZE - 1));
+                cascade(wheel[level][index]);
+            }
+        }
+        Set<Timer> slot = wheel[0][(int) (currentTick & (WHEEL_SIZE - 1))];
+        for (Timer timer : slot) {
+            due.add(timer.reminder);
+            List<Timer> timers = byAppointment.get(timer.reminder.getAppointmentId());
+            timers.remove(timer);
+            if (timers.isEmpty()) {
+                byAppointment.remove(timer.reminder.getAppointmentId());
+            }
+        }
+        slot.clear();
+    }
+
+    /**
+     * Moves the reminders in a slot to the levels matching their due ticks.
+     *
+     * @param slot the slot to empty.
+     */
+    private void cascade(Set<Timer> slot) {
+        List<Timer> timers = new ArrayList<>(slot);
+        slot.clear();
+        for (Timer timer : timers) {
+            place(timer);
+        }
+    }
+
+    /**
+     * Delivers reminders to the sink, outside the wheel's lock so a slow sink
+     * does not hold up bookings.
+     *
+     * @param due the reminders to deliver.
+     */
+    private void deliverAll(List<Reminder> due) {
+        for (Reminder reminder : due) {
+            try {
+                sink.deliver(reminder);
+                delivered.incrementAndGet();
+            } catch (RuntimeException e) {
+                System.err.println("Error delivering reminder for appointment " + reminder.getAppointmentId()
+                        + ": " + e.getMessage());
+            }
+        }
+    }
+}
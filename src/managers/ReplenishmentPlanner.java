@@ -0,0 +1,210 @@
+/**
+ * Plans medicine replenishment from how quickly each medicine is being
+ * dispensed. Consumption is totalled once from the dispensed outcome records at
+ * startup and then kept up to date as further prescriptions are dispensed, so
+ * the history never needs to be rescanned.
+ */
+package managers;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import appointments.AppointmentOutcomeRecord;
+import appointments.DispenseListener;
+import medicalrecords.Prescription;
+import medicine.Medicine;
+import medicine.ReplenishmentRequest;
+
+public class ReplenishmentPlanner implements DispenseListener {
+
+    private AppointmentOutcomeManager appointmentOutcomeManager;
+    private InventoryManager inventory;
+
+    // Medication name (lower case) -> total units dispensed
+    private Map<String, Integer> unitsDispensed;
+    // Medication name (lower case) -> date of the earliest dispensed prescription
+    private Map<String, LocalDate> firstDispensed;
+    // Appointments whose prescriptions have already been counted
+    private Set<String> countedAppointments;
+
+    /**
+     * Constructor to initialize the ReplenishmentPlanner with the managers it
+     * reads from.
+     *
+     * @param appointmentOutcomeManager the AppointmentOutcomeManager instance.
+     * @param inventory                 the InventoryManager instance.
+     */
+    public ReplenishmentPlanner(AppointmentOutcomeManager appointmentOutcomeManager, InventoryManager inventory) {
+        this.appointmentOutcomeManager = appointmentOutcomeManager;
+        this.inventory = inventory;
+        this.unitsDispensed = new HashMap<>();
+        this.firstDispensed = new HashMap<>();
+        this.countedAppointments = new HashSet<>();
+    }
+
+    /**
+     * Totals the consumption of every medicine from the records that have already
+     * been dispensed. This should be called once after the databases have been
+     * loaded; the planner should then be registered as a dispense listener so
+     * that later dispenses are counted as they happen.
+     */
+    public void buildConsumptionHistory() {
+        unitsDispensed.clear();
+        firstDispensed.clear();
+        countedAppointments.clear();
+        for (AppointmentOutcomeRecord record : appointmentOutcomeManager.getDispensedRecords()) {
+            recordConsumption(record);
+        }
+    }
+
+    /**
+     * Counts the prescriptions of a newly dispensed record.
+     *
+     * @param record the record whose prescriptions were dispensed.
+     */
+    @Override
+    public void onPrescriptionsDispensed(AppointmentOutcomeRecord record) {
+        recordConsumption(record);
+    }
+
+    /**
+     * Gets the average number of units of a medicine dispensed per day, measured
+     * from its first dispensed prescription up to today.
+     *
+     * @param medicine the medicine to check.
+     * @return the average daily consumption, or 0 if it has never been dispensed.
+     */
+    public double getDailyConsumption(Medicine medicine) {
+        String key = normalize(medicine.getName());
+        Integer units = unitsDispensed.get(key);
+        if (units == null) {
+            return 0;
+        }
+        long days = ChronoUnit.DAYS.between(firstDispensed.get(key), LocalDate.now()) + 1;
+        return (double) units / Math.max(1, days);
+    }
+
+    /**
+     * Forecasts the date a medicine will run out at its current rate of
+     * consumption.
+     *
+     * @param medicine the medicine to check.
+     * @return the forecast stockout date, or null if the medicine is not being
+     *         consumed.
+     */
+    public LocalDate forecastStockoutDate(Medicine medicine) {
+        double rate = getDailyConsumption(medicine);
+        if (rate <= 0) {
+            return null;
+        }
+        return LocalDate.now().plusDays((long) Math.floor(medicine.getStockLevel() / rate));
+    }
+
+    /**
+     * Gets the medicines in the inventory that are being consumed, ordered by
+     * their forecast stockout date, soonest first.
+     *
+     * @return the list of consumed medicines.
+     */
+    public List<Medicine> getConsumedMedicines() {
+        List<Medicine> medicines = new ArrayList<>();
+        for (String name : unitsDispensed.keySet()) {
+            Medicine medicine = inventory.getMedicineByName(name);
+            if (medicine != null) {
+                medicines.add(medicine);
+            }
+        }
+        medicines.sort(Comparator.comparing(this::forecastStockoutDate));
+        return medicines;
+    }
+
+    /**
+     * Works out which medicines need to be reordered and how much of each. A
+     * medicine is reordered if its stock is expected to fall below its low stock
+     * alert level before a new delivery could arrive. The suggested quantity
+     * covers the lead time and the given number of days after it, leaves the
+     * alert level in reserve, and takes requests already submitted into account.
+     *
+     * @param leadTimeDays the number of days a delivery takes to arrive.
+     * @param coverDays    the number of days of consumption each delivery should
+     *                     cover.
+     * @return the suggested quantity for each medicine ID, soonest stockout first.
+     */
+    public Map<String, Integer> planReplenishment(int leadTimeDays, int coverDays) {
+        Map<String, Integer> requested = new HashMap<>();
+        for (ReplenishmentRequest request : inventory.getReplenishmentRequests()) {
+            requested.merge(request.getMedicineId(), request.getQuantity(), Integer::sum);
+        }
+
+        Map<String, Integer> plan = new LinkedHashMap<>();
+        for (Medicine medicine : getConsumedMedicines()) {
+            double rate = getDailyConsumption(medicine);
+            int available = medicine.getStockLevel() + requested.getOrDefault(medicine.getId(), 0);
+            if (available - rate * leadTimeDays >= medicine.getLowStockLevelAlert()) {
+                continue;
+            }
+            int quantity = (int) Math.ceil(rate * (leadTimeDays + coverDays)) + medicine.getLowStockLevelAlert()
+                    - available;
+            if (quantity > 0) {
+                plan.put(medicine.getId(), quantity);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Submits a replenishment plan as a single batch of requests.
+     *
+     * @param plan the quantity to request for each medicine ID.
+     * @return true if the requests were submitted, false otherwise.
+     */
+    public boolean submitPlan(Map<String, Integer> plan) {
+        if (plan.isEmpty()) {
+            return false;
+        }
+        return inventory.submitReplenishmentRequests(plan);
+    }
+
+    /**
+     * Adds the prescriptions of a dispensed record to the consumption totals.
+     * Records that have already been counted are ignored.
+     *
+     * @param record the dispensed record.
+     */
+    private void recordConsumption(AppointmentOutcomeRecord record) {
+        if (!countedAppointments.add(record.getAppointmentId())) {
+            return;
+        }
+        LocalDate date = record.getAppointmentDate();
+        for (Prescription prescription : record.getPrescriptions()) {
+            if (prescription.getAmount() <= 0 || prescription.getMedicationName().equalsIgnoreCase("Nil")) {
+                continue;
+            }
+            String key = normalize(prescription.getMedicationName());
+            unitsDispensed.merge(key, prescription.getAmount(), Integer::sum);
+            LocalDate first = firstDispensed.get(key);
+            if (first == null || date.isBefore(first)) {
+                firstDispensed.put(key, date);
+            }
+        }
+    }
+
+    /**
+     * Normalizes a medication name so that differences in case and surrounding
+     * spaces are ignored.
+     *
+     * @param name the medication name.
+     * @return the normalized name.
+     */
+    private String normalize(String name) {
+        return name.trim().toLowerCase();
+    }
+}
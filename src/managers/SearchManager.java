@@ -0,0 +1,325 @@
+/**
+ * Maintains an in-memory inverted index over medical records and appointment
+ * outcome records, allowing patients to be found by diagnosis, treatment,
+ * medication or words in the consultation notes.
+ */
+package managers;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import appointments.AppointmentOutcomeRecord;
+import database.AppointmentOutcomeRecordDB;
+import database.MedicalRecordDB;
+import medicalrecords.Diagnosis;
+import medicalrecords.MedicalRecord;
+import medicalrecords.Prescription;
+import medicalrecords.Treatment;
+
+public class SearchManager {
+
+    /**
+     * The fields of a record that can be searched.
+     */
+    public enum Field {
+        DIAGNOSIS, TREATMENT, MEDICATION, NOTES
+    }
+
+    // Prefixes used to tell medical record documents apart from outcome record
+    // documents, since both are indexed into the same postings
+    private static final String MEDICAL_RECORD_PREFIX = "MR:";
+    private static final String OUTCOME_RECORD_PREFIX = "AO:";
+
+    private MedicalRecordDB medicalRecordDB;
+    private AppointmentOutcomeRecordDB appointmentOutcomeRecordDB;
+
+    // Field -> term -> IDs of the documents containing the term
+    private Map<Field, Map<String, Set<String>>> postings;
+    // Document ID -> field -> terms, used to remove a document's old terms when it
+    // is re-indexed
+    private Map<String, Map<Field, Set<String>>> documentTerms;
+    // Document ID -> ID of the patient the document belongs to
+    private Map<String, String> documentPatients;
+
+    /**
+     * Constructor to initialize the SearchManager with the databases it indexes.
+     *
+     * @param medicalRecordDB            the MedicalRecordDB instance.
+     * @param appointmentOutcomeRecordDB the AppointmentOutcomeRecordDB instance.
+     */
+    public SearchManager(MedicalRecordDB medicalRecordDB, AppointmentOutcomeRecordDB appointmentOutcomeRecordDB) {
+        this.medicalRecordDB = medicalRecordDB;
+        this.appointmentOutcomeRecordDB = appointmentOutcomeRecordDB;
+        this.postings = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+        this.documentTerms = new HashMap<>();
+        this.documentPatients = new HashMap<>();
+    }
+
+    /**
+     * Builds the index from every record currently held in the databases.
+     * This should be called once after the databases have been loaded; later
+     * changes are applied incrementally by the managers that write the records.
+     */
+    public void buildIndex() {
+        for (Map<String, Set<String>> fieldPostings : postings.values()) {
+            fieldPostings.clear();
+        }
+        documentTerms.clear();
+        documentPatients.clear();
+
+        for (MedicalRecord record : medicalRecordDB.snapshot()) {
+            indexMedicalRecord(record);
+        }
+        for (AppointmentOutcomeRecord record : appointmentOutcomeRecordDB.snapshot()) {
+            indexOutcomeRecord(record);
+        }
+    }
+
+    /**
+     * Adds or re-indexes the diagnoses, treatments and prescriptions of a medical
+     * record.
+     *
+     * @param record the medical record to index.
+     */
+    public void indexMedicalRecord(MedicalRecord record) {
+        if (record == null) {
+            return;
+        }
+        Map<Field, Set<String>> terms = new EnumMap<>(Field.class);
+        for (Diagnosis diagnosis : record.getDiagnoses()) {
+            addTerms(terms, Field.DIAGNOSIS, diagnosis.getDiagnosisName());
+        }
+        for (Treatment treatment : record.getTreatments()) {
+            addTerms(terms, Field.TREATMENT, treatment.getTreatmentName());
+            addTerms(terms, Field.TREATMENT, treatment.getTreatmentDetails());
+        }
+        for (Prescription prescription : record.getPrescriptions()) {
+            addTerms(terms, Field.MEDICATION, prescription.getMedicationName());
+        }
+        indexDocument(MEDICAL_RECORD_PREFIX + record.getPatientId(), record.getPatientId(), terms);
+    }
+
+    /**
+     * Adds or re-indexes the prescriptions and consultation notes of an
+     * appointment outcome record.
+     *
+     * @param record the appointment outcome record to index.
+     */
+    public void indexOutcomeRecord(AppointmentOutcomeRecord record) {
+        if (record == null) {
+            return;
+        }
+        Map<Field, Set<String>> terms = new EnumMap<>(Field.class);
+        for (Prescription prescription : record.getPrescriptions()) {
+            addTerms(terms, Field.MEDICATION, prescription.getMedicationName());
+        }
+        addTerms(terms, Field.NOTES, record.getConsultationNotes());
+        indexDocument(OUTCOME_RECORD_PREFIX + record.getAppointmentId(), record.getPatientId(), terms);
+    }
+
+    /**
+     * Removes a patient's medical record from the index.
+     *
+     * @param patientId the ID of the patient whose record was deleted.
+     */
+    public void removeMedicalRecord(String patientId) {
+        removeDocument(MEDICAL_RECORD_PREFIX + patientId);
+    }
+
+    /**
+     * Removes an appointment outcome record from the index.
+     *
+     * @param appointmentId the ID of the appointment whose outcome was deleted.
+     */
+    public void removeOutcomeRecord(String appointmentId) {
+        removeDocument(OUTCOME_RECORD_PREFIX + appointmentId);
+    }
+
+    /**
+     * Finds the patients with a record matching every word of the query in the
+     * given field.
+     *
+     * @param field the field to search.
+     * @param query the words to look for.
+     * @return the IDs of the matching patients.
+     */
+    public Set<String> searchPatients(Field field, String query) {
+        Set<String> patientIds = new HashSet<>();
+        for (String documentId : findDocuments(field, query)) {
+            patientIds.add(documentPatients.get(documentId));
+        }
+        return patientIds;
+    }
+
+    /**
+     * Finds the patients matching a diagnosis and a medication, restricted to a
+     * given set of patients (for example, the patients under a doctor's care).
+     * Blank criteria are ignored.
+     *
+     * @param diagnosis  the diagnosis to look for, or blank to match any.
+     * @param medication the medication to look for, or blank to match any.
+     * @param patientIds the patients to restrict the search to, or null to search
+     *                   all patients.
+     * @return the IDs of the matching patients.
+     */
+    public Set<String> searchPatients(String diagnosis, String medication, Set<String> patientIds) {
+        Set<String> results = patientIds == null ? null : new HashSet<>(patientIds);
+        results = intersect(results, diagnosis, Field.DIAGNOSIS);
+        results = intersect(results, medication, Field.MEDICATION);
+        return results == null ? new HashSet<>() : results;
+    }
+
+    /**
+     * Finds the appointments whose consultation notes contain every word of the
+     * query.
+     *
+     * @param query the words to look for.
+     * @return the IDs of the matching appointments.
+     */
+    public Set<String> searchConsultationNotes(String query) {
+        Set<String> appointmentIds = new HashSet<>();
+        for (String documentId : findDocuments(Field.NOTES, query)) {
+            appointmentIds.add(documentId.substring(OUTCOME_RECORD_PREFIX.length()));
+        }
+        return appointmentIds;
+    }
+
+    /**
+     * Narrows a set of patients down to those matching the query in a field.
+     *
+     * @param current the current candidates, or null if there are no constraints
+     *                yet.
+     * @param query   the words to look for; blank queries leave the candidates
+     *                unchanged.
+     * @param field   the field to search.
+     * @return the narrowed candidates, or null if still unconstrained.
+     */
+    private Set<String> intersect(Set<String> current, String query, Field field) {
+        if (query == null || tokenize(query).isEmpty()) {
+            return current;
+        }
+        Set<String> matches = searchPatients(field, query);
+        if (current == null) {
+            return matches;
+        }
+        current.retainAll(matches);
+        return current;
+    }
+
+    /**
+     * Finds the documents containing every word of the query in a field.
+     * Starts from the rarest term so the intersection stays small.
+     *
+     * @param field the field to search.
+     * @param query the words to look for.
+     * @return the IDs of the matching documents.
+     */
+    private Set<String> findDocuments(Field field, String query) {
+        Set<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Map<String, Set<String>> fieldPostings = postings.get(field);
+        Set<String> rarest = null;
+        for (String term : queryTerms) {
+            Set<String> documents = fieldPostings.getOrDefault(term, Collections.emptySet());
+            if (rarest == null || documents.size() < rarest.size()) {
+                rarest = documents;
+            }
+        }
+
+        Set<String> results = new HashSet<>(rarest);
+        for (String term : queryTerms) {
+            if (results.isEmpty()) {
+                break;
+            }
+            results.retainAll(fieldPostings.getOrDefault(term, Collections.emptySet()));
+        }
+        return results;
+    }
+
+    /**
+     * Replaces the indexed terms of a document.
+     *
+     * @param documentId the ID of the document.
+     * @param patientId  the ID of the patient the document belongs to.
+     * @param terms      the document's terms, by field.
+     */
+    private void indexDocument(String documentId, String patientId, Map<Field, Set<String>> terms) {
+        removeDocument(documentId);
+        for (Map.Entry<Field, Set<String>> entry : terms.entrySet()) {
+            Map<String, Set<String>> fieldPostings = postings.get(entry.getKey());
+            for (String term : entry.getValue()) {
+                fieldPostings.computeIfAbsent(term, key -> new HashSet<>()).add(documentId);
+            }
+        }
+        documentTerms.put(documentId, terms);
+        documentPatients.put(documentId, patientId);
+    }
+
+    /**
+     * Removes every indexed term of a document.
+     *
+     * @param documentId the ID of the document.
+     */
+    private void removeDocument(String documentId) {
+        Map<Field, Set<String>> terms = documentTerms.remove(documentId);
+        documentPatients.remove(documentId);
+        if (terms == null) {
+            return;
+        }
+        for (Map.Entry<Field, Set<String>> entry : terms.entrySet()) {
+            Map<String, Set<String>> fieldPostings = postings.get(entry.getKey());
+            for (String term : entry.getValue()) {
+                Set<String> documents = fieldPostings.get(term);
+                if (documents != null) {
+                    documents.remove(documentId);
+                    if (documents.isEmpty()) {
+                        fieldPostings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the words of a piece of text to a field's terms.
+     *
+     * @param terms the terms collected so far, by field.
+     * @param field the field the text belongs to.
+     * @param text  the text to tokenize.
+     */
+    private void addTerms(Map<Field, Set<String>> terms, Field field, String text) {
+        Set<String> tokens = tokenize(text);
+        if (!tokens.isEmpty()) {
+            terms.computeIfAbsent(field, key -> new HashSet<>()).addAll(tokens);
+        }
+    }
+
+    /**
+     * Splits text into lower-case words, ignoring punctuation.
+     *
+     * @param text the text to split.
+     * @return the set of words in the text.
+     */
+    private Set<String> tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase().split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
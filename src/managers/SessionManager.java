@@ -0,0 +1,277 @@
+/**
+ * Issues session tokens to authenticated users and keeps the sessions in an
+ * in-memory cache, so a user can be looked up from a token without checking
+ * their credentials again. The user's role is worked out once when the
+ * session is created. Sessions that have not been used for a while are evicted
+ * by a hashed timing wheel, which only looks at the sessions due in the current
+ * tick instead of scanning every session.
+ */
+package managers;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import users.User;
+
+public class SessionManager {
+
+    /**
+     * The roles a session can have, used to decide which menu a user may open.
+     */
+    public enum Role {
+        PATIENT, DOCTOR, PHARMACIST, ADMINISTRATOR;
+
+        /**
+         * Finds the role matching a user's role name.
+         *
+         * @param roleName the role name stored with the user.
+         * @return the matching role, or null if there is none.
+         */
+        public static Role fromName(String roleName) {
+            for (Role role : values()) {
+                if (role.name().equalsIgnoreCase(roleName)) {
+                    return role;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * An authenticated user's session.
+     */
+    public static class Session {
+        private String token;
+        private User user;
+        private Role role;
+        private volatile long lastAccessMillis;
+
+        private Session(String token, User user, Role role, long now) {
+            this.token = token;
+            this.user = user;
+            this.role = role;
+            this.lastAccessMillis = now;
+        }
+
+        /**
+         * Gets the session's token.
+         *
+         * @return the token.
+         */
+        public String getToken() {
+            return token;
+        }
+
+        /**
+         * Gets the user the session belongs to.
+         *
+         * @return the user.
+         */
+        public User getUser() {
+            return user;
+        }
+
+        /**
+         * Gets the role of the session's user.
+         *
+         * @return the role.
+         */
+        public Role getRole() {
+            return role;
+        }
+
+        /**
+         * Checks whether the session's user has a role.
+         *
+         * @param required the role to check for.
+         * @return true if the user has the role, false otherwise.
+         */
+        public boolean hasRole(Role required) {
+            return role == required;
+        }
+    }
+
+    private static final int WHEEL_SIZE = 64; // Number of slots in the timing wheel
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final long tickMillis;
+
+    // Timing wheel: each slot holds the tokens of the sessions to check when the
+    // wheel reaches it
+    private final Set<String>[] wheel;
+    private long currentTick;
+    private final ScheduledExecutorService ticker;
+
+    private final AtomicLong evicted = new AtomicLong();
+
+    /**
+     * Constructor to initialize the SessionManager and start its timing wheel.
+     *
+     * @param idleTimeout how long a session may go unused before it is evicted.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SessionManager(Duration idleTimeout) {
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        // Half the wheel covers the timeout, so a touched session is rescheduled at
+        // most once per timeout
+        this.tickMillis = Math.max(1, idleTimeoutMillis / (WHEEL_SIZE / 2));
+        this.wheel = new Set[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-timing-wheel");
+            thread.setDaemon(true); // Never keep the program alive
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a session for an authenticated user.
+     *
+     * @param user the authenticated user.
+     * @return the session's token, or null if the user's role is not recognised.
+     */
+    public String createSession(User user) {
+        Role role = Role.fromName(user.getRole());
+        if (role == null) {
+            return null;
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Session session = new Session(token, user, role, System.currentTimeMillis());
+        sessions.put(token, session);
+        schedule(session);
+        return token;
+    }
+
+    /**
+     * Looks up the session for a token and marks it as used.
+     *
+     * @param token the session's token.
+     * @return the session, or null if the token is unknown or the session has
+     *         expired.
+     */
+    public Session getSession(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastAccessMillis >= idleTimeoutMillis) {
+            // Expired but not yet reached by the wheel
+            if (sessions.remove(token, session)) {
+                evicted.incrementAndGet();
+            }
+            return null;
+        }
+        session.lastAccessMillis = now;
+        return session;
+    }
+
+    /**
+     * Checks that a session is still active and has a role, and marks it as
+     * used. Menus call this before every action, so the idle timeout also
+     * applies while a user is logged in.
+     *
+     * @param token    the session's token.
+     * @param required the role the action needs.
+     * @return true if the session is active and has the role, false otherwise.
+     */
+    public boolean isAuthorized(String token, Role required) {
+        Session session = getSession(token);
+        return session != null && session.hasRole(required);
+    }
+
+    /**
+     * Ends a session, for example when the user logs out.
+     *
+     * @param token the session's token.
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Gets the number of sessions currently held.
+     *
+     * @return the number of active sessions.
+     */
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the number of sessions evicted for being idle.
+     *
+     * @return the number of evicted sessions.
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    /**
+     * Stops the timing wheel.
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Advances the wheel by one slot, evicting the idle sessions in that slot
+     * and moving sessions that were used since they were scheduled to the slot
+     * matching their new expiry.
+     */
+    private synchronized void tick() {
+        currentTick++;
+        Set<String> slot = wheel[(int) (currentTick % WHEEL_SIZE)];
+        long now = System.currentTimeMillis();
+        for (String token : slot) {
+            slot.remove(token);
+            Session session = sessions.get(token);
+            if (session == null) {
+                continue; // Already invalidated
+            }
+            if (now - session.lastAccessMillis >= idleTimeoutMillis) {
+                if (sessions.remove(token, session)) {
+                    evicted.incrementAndGet();
+                }
+            } else {
+                schedule(session);
+            }
+        }
+    }
+
+    /**
+     * Places a session in the wheel slot for the tick at which it will expire if
+     * it is not used again. Expiries further away than one turn of the wheel are
+     * placed in the last slot and rescheduled when it is reached.
+     *
+     * @param session the session to schedule.
+     */
+    private synchronized void schedule(Session session) {
+        long remaining = session.lastAccessMillis + idleTimeoutMillis - System.currentTimeMillis();
+        long ticks = Math.max(1, (remaining + tickMillis - 1) / tickMillis);
+        ticks = Math.min(ticks, WHEEL_SIZE - 1);
+        wheel[(int) ((currentTick + ticks) % WHEEL_SIZE)].add(session.token);
+    }
+}
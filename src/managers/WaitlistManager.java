@@ -0,0 +1,215 @@
+/**
+ * Keeps patients waiting for days on which a doctor is fully booked, and
+ * books freed time for them. AppointmentDB tells this manager whenever an
+ * appointment stops holding its time, so no job has to poll for cancellations.
+ * The freed time is offered to the patients waiting for that doctor and day in
+ * the order they joined, and the first one whose appointment fits is booked
+ * straight away.
+ */
+package managers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import appointments.Appointment;
+import appointments.AppointmentListener;
+import appointments.WaitlistEntry;
+import database.AppointmentDB;
+import database.WaitlistDB;
+
+public class WaitlistManager implements AppointmentListener {
+    private WaitlistDB waitlistDB;
+    private AppointmentManager appointmentManager;
+
+    // Metrics
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong filled = new AtomicLong();
+    private final AtomicLong totalFillNanos = new AtomicLong(); // From the time being freed to the booking
+    private final AtomicLong maxFillNanos = new AtomicLong();
+    private final AtomicLong totalWaitMinutes = new AtomicLong(); // From joining the waitlist to the booking
+
+    /**
+     * Constructs a WaitlistManager and registers it to hear about freed
+     * appointment time.
+     *
+     * @param waitlistDB         the database of waitlists.
+     * @param appointmentDB      the database of appointments.
+     * @param appointmentManager the manager used to book appointments.
+     */
+    public WaitlistManager(WaitlistDB waitlistDB, AppointmentDB appointmentDB,
+            AppointmentManager appointmentManager) {
+        this.waitlistDB = waitlistDB;
+        this.appointmentManager = appointmentManager;
+        appointmentDB.addListener(this);
+    }
+
+    /**
+     * Adds a patient to a doctor's waitlist for a day. Patients can only join
+     * the waitlist of a day with no open slots for the appointment they want.
+     *
+     * @param patientId       the ID of the patient.
+     * @param doctorId        the ID of the doctor.
+     * @param date            the day the patient wants an appointment on.
+     * @param durationMinutes the length of the appointment wanted, in minutes.
+     * @return true if the patient joined the waitlist, false otherwise.
+     */
+    public synchronized boolean joinWaitlist(String patientId, String doctorId, LocalDate date,
+            int durationMinutes) {
+        if (date.isBefore(LocalDate.now()) || !appointmentManager.isValidDoctorId(doctorId)
+                || !appointmentManager.isValidDuration(durationMinutes)) {
+            System.out.println("Invalid waitlist request.");
+            return false;
+        }
+        if (!appointmentManager.getAvailableSlotsForDoctor(doctorId, date, durationMinutes).isEmpty()) {
+            System.out.println("There are still open slots on " + date + ". Please book one of them instead.");
+            return false;
+        }
+        if (!waitlistDB.create(new WaitlistEntry(patientId, doctorId, date, durationMinutes,
+                LocalDateTime.now().withNano(0)))) {
+            System.out.println("You are already on the waitlist for " + date + ".");
+            return false;
+        }
+        joined.incrementAndGet();
+        System.out.println("Added to the waitlist for " + date + ". You are number "
+                + getWaitlistDepth(doctorId, date) + " in line.");
+        return true;
+    }
+
+    /**
+     * Booked time is not offered to anyone, so nothing needs to be done. This
+     * method must not lock the manager, as bookings made while backfilling
+     * call it while holding the booking lock.
+     *
+     * @param appointment the appointment that was booked.
+     */
+    @Override
+    public void slotBooked(Appointment appointment) {
+    }
+
+    /**
+     * Only freed time matters to the waitlists, so updates need nothing else.
+     * Like {@link #slotBooked(Appointment)}, this must not lock the manager.
+     *
+     * @param appointment the appointment that was updated.
+     */
+    @Override
+    public void appointmentUpdated(Appointment appointment) {
+    }
+
+    /**
+     * Offers freed time to the patients waiting for that doctor and day, in
+     * the order they joined. The first patient whose appointment fits in the
+     * freed time is booked and taken off the waitlist; the rest keep their
+     * place. The patient who gave up the time is not offered it back.
+     *
+     * @param appointment the appointment whose time was freed.
+     */
+    @Override
+    public synchronized void slotFreed(Appointment appointment) {
+        long freedAt = System.nanoTime();
+        LocalDate date = appointment.getAppointmentDate();
+        if (date.atTime(appointment.getAppointmentTime()).isBefore(LocalDateTime.now())) {
+            return;
+        }
+        for (WaitlistEntry entry : waitlistDB.getWaitlist(appointment.getDoctorId(), date)) {
+            if (entry.getPatientId().equals(appointment.getPatientId())
+                    || !appointmentManager.isSlotOpen(entry.getDoctorId(), date,
+                            appointment.getAppointmentTime(), entry.getDurationMinutes())) {
+                continue;
+            }
+            if (appointmentManager.scheduleAppointmentAt(entry.getPatientId(), entry.getDoctorId(), date,
+                    appointment.getAppointmentTime(), entry.getDurationMinutes())) {
+                waitlistDB.remove(entry);
+                recordFill(entry, System.nanoTime() - freedAt);
+                System.out.println("The freed slot on " + date + " at " + appointment.getAppointmentTime()
+                        + " was given to waitlisted patient " + entry.getPatientId() + ".");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of patients waiting across all waitlists.
+     *
+     * @return the total waitlist depth.
+     */
+    public synchronized int getWaitlistDepth() {
+        return waitlistDB.getDepth();
+    }
+
+    /**
+     * Gets the number of patients waiting for a doctor on a day.
+     *
+     * @param doctorId the ID of the doctor.
+     * @param date     the day.
+     * @return the depth of that waitlist.
+     */
+    public synchronized int getWaitlistDepth(String doctorId, LocalDate date) {
+        return waitlistDB.getWaitlist(doctorId, date).size();
+    }
+
+    /**
+     * Gets the number of times patients joined a waitlist.
+     *
+     * @return the number of joins.
+     */
+    public long getJoinedCount() {
+        return joined.get();
+    }
+
+    /**
+     * Gets the number of freed slots booked for waitlisted patients.
+     *
+     * @return the number of slots filled from waitlists.
+     */
+    public long getFilledCount() {
+        return filled.get();
+    }
+
+    /**
+     * Gets the average time from a slot being freed to it being booked for a
+     * waitlisted patient.
+     *
+     * @return the average fill latency in milliseconds, or 0 if no slot has
+     *         been filled.
+     */
+    public double getAverageFillLatencyMillis() {
+        long count = filled.get();
+        return count == 0 ? 0 : totalFillNanos.get() / 1_000_000.0 / count;
+    }
+
+    /**
+     * Gets the longest time from a slot being freed to it being booked for a
+     * waitlisted patient.
+     *
+     * @return the longest fill latency in milliseconds.
+     */
+    public double getMaxFillLatencyMillis() {
+        return maxFillNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Gets the average time patients spent on a waitlist before being booked.
+     *
+     * @return the average wait in minutes, or 0 if no slot has been filled.
+     */
+    public double getAverageWaitMinutes() {
+        long count = filled.get();
+        return count == 0 ? 0 : (double) totalWaitMinutes.get() / count;
+    }
+
+    /**
+     * Records a freed slot being filled from a waitlist.
+     *
+     * @param entry     the entry that was booked.
+     * @param fillNanos the time from the slot being freed to the booking.
+     */
+    private void recordFill(WaitlistEntry entry, long fillNanos) {
+        filled.incrementAndGet();
+        totalFillNanos.addAndGet(fillNanos);
+        maxFillNanos.accumulateAndGet(fillNanos, Math::max);
+        totalWaitMinutes.addAndGet(Duration.between(entry.getJoinedAt(), LocalDateTime.now()).toMinutes());
+    }
+}
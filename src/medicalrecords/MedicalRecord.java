@@ -299,6 +299,24 @@ public class MedicalRecord {
         return emailAddress;
     }
 
+    /**
+     * Gets the list of diagnoses for the patient.
+     *
+     * @return the list of diagnoses
+     */
+    public List<Diagnosis> getDiagnoses() {
+        return diagnoses;
+    }
+
+    /**
+     * Gets the list of treatments for the patient.
+     *
+     * @return the list of treatments
+     */
+    public List<Treatment> getTreatments() {
+        return treatments;
+    }
+
     /**
      * Gets the list of prescriptions for the patient.
      *
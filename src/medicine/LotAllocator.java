@@ -0,0 +1,232 @@
+package medicine;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The LotAllocator class keeps track of the lots held for each medicine and
+ * decides which lots a quantity should be drawn from. Lots are drawn first
+ * expiry, first out (FEFO), and expired lots are never drawn from. Lots are
+ * also kept in a single expiry-ordered index so that the lots expiring before a
+ * date can be found without scanning the whole inventory.
+ */
+public class LotAllocator {
+
+    // Orders lots by expiry date, breaking ties by medicine and lot number so
+    // that no two lots compare as equal
+    private static final Comparator<MedicineLot> EXPIRY_ORDER = Comparator.comparing(MedicineLot::getExpiryDate)
+            .thenComparing(MedicineLot::getMedicineId)
+            .thenComparing(MedicineLot::getLotNumber);
+
+    private Map<String, MedicineLot> lotsByNumber; // Lot number -> lot
+    private Map<String, TreeSet<MedicineLot>> lotsByMedicine; // Medicine ID -> lots in FEFO order
+    private TreeSet<MedicineLot> lotsByExpiry; // Every lot in expiry order
+    private Map<String, Integer> lottedQuantities; // Medicine ID -> total units held in lots
+
+    /**
+     * Constructs an empty LotAllocator.
+     */
+    public LotAllocator() {
+        this.lotsByNumber = new HashMap<>();
+        this.lotsByMedicine = new HashMap<>();
+        this.lotsByExpiry = new TreeSet<>(EXPIRY_ORDER);
+        this.lottedQuantities = new HashMap<>();
+    }
+
+    /**
+     * Adds a lot to the indexes.
+     *
+     * @param lot the lot to add
+     * @return true if the lot was added, false if its lot number is already in use
+     */
+    public boolean addLot(MedicineLot lot) {
+        if (lotsByNumber.containsKey(lot.getLotNumber())) {
+            return false;
+        }
+        lotsByNumber.put(lot.getLotNumber(), lot);
+        lotsByMedicine.computeIfAbsent(lot.getMedicineId(), key -> new TreeSet<>(EXPIRY_ORDER)).add(lot);
+        lotsByExpiry.add(lot);
+        lottedQuantities.merge(lot.getMedicineId(), lot.getQuantity(), Integer::sum);
+        return true;
+    }
+
+    /**
+     * Removes a lot from the indexes.
+     *
+     * @param lotNumber the lot number of the lot to remove
+     * @return the removed lot, or null if there is no lot with that number
+     */
+    public MedicineLot removeLot(String lotNumber) {
+        MedicineLot lot = lotsByNumber.remove(lotNumber);
+        if (lot == null) {
+            return null;
+        }
+        TreeSet<MedicineLot> medicineLots = lotsByMedicine.get(lot.getMedicineId());
+        medicineLots.remove(lot);
+        if (medicineLots.isEmpty()) {
+            lotsByMedicine.remove(lot.getMedicineId());
+        }
+        lotsByExpiry.remove(lot);
+        if (lotsByMedicine.containsKey(lot.getMedicineId())) {
+            lottedQuantities.merge(lot.getMedicineId(), -lot.getQuantity(), Integer::sum);
+        } else {
+            lottedQuantities.remove(lot.getMedicineId());
+        }
+        return lot;
+    }
+
+    /**
+     * Removes every lot of a medicine from the indexes.
+     *
+     * @param medicineId the ID of the medicine
+     * @return the removed lots
+     */
+    public List<MedicineLot> removeLotsForMedicine(String medicineId) {
+        List<MedicineLot> removed = getLots(medicineId);
+        for (MedicineLot lot : removed) {
+            removeLot(lot.getLotNumber());
+        }
+        return removed;
+    }
+
+    /**
+     * Retrieves a lot by its lot number.
+     *
+     * @param lotNumber the lot number
+     * @return the lot, or null if not found
+     */
+    public MedicineLot getLot(String lotNumber) {
+        return lotsByNumber.get(lotNumber);
+    }
+
+    /**
+     * Retrieves the lots of a medicine in the order they would be drawn from.
+     *
+     * @param medicineId the ID of the medicine
+     * @return the medicine's lots, earliest expiry first
+     */
+    public List<MedicineLot> getLots(String medicineId) {
+        TreeSet<MedicineLot> medicineLots = lotsByMedicine.get(medicineId);
+        return medicineLots == null ? new ArrayList<>() : new ArrayList<>(medicineLots);
+    }
+
+    /**
+     * Retrieves every lot, earliest expiry first.
+     *
+     * @return all lots in expiry order
+     */
+    public List<MedicineLot> getAllLots() {
+        return new ArrayList<>(lotsByExpiry);
+    }
+
+    /**
+     * Gets the total number of units of a medicine held in lots.
+     *
+     * @param medicineId the ID of the medicine
+     * @return the units held in lots
+     */
+    public int getLottedQuantity(String medicineId) {
+        return lottedQuantities.getOrDefault(medicineId, 0);
+    }
+
+    /**
+     * Gets the number of units of a medicine held in lots that have expired.
+     *
+     * @param medicineId the ID of the medicine
+     * @param today      the current date
+     * @return the expired units
+     */
+    public int getExpiredQuantity(String medicineId, LocalDate today) {
+        int expired = 0;
+        TreeSet<MedicineLot> medicineLots = lotsByMedicine.get(medicineId);
+        if (medicineLots != null) {
+            for (MedicineLot lot : medicineLots) {
+                if (!lot.isExpired(today)) {
+                    break; // Later lots expire later still
+                }
+                expired += lot.getQuantity();
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Retrieves the lots that expire before a date, earliest first.
+     *
+     * @param date the date to check against
+     * @return the lots expiring before the date
+     */
+    public List<MedicineLot> getLotsExpiringBefore(LocalDate date) {
+        MedicineLot bound = new MedicineLot("", "", 0, date); // Sorts before every real lot on that date
+        return new ArrayList<>(lotsByExpiry.headSet(bound, false));
+    }
+
+    /**
+     * Works out which lots a quantity of a medicine should be drawn from,
+     * earliest expiry first, skipping expired lots. No quantities are changed.
+     * If the lots hold fewer units than requested, the draws cover as much as
+     * they can and the rest must come from stock that is not tracked by lot.
+     *
+     * @param medicineId the ID of the medicine
+     * @param quantity   the number of units needed
+     * @param today      the current date
+     * @return the number of units to draw from each lot, in FEFO order
+     */
+    public Map<MedicineLot, Integer> allocate(String medicineId, int quantity, LocalDate today) {
+        Map<MedicineLot, Integer> draws = new LinkedHashMap<>();
+        TreeSet<MedicineLot> medicineLots = lotsByMedicine.get(medicineId);
+        if (medicineLots == null) {
+            return draws;
+        }
+        int remaining = quantity;
+        for (MedicineLot lot : medicineLots) {
+            if (remaining == 0) {
+                break;
+            }
+            if (lot.isExpired(today) || lot.getQuantity() == 0) {
+                continue;
+            }
+            int units = Math.min(remaining, lot.getQuantity());
+            draws.put(lot, units);
+            remaining -= units;
+        }
+        return draws;
+    }
+
+    /**
+     * Takes units out of a lot. A lot that is emptied is removed.
+     *
+     * @param lot   the lot to draw from
+     * @param units the number of units to take
+     */
+    public void draw(MedicineLot lot, int units) {
+        lot.setQuantity(lot.getQuantity() - units);
+        lottedQuantities.merge(lot.getMedicineId(), -units, Integer::sum);
+        if (lot.getQuantity() == 0) {
+            removeLot(lot.getLotNumber());
+        }
+    }
+
+    /**
+     * Puts units back into a lot, undoing an earlier draw. A lot that was
+     * emptied by the draw is added back.
+     *
+     * @param lot   the lot to return units to
+     * @param units the number of units to return
+     */
+    public void restore(MedicineLot lot, int units) {
+        if (lotsByNumber.get(lot.getLotNumber()) != lot) {
+            lot.setQuantity(units);
+            addLot(lot);
+            return;
+        }
+        lot.setQuantity(lot.getQuantity() + units);
+        lottedQuantities.merge(lot.getMedicineId(), units, Integer::sum);
+    }
+}
@@ -0,0 +1,115 @@
+package medicine;
+
+import java.time.LocalDate;
+
+/**
+ * The MedicineLot class represents a batch of a medicine received together,
+ * identified by a lot number and sharing a single expiry date.
+ */
+public class MedicineLot {
+    private String lotNumber; // Unique lot number printed on the batch
+    private String medicineId; // ID of the medicine in the batch
+    private int quantity; // Units remaining in the batch
+    private LocalDate expiryDate; // Date after which the batch must not be dispensed
+
+    /**
+     * Constructs a MedicineLot with the given details.
+     *
+     * @param lotNumber  the unique lot number of the batch
+     * @param medicineId the ID of the medicine in the batch
+     * @param quantity   the number of units in the batch
+     * @param expiryDate the expiry date of the batch
+     */
+    public MedicineLot(String lotNumber, String medicineId, int quantity, LocalDate expiryDate) {
+        this.lotNumber = lotNumber;
+        this.medicineId = medicineId;
+        this.quantity = quantity;
+        this.expiryDate = expiryDate;
+    }
+
+    /**
+     * Factory method to create a MedicineLot object from a CSV line.
+     *
+     * @param csvString a string in the format
+     *                  "lotNumber,medicineId,quantity,expiryDate"
+     * @return a new MedicineLot object created from the CSV line
+     * @throws IllegalArgumentException if the CSV format is invalid
+     */
+    public static MedicineLot fromCSV(String csvString) {
+        String[] parts = csvString.split(",");
+        if (parts.length == 4) {
+            String lotNumber = parts[0].trim();
+            String medicineId = parts[1].trim();
+            int quantity = Integer.parseInt(parts[2].trim());
+            LocalDate expiryDate = LocalDate.parse(parts[3].trim());
+
+            return new MedicineLot(lotNumber, medicineId, quantity, expiryDate);
+        }
+        throw new IllegalArgumentException("Invalid CSV format for MedicineLot: " + csvString);
+    }
+
+    /**
+     * Gets the lot number of the batch.
+     *
+     * @return the lot number
+     */
+    public String getLotNumber() {
+        return lotNumber;
+    }
+
+    /**
+     * Gets the ID of the medicine in the batch.
+     *
+     * @return the medicine ID
+     */
+    public String getMedicineId() {
+        return medicineId;
+    }
+
+    /**
+     * Gets the number of units remaining in the batch.
+     *
+     * @return the remaining quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the number of units remaining in the batch.
+     *
+     * @param quantity the new quantity
+     */
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the expiry date of the batch.
+     *
+     * @return the expiry date
+     */
+    public LocalDate getExpiryDate() {
+        return expiryDate;
+    }
+
+    /**
+     * Checks whether the batch has expired on the given date.
+     *
+     * @param date the date to check against
+     * @return true if the expiry date is before the given date, false otherwise
+     */
+    public boolean isExpired(LocalDate date) {
+        return expiryDate.isBefore(date);
+    }
+
+    /**
+     * Returns a string representation of the lot in CSV format.
+     *
+     * @return a string in the format "lotNumber,medicineId,quantity,expiryDate"
+     */
+    @Override
+    public String toString() {
+        return lotNumber + "," + medicineId + "," + quantity + "," + expiryDate;
+    }
+}
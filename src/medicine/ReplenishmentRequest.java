@@ -132,7 +132,7 @@ public class ReplenishmentRequest {
      * Displays all replenishment requests stored in the database.
      */
     public void displayAllRequests() {
-        List<ReplenishmentRequest> requests = replenishmentDB.getAll();
+        List<ReplenishmentRequest> requests = replenishmentDB.snapshot();
         if (requests.isEmpty()) {
             System.out.println("No replenishment requests have been submitted.");
         } else {
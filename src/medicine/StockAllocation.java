@@ -0,0 +1,60 @@
+package medicine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The StockAllocation class records the stock taken out of the inventory by a
+ * single dispense, including which lots the units came from, so that the
+ * dispense can be undone exactly.
+ */
+public class StockAllocation {
+    private Map<Medicine, Integer> quantities; // Total units taken from each medicine
+    private Map<MedicineLot, Integer> lotDraws; // Units taken from each lot
+
+    /**
+     * Constructs an empty StockAllocation.
+     */
+    public StockAllocation() {
+        this.quantities = new LinkedHashMap<>();
+        this.lotDraws = new LinkedHashMap<>();
+    }
+
+    /**
+     * Records units taken from a medicine.
+     *
+     * @param medicine the medicine
+     * @param units    the number of units taken
+     */
+    public void addQuantity(Medicine medicine, int units) {
+        quantities.merge(medicine, units, Integer::sum);
+    }
+
+    /**
+     * Records units taken from a lot.
+     *
+     * @param lot   the lot
+     * @param units the number of units taken
+     */
+    public void addLotDraw(MedicineLot lot, int units) {
+        lotDraws.merge(lot, units, Integer::sum);
+    }
+
+    /**
+     * Gets the total units taken from each medicine.
+     *
+     * @return the units taken, by medicine
+     */
+    public Map<Medicine, Integer> getQuantities() {
+        return quantities;
+    }
+
+    /**
+     * Gets the units taken from each lot.
+     *
+     * @return the units taken, by lot
+     */
+    public Map<MedicineLot, Integer> getLotDraws() {
+        return lotDraws;
+    }
+}
@@ -0,0 +1,25 @@
+package medicine;
+
+/**
+ * The StockLevelListener interface is implemented by classes that want to be
+ * notified when a medicine's stock level crosses its low stock alert
+ * threshold.
+ */
+public interface StockLevelListener {
+
+    /**
+     * Called when a medicine's stock level drops to or below its low stock
+     * alert level.
+     *
+     * @param medicine the medicine that is now low on stock
+     */
+    void onStockLow(Medicine medicine);
+
+    /**
+     * Called when a medicine's stock level rises back above its low stock alert
+     * level.
+     *
+     * @param medicine the medicine that is no longer low on stock
+     */
+    void onStockRestored(Medicine medicine);
+}
@@ -0,0 +1,103 @@
+package medicine;
+
+import java.time.LocalDateTime;
+
+/**
+ * The StockMovement class represents a single change to a medicine's stock
+ * level, as recorded in the stock ledger.
+ */
+public class StockMovement {
+
+    /**
+     * The reasons a medicine's stock level can change.
+     */
+    public enum Reason {
+        DISPENSED, RETURNED, REPLENISHED, LOT_RECEIVED, LOT_EXPIRED, ADJUSTED, REMOVED
+    }
+
+    private LocalDateTime timestamp; // When the change happened
+    private String medicineId; // ID of the medicine whose stock changed
+    private int delta; // Change in the stock level; negative when stock was taken out
+    private Reason reason; // Why the stock level changed
+
+    /**
+     * Constructs a StockMovement with the given details.
+     *
+     * @param timestamp  when the change happened
+     * @param medicineId the ID of the medicine whose stock changed
+     * @param delta      the change in the stock level
+     * @param reason     why the stock level changed
+     */
+    public StockMovement(LocalDateTime timestamp, String medicineId, int delta, Reason reason) {
+        this.timestamp = timestamp;
+        this.medicineId = medicineId;
+        this.delta = delta;
+        this.reason = reason;
+    }
+
+    /**
+     * Factory method to create a StockMovement object from a CSV line.
+     *
+     * @param csvString a string in the format "timestamp,medicineId,delta,reason"
+     * @return a new StockMovement object created from the CSV line
+     * @throws IllegalArgumentException if the CSV format is invalid
+     */
+    public static StockMovement fromCSV(String csvString) {
+        String[] parts = csvString.split(",");
+        if (parts.length == 4) {
+            LocalDateTime timestamp = LocalDateTime.parse(parts[0].trim());
+            String medicineId = parts[1].trim();
+            int delta = Integer.parseInt(parts[2].trim());
+            Reason reason = Reason.valueOf(parts[3].trim());
+
+            return new StockMovement(timestamp, medicineId, delta, reason);
+        }
+        throw new IllegalArgumentException("Invalid CSV format for StockMovement: " + csvString);
+    }
+
+    /**
+     * Gets the time the change happened.
+     *
+     * @return the timestamp
+     */
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the ID of the medicine whose stock changed.
+     *
+     * @return the medicine ID
+     */
+    public String getMedicineId() {
+        return medicineId;
+    }
+
+    /**
+     * Gets the change in the stock level.
+     *
+     * @return the change, negative when stock was taken out
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Gets the reason the stock level changed.
+     *
+     * @return the reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns a string representation of the movement in CSV format.
+     *
+     * @return a string in the format "timestamp,medicineId,delta,reason"
+     */
+    @Override
+    public String toString() {
+        return timestamp + "," + medicineId + "," + delta + "," + reason;
+    }
+}
@@ -5,17 +5,33 @@
  */
 package menus;
 
+import appointments.AllocationRequest;
+import appointments.AllocationResult;
 import database.UserDB;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 import managers.AppointmentManager;
+import managers.CredentialManager;
 import managers.InventoryManager;
+import managers.LoginRateLimiter;
+import managers.ReminderService;
+import managers.SessionManager;
+import managers.WaitlistManager;
 import medicine.Medicine;
+import medicine.MedicineLot;
 import medicine.ReplenishmentRequest;
+import medicine.StockMovement;
 import menus.utils.ValidationUtils;
 import users.Administrator;
 import users.Doctor;
+import users.PasswordHasher;
 import users.Pharmacist;
 import users.User;
 
@@ -30,7 +46,12 @@ public class AdministratorMenu {
     private InventoryManager inventory;
     private Scanner scanner;
     private AppointmentManager appointmentManager;
-
+    private WaitlistManager waitlistManager;
+    private CredentialManager credentialManager;
+    private LoginRateLimiter loginRateLimiter;
+    private ReminderService reminderService;
+    private SessionManager sessionManager;
+    private String token; // The session this menu acts for
     /**
      * Constructs an AdministratorMenu with the specified administrator, user
      * database, inventory, and appointment manager.
@@ -39,13 +60,27 @@ public class AdministratorMenu {
      * @param userDB the database of users
      * @param inventory the inventory of medicines
      * @param appointmentManager the manager handling appointments
+     * @param waitlistManager the manager backfilling cancelled appointments
+     * @param credentialManager the manager verifying passwords
+     * @param loginRateLimiter the limiter throttling login attempts
+     * @param reminderService the service sending appointment reminders
+     * @param sessionManager the manager holding the administrator's session
+     * @param token the administrator's session token
      */
     public AdministratorMenu(Administrator administrator, UserDB userDB, InventoryManager inventory,
-            AppointmentManager appointmentManager) {
+            AppointmentManager appointmentManager, WaitlistManager waitlistManager,
+            CredentialManager credentialManager, LoginRateLimiter loginRateLimiter,
+            ReminderService reminderService, SessionManager sessionManager, String token) {
         this.administrator = administrator;
         this.userDB = userDB;
         this.inventory = inventory;
         this.appointmentManager = appointmentManager;
+        this.waitlistManager = waitlistManager;
+        this.credentialManager = credentialManager;
+        this.loginRateLimiter = loginRateLimiter;
+        this.reminderService = reminderService;
+        this.sessionManager = sessionManager;
+        this.token = token;
         this.scanner = new Scanner(System.in);
     }
 
@@ -59,10 +94,13 @@ public class AdministratorMenu {
             System.out.println("\n=== Administrator Menu ===");
             System.out.println("1. View, Add, or Remove Hospital Staff");
             System.out.println("2. View Appointment Details");
-            System.out.println("3. View, Add, or Remove Medication Inventory");
-            System.out.println("4. Approve Replenishment Requests");
-            System.out.println("5. Change Password");
-            System.out.println("6. Logout");
+            System.out.println("3. Allocate Campaign Appointments");
+            System.out.println("4. View, Add, or Remove Medication Inventory");
+            System.out.println("5. Approve Replenishment Requests");
+            System.out.println("6. View Login Metrics");
+            System.out.println("7. View Reminder Metrics");
+            System.out.println("8. Change Password");
+            System.out.println("9. Logout");
             System.out.print("Enter your choice: ");
 
             while (!scanner.hasNextInt()) {
@@ -72,6 +110,12 @@ public class AdministratorMenu {
             choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
+            // Check the session before every action, so it can expire while the user is logged in
+            if (!sessionManager.isAuthorized(token, SessionManager.Role.ADMINISTRATOR)) {
+                System.out.println("Your session is invalid or has expired. Logging out.");
+                return;
+            }
+
             switch (choice) {
                 case 1:
                     manageStaff();
@@ -80,21 +124,30 @@ public class AdministratorMenu {
                     viewAppointmentsDetails();
                     break;
                 case 3:
-                    manageInventory();
+                    allocateCampaignAppointments();
                     break;
                 case 4:
-                    approveReplenishmentRequests();
+                    manageInventory();
                     break;
                 case 5:
-                    changePassword();
+                    approveReplenishmentRequests();
                     break;
                 case 6:
+                    viewLoginMetrics();
+                    break;
+                case 7:
+                    viewReminderMetrics();
+                    break;
+                case 8:
+                    changePassword();
+                    break;
+                case 9:
                     System.out.println("Logging out...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 6);
+        } while (choice != 9);
     }
 
     /**
@@ -103,13 +156,11 @@ public class AdministratorMenu {
      */
     private void manageStaff() {
         System.out.println("\n=== Hospital Staff ===");
-        userDB.getAll().forEach(user -> {
-            if (user.getRole().equalsIgnoreCase("Doctor")
-                    || user.getRole().equalsIgnoreCase("Pharmacist")
-                    || user.getRole().equalsIgnoreCase("Administrator")) {
-                System.out.println("ID: " + user.getId() + ", Name: " + user.getName() + ", Role: " + user.getRole());
-            }
-        });
+        List<User> staff = new ArrayList<>(userDB.getAllDoctors());
+        staff.addAll(userDB.getAllPharmacists());
+        staff.addAll(userDB.getAllAdministrators());
+        staff.forEach(user -> System.out
+                .println("ID: " + user.getId() + ", Name: " + user.getName() + ", Role: " + user.getRole()));
 
         System.out.println("\nSelect an action:");
         System.out.println("1. Add New Staff Member");
@@ -146,7 +197,7 @@ public class AdministratorMenu {
         System.out.print("Role (Doctor/Pharmacist/Administrator): ");
         String role = scanner.nextLine().trim();
         System.out.print("Password: ");
-        String password = scanner.nextLine().trim();
+        String password = PasswordHasher.hash(scanner.nextLine().trim()); // Only the hash is stored
         System.out.print("Phone Number: ");
         String phoneNumber = scanner.nextLine().trim();
         System.out.print("Email Address: ");
@@ -203,7 +254,8 @@ public class AdministratorMenu {
     }
 
     /**
-     * Displays all appointment details from the appointment manager.
+     * Displays all appointment details from the appointment manager, followed
+     * by how the waitlists are doing.
      */
     public void viewAppointmentsDetails() {
         System.out.println("=== Viewing All Appointments ===");
@@ -215,6 +267,52 @@ public class AdministratorMenu {
                 System.out.println(appointment);
             }
         }
+
+        System.out.println("=== Waitlists ===");
+        System.out.println("Patients waiting: " + waitlistManager.getWaitlistDepth());
+        System.out.println("Waitlist joins: " + waitlistManager.getJoinedCount());
+        System.out.println("Slots filled from waitlists: " + waitlistManager.getFilledCount());
+        System.out.printf("Average fill latency: %.2f ms (longest %.2f ms)%n",
+                waitlistManager.getAverageFillLatencyMillis(), waitlistManager.getMaxFillLatencyMillis());
+        System.out.printf("Average wait before booking: %.1f minutes%n", waitlistManager.getAverageWaitMinutes());
+    }
+
+    /**
+     * Books appointments for a campaign from a CSV file of patient requests.
+     * Each line holds "PatientID,EarliestDate,LatestDate,DurationMinutes" and
+     * optionally the preferred doctor IDs separated by "|"; a header line
+     * starting with "PatientID" is skipped.
+     */
+    private void allocateCampaignAppointments() {
+        System.out.print("Enter the path of the request file: ");
+        String path = scanner.nextLine().trim();
+
+        List<AllocationRequest> requests = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Paths.get(path))) {
+                if (line.trim().isEmpty() || line.startsWith("PatientID")) {
+                    continue;
+                }
+                try {
+                    requests.add(AllocationRequest.fromCSV(line));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    System.out.println("Invalid line skipped: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not read " + path + ": " + e.getMessage());
+            return;
+        }
+        if (requests.isEmpty()) {
+            System.out.println("No requests to allocate.");
+            return;
+        }
+
+        AllocationResult result = appointmentManager.allocateAppointments(requests);
+        System.out.println(result.getBooked().size() + " of " + requests.size() + " requests were booked.");
+        for (AllocationRequest request : result.getUnallocated()) {
+            System.out.println("Not booked: " + request);
+        }
     }
 
     /**
@@ -227,7 +325,10 @@ public class AdministratorMenu {
         System.out.println("\nSelect an action:");
         System.out.println("1. Add New Medication");
         System.out.println("2. Remove Medication");
-        System.out.println("3. Go Back");
+        System.out.println("3. Receive Medication Lot");
+        System.out.println("4. View Expiring Lots");
+        System.out.println("5. View Stock History");
+        System.out.println("6. Go Back");
         System.out.print("Enter your choice: ");
 
         int action = getIntInput("");
@@ -240,6 +341,15 @@ public class AdministratorMenu {
                 removeMedication();
                 break;
             case 3:
+                receiveMedicationLot();
+                break;
+            case 4:
+                viewExpiringLots();
+                break;
+            case 5:
+                viewStockHistory();
+                break;
+            case 6:
                 System.out.println("Returning to main menu...");
                 break;
             default:
@@ -285,45 +395,163 @@ public class AdministratorMenu {
     }
 
     /**
-     * Approves replenishment requests by processing and removing them from the
-     * database.
+     * Receives a new lot of an existing medication into the inventory.
      */
-    private void approveReplenishmentRequests() {
-        List<ReplenishmentRequest> requests = inventory.getReplenishmentRequests();
-        if (requests.isEmpty()) {
-            System.out.println("No replenishment requests to approve.");
+    private void receiveMedicationLot() {
+        System.out.print("\nEnter the ID of the medication received: ");
+        String medicineId = scanner.nextLine().trim();
+        if (inventory.getMedicineById(medicineId) == null) {
+            return;
+        }
+        System.out.print("Lot Number: ");
+        String lotNumber = scanner.nextLine().trim();
+        if (lotNumber.isEmpty() || lotNumber.contains(",")) {
+            System.out.println("Invalid lot number.");
+            return;
+        }
+        int quantity = getIntInput("Quantity: ");
+        System.out.print("Expiry Date (YYYY-MM-DD): ");
+        LocalDate expiryDate;
+        try {
+            expiryDate = LocalDate.parse(scanner.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format.");
+            return;
+        }
+
+        if (inventory.receiveLot(new MedicineLot(lotNumber, medicineId, quantity, expiryDate))) {
+            System.out.println("Lot " + lotNumber + " received successfully.");
         } else {
-            for (ReplenishmentRequest request : requests) {
-                String medicineId = request.getMedicineId();
-                Medicine medicine = inventory.getMedicineById(medicineId);
+            System.out.println("Failed to receive lot " + lotNumber + ".");
+        }
+    }
 
-                if (medicine == null) {
-                    System.out.println("Medicine with ID " + medicineId + " not found.");
-                    continue;
-                }
+    /**
+     * Displays the lots that have expired or will expire soon, and offers to
+     * dispose of the expired ones.
+     */
+    private void viewExpiringLots() {
+        int days = getIntInput("\nShow lots expiring within how many days? ");
+        List<MedicineLot> lots = inventory.getLotsExpiringWithin(Math.max(0, days));
+        if (lots.isEmpty()) {
+            System.out.println("No lots expire within " + days + " days.");
+            return;
+        }
 
-                int currentStock = medicine.getStockLevel();
-                int lowStockLevel = medicine.getLowStockLevelAlert();
+        LocalDate today = LocalDate.now();
+        boolean hasExpired = false;
+        System.out.println("=== Expiring Lots ===");
+        for (MedicineLot lot : lots) {
+            boolean expired = lot.isExpired(today);
+            hasExpired |= expired;
+            System.out.println("Lot: " + lot.getLotNumber() + ", Medicine ID: " + lot.getMedicineId()
+                    + ", Quantity: " + lot.getQuantity() + ", Expiry Date: " + lot.getExpiryDate()
+                    + (expired ? " (EXPIRED)" : ""));
+        }
 
-                // Only update the stock if current stock is below the low stock level
-                if (currentStock < lowStockLevel) {
-                    inventory.increaseStock(medicineId, request.getQuantity());
-                    System.out.println("Stock for " + medicineId + ": " + medicine.getName() + " increased by " + request.getQuantity() + " units.");
+        if (hasExpired) {
+            System.out.print("Dispose of all expired lots? (Y/N): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+                List<MedicineLot> disposed = inventory.disposeExpiredLots();
+                if (disposed == null) {
+                    System.out.println("Failed to dispose of expired lots. No changes were made.");
                 } else {
-                    System.out.println("Stock for " + medicineId + ": " + medicine.getName() + " sufficient. No replenishment needed.");
+                    System.out.println(disposed.size() + " expired lot(s) disposed of.");
                 }
+            }
+        }
+    }
 
-                // Remove the request in all cases
-                boolean removed = inventory.removeReplenishmentRequest(medicineId);
-                if (removed) {
-                    inventory.saveReplenishmentRequests();
-                } else {
-                    System.out.println("Failed to remove the replenishment request for " + medicineId + ".");
-                }
+    /**
+     * Displays a medication's stock level at the end of a past day, along with
+     * the stock movements recorded on that day.
+     */
+    private void viewStockHistory() {
+        System.out.print("\nEnter the ID of the medication: ");
+        String medicineId = scanner.nextLine().trim();
+        System.out.print("Date (YYYY-MM-DD): ");
+        LocalDate date;
+        try {
+            date = LocalDate.parse(scanner.nextLine().trim());
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format.");
+            return;
+        }
+
+        Integer stockLevel = inventory.getStockAt(medicineId, date.atTime(LocalTime.MAX));
+        if (stockLevel == null) {
+            System.out.println("No stock history for " + medicineId + " on " + date + ".");
+            return;
+        }
+        System.out.println("Stock level of " + medicineId + " at the end of " + date + ": " + stockLevel);
+
+        List<StockMovement> movements = inventory.getStockMovements(medicineId, date.atStartOfDay(),
+                date.atTime(LocalTime.MAX));
+        if (movements.isEmpty()) {
+            System.out.println("No stock movements on " + date + ".");
+        } else {
+            System.out.println("=== Stock Movements ===");
+            for (StockMovement movement : movements) {
+                System.out.println(movement.getTimestamp().toLocalTime() + " " + movement.getReason() + " "
+                        + (movement.getDelta() > 0 ? "+" : "") + movement.getDelta());
             }
         }
     }
 
+    /**
+     * Approves all replenishment requests at once, adding the requested
+     * quantities to the stock and removing the requests from the database.
+     */
+    private void approveReplenishmentRequests() {
+        if (inventory.getReplenishmentRequests().isEmpty()) {
+            System.out.println("No replenishment requests to approve.");
+            return;
+        }
+
+        List<ReplenishmentRequest> approved = inventory.approveAllReplenishmentRequests();
+        if (approved == null) {
+            System.out.println("Failed to approve replenishment requests. No changes were made.");
+            return;
+        }
+        for (ReplenishmentRequest request : approved) {
+            Medicine medicine = inventory.getMedicineById(request.getMedicineId());
+            System.out.println("Stock for " + request.getMedicineId() + ": " + medicine.getName() + " increased by "
+                    + request.getQuantity() + " units.");
+        }
+    }
+
+    /**
+     * Displays the password verification metrics.
+     */
+    private void viewLoginMetrics() {
+        System.out.println("=== Login Metrics ===");
+        System.out.println("Successful verifications: " + credentialManager.getVerifiedCount());
+        System.out.println("Failed verifications: " + credentialManager.getFailedCount());
+        System.out.println("Rejected (queue full): " + credentialManager.getRejectedCount());
+        System.out.println("Timed out: " + credentialManager.getTimedOutCount());
+        System.out.println("Passwords migrated to hashes: " + credentialManager.getMigratedCount());
+        System.out.println("Queue depth: " + credentialManager.getQueueDepth());
+        System.out.println("Active workers: " + credentialManager.getActiveWorkers());
+        System.out.printf("Average verification time: %.1f ms%n", credentialManager.getAverageVerificationMillis());
+        System.out.println("Attempts allowed by rate limiter: " + loginRateLimiter.getAllowedCount());
+        System.out.println("Throttled (per user ID): " + loginRateLimiter.getRejectedByUserCount());
+        System.out.println("Throttled (per origin): " + loginRateLimiter.getRejectedByOriginCount());
+        System.out.println("Rejected (rate limiter full): " + loginRateLimiter.getRejectedWhileFullCount());
+        System.out.println("Tracked users and origins: " + loginRateLimiter.getTrackedCount());
+        System.out.println("Evicted rate limit entries: " + loginRateLimiter.getEvictedCount());
+    }
+
+    /**
+     * Displays the appointment reminder metrics.
+     */
+    private void viewReminderMetrics() {
+        System.out.println("=== Reminder Metrics ===");
+        System.out.println("Reminders scheduled: " + reminderService.getScheduledCount());
+        System.out.println("Reminders delivered: " + reminderService.getDeliveredCount());
+        System.out.println("Reminders cancelled: " + reminderService.getCancelledCount());
+        System.out.println("Reminders pending: " + reminderService.getPendingCount());
+    }
+
     /**
      * Changes the administrator's password.
      */
@@ -4,20 +4,25 @@ import java.time.DayOfWeek;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import appointments.AppointmentOutcomeRecord;
 import appointments.DoctorUnavailableSlots;
+import appointments.ScheduleTemplateEntry;
 import database.DoctorUnavailabilityDB;
 import managers.AppointmentManager;
 import managers.AppointmentOutcomeManager;
 import managers.MedicalRecordManager;
+import managers.SearchManager;
+import managers.SessionManager;
 import database.UserDB;
 import medicalrecords.Diagnosis;
 import medicalrecords.MedicalRecord;
@@ -38,6 +43,9 @@ public class DoctorMenu {
     private AppointmentOutcomeManager appointmentOutcomeManager;
     private DoctorUnavailabilityDB doctorUnavailabilityDB;
     private MedicalRecordManager medicalRecordManager;
+    private SearchManager searchManager;
+    private SessionManager sessionManager;
+    private String token; // The session this menu acts for
     private UserDB userDB;
 
     /**
@@ -47,18 +55,25 @@ public class DoctorMenu {
      * @param appointmentManager    The AppointmentManager to handle appointments.
      * @param appointmentOutcomeManager The AppointmentOutcomeManager for handling appointment outcomes.
      * @param medicalRecordManager The MedicalRecordManager to manage patient medical records.
+     * @param searchManager         The SearchManager used to search patient records.
      * @param doctorUnavailabilityDB The DoctorUnavailabilityDB to manage doctor unavailability slots.
      * @param userDB                The UserDB for handling user information.
+     * @param sessionManager        The SessionManager holding the doctor's session.
+     * @param token                 The doctor's session token.
      */
     public DoctorMenu(Doctor doctor, AppointmentManager appointmentManager, AppointmentOutcomeManager appointmentOutcomeManager,
-        MedicalRecordManager medicalRecordManager, DoctorUnavailabilityDB doctorUnavailabilityDB, UserDB userDB) {
+        MedicalRecordManager medicalRecordManager, SearchManager searchManager, DoctorUnavailabilityDB doctorUnavailabilityDB,
+        UserDB userDB, SessionManager sessionManager, String token) {
         this.doctor = doctor;
         this.scanner = new Scanner(System.in);
         this.appointmentManager = appointmentManager;
         this.appointmentOutcomeManager = appointmentOutcomeManager;
         this.medicalRecordManager = medicalRecordManager;
+        this.searchManager = searchManager;
         this.doctorUnavailabilityDB = doctorUnavailabilityDB;
         this.userDB = userDB;
+        this.sessionManager = sessionManager;
+        this.token = token;
     }
 
     /**
@@ -75,8 +90,12 @@ public class DoctorMenu {
             System.out.println("5. Confirm or Cancel Appointment Requests");
             System.out.println("6. View Upcoming Appointments");
             System.out.println("7. Record Appointment Outcome");
-            System.out.println("8. Change Password");
-            System.out.println("9. Logout");
+            System.out.println("8. Search Patient Records");
+            System.out.println("9. Set Leave");
+            System.out.println("10. Cancel Leave or Unavailability");
+            System.out.println("11. Set Weekly Working Hours");
+            System.out.println("12. Change Password");
+            System.out.println("13. Logout");
             System.out.print("Enter the number corresponding to your choice: ");
 
             while (!scanner.hasNextInt()) {
@@ -87,6 +106,12 @@ public class DoctorMenu {
             scanner.nextLine(); // Consume newline
             System.out.println(); // Add a line break for spacing
 
+            // Check the session before every action, so it can expire while the user is logged in
+            if (!sessionManager.isAuthorized(token, SessionManager.Role.DOCTOR)) {
+                System.out.println("Your session is invalid or has expired. Logging out.");
+                return;
+            }
+
             switch (choice) {
                 case 1:
                     viewPatientMedicalRecords();
@@ -110,43 +135,47 @@ public class DoctorMenu {
                     recordAppointmentOutcome();
                     break;
                 case 8:
-                    changePassword();
+                    searchPatientRecords();
                     break;
                 case 9:
+                    setLeave();
+                    break;
+                case 10:
+                    cancelLeave();
+                    break;
+                case 11:
+                    setWeeklyWorkingHours();
+                    break;
+                case 12:
+                    changePassword();
+                    break;
+                case 13:
                     System.out.println("Logging out...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 9);
+        } while (choice != 13);
     }
 
     /**
      * Allows the doctor to view a patient's medical record by entering the patient's ID
      */
     private void viewPatientMedicalRecords() {
-        String patientId, medicalHistory, patientIdFromAppointment;
-        List<String> patientList, patientIds;
-        String[] patienttDetails;
+        String patientId, medicalHistory;
 
         System.out.println("Patients under your care:");
-        patientList = appointmentManager.getDoctorAppointments(doctor.getId(), "Confirmed");
+        Set<String> patientIds = appointmentManager.getPatientsUnderCare(doctor.getId());
 
-        if (patientList.isEmpty() || patientList == null){
+        if (patientIds.isEmpty()){
             System.out.println("You have no patients under your care.\nExiting to Doctor Menu...");
             return;
         }
 
-        // Display the list of patients the doctor is seeing based on the appointment list
-        patientIds = new ArrayList<>();
-        for (String patient : patientList) {
-            patienttDetails = patient.split(",");
-            patientIdFromAppointment = patienttDetails[2];
-
-            if (!patientIds.contains(patientIdFromAppointment)) {
-                patientIds.add(patientIdFromAppointment);
-                System.out.println("Patient Name: " + userDB.getById(patientIdFromAppointment).getName() + "\t\t[" + patientIdFromAppointment + "]");
-            }
+        // Display the list of patients the doctor is seeing based on the care index
+        for (String patientIdUnderCare : patientIds) {
+            System.out.println("Patient Name: " + userDB.getById(patientIdUnderCare).getName() + "\t\t[" + patientIdUnderCare
+                    + "]\tLast visit: " + appointmentManager.getLastVisitDate(doctor.getId(), patientIdUnderCare));
         }
 
         while(true){
@@ -158,7 +187,7 @@ public class DoctorMenu {
                 return;
             }
 
-            if (!patientId.contains(patientId)) {
+            if (!appointmentManager.isPatientUnderCare(doctor.getId(), patientId)) {
                 System.out.println("Invalid patient ID or the patient is not under your care.");
                 continue;
             }
@@ -185,7 +214,12 @@ public class DoctorMenu {
         boolean updated = false;
 
         System.out.print("Enter the patient ID to update their medical record: ");
-        patientId = scanner.nextLine();
+        patientId = scanner.nextLine().trim();
+
+        if (!appointmentManager.isPatientUnderCare(doctor.getId(), patientId)) {
+            System.out.println("Invalid patient ID or the patient is not under your care.");
+            return;
+        }
 
         /* Diagnosis */
         String severity;
@@ -383,13 +417,18 @@ public class DoctorMenu {
             }
         }
 
+        int slotMinutes = appointmentManager.getSlotMinutes();
         Map<String, String> appointmentMap = new HashMap<>();
         for (String appointment : filteredAppointments) {
             String[] parts = appointment.split(",");
-            String appointmentTime = parts[4];  // Time at index 4
+            LocalTime appointmentTime = LocalTime.parse(parts[4]);  // Time at index 4
             String patientId = parts[2];        // Patient id at index 2
+            int duration = Integer.parseInt(parts[6]); // Length in minutes at index 6
             String patientName = userDB.getById(patientId).getName();
-            appointmentMap.put(appointmentTime, "Appointment with " + patientName);
+            // Mark every slot the appointment covers
+            for (int minute = 0; minute < duration; minute += slotMinutes) {
+                appointmentMap.put(appointmentTime.plusMinutes(minute).toString(), "Appointment with " + patientName);
+            }
         }
 
         if (scheduleList == null) {
@@ -399,19 +438,12 @@ public class DoctorMenu {
         else if (scheduleList.isEmpty()) {
             System.out.println("It is your day off.");
         } else {
-            previousTime = scheduleList.get(0);
-            currentTime = LocalTime.parse(previousTime, DateTimeFormatter.ofPattern("HH:mm")).plusHours(1)
-                    .format(DateTimeFormatter.ofPattern("HH:mm"));
-            appointmentDetails = appointmentMap.getOrDefault(previousTime, "");
-            System.out.printf("%s - %s\t%s%n", previousTime, currentTime, appointmentDetails);
-
-            if (scheduleList.size() > 1) {
-                for (int i = 1; i < scheduleList.size() - 1; i++) {
-                    previousTime = scheduleList.get(i);
-                    currentTime = scheduleList.get(i + 1);
-                    appointmentDetails = appointmentMap.getOrDefault(previousTime, "");
-                    System.out.printf("%s - %s\t%s%n", previousTime, currentTime, appointmentDetails);
-                }
+            for (String slot : scheduleList) {
+                previousTime = slot;
+                currentTime = LocalTime.parse(previousTime, DateTimeFormatter.ofPattern("HH:mm"))
+                        .plusMinutes(slotMinutes).format(DateTimeFormatter.ofPattern("HH:mm"));
+                appointmentDetails = appointmentMap.getOrDefault(previousTime, "");
+                System.out.printf("%s - %s\t%s%n", previousTime, currentTime, appointmentDetails);
             }
         }
     }
@@ -423,7 +455,7 @@ public class DoctorMenu {
         boolean validTimeRange = false;
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HHmm");
         LocalDate selectedDate;
-        LocalTime roundedStartTime, roundedEndTime, currenTime, nextTime, unavailabilityStart, unavailabilityEnd;
+        LocalTime roundedStartTime, roundedEndTime;
         String startTimeStr, endTimeStr;
         List<String> appointments, selectedDayOfAppointment;
 
@@ -439,9 +471,12 @@ public class DoctorMenu {
         viewPersonalSchedule(selectedDate);
         scanner.nextLine();// Consume newline
 
-        appointments = appointmentManager.getDoctorAppointments(doctor.getId(), "Confirmed");
+        // Pending requests count too, or they could be confirmed into the unavailable time
+        appointments = appointmentManager.getDoctorAppointments(doctor.getId(), "All");
 
         selectedDayOfAppointment = appointments.stream().filter(appointment -> LocalDate.parse(appointment.split(",")[3]).equals(selectedDate))
+                                                        .filter(appointment -> appointment.split(",")[5].equalsIgnoreCase("Confirmed")
+                                                                || appointment.split(",")[5].equalsIgnoreCase("Pending"))
                                                         .collect(Collectors.toList());
  
         while (!validTimeRange) {
@@ -472,44 +507,264 @@ public class DoctorMenu {
                 continue;
             }
 
-            roundedStartTime = LocalTime.parse(startTimeStr).truncatedTo(ChronoUnit.HOURS);
-            if (LocalTime.parse(startTimeStr).getMinute() >= 1) {
-                roundedStartTime = roundedStartTime.plusHours(1);
-            }
-
-            roundedEndTime = LocalTime.parse(endTimeStr).truncatedTo(ChronoUnit.HOURS);
-            if (LocalTime.parse(endTimeStr).getMinute() >= 1) {
-                roundedEndTime = roundedEndTime.plusHours(1);
+            roundedStartTime = roundUpToSlot(LocalTime.parse(startTimeStr));
+            roundedEndTime = roundUpToSlot(LocalTime.parse(endTimeStr));
+            if (!roundedEndTime.isAfter(roundedStartTime)) {
+                System.out.println("The time range does not cover a whole slot. Please enter a longer range.");
+                continue;
             }
 
             validTimeRange = true;
             for (String appointment : selectedDayOfAppointment){
                 String[] appointmentDetails = appointment.split(",");
                 LocalTime appointmentStartTime = LocalTime.parse(appointmentDetails[4]);
-                LocalTime appointmentEndTime = appointmentStartTime.plusHours(1);
+                LocalTime appointmentEndTime = appointmentStartTime.plusMinutes(Integer.parseInt(appointmentDetails[6]));
 
-                if (roundedStartTime.equals(appointmentStartTime) && roundedEndTime.equals(appointmentEndTime) ||
-                    roundedStartTime.isBefore(appointmentStartTime) && roundedEndTime.isBefore(appointmentEndTime) ||
-                    roundedStartTime.isAfter(appointmentStartTime) && roundedEndTime.isBefore(appointmentEndTime) || 
-                    roundedStartTime.equals(appointmentStartTime) && roundedEndTime.isAfter(appointmentEndTime)){
-                        System.out.println("Warning: The unavailability period overlaps with an exisiting appointment from " + appointmentStartTime + " to " + appointmentEndTime + ". Please choose another time range.");
+                if (roundedStartTime.isBefore(appointmentEndTime) && roundedEndTime.isAfter(appointmentStartTime)){
+                        String kind = appointmentDetails[5].equalsIgnoreCase("Pending") ? "a pending appointment request" : "an exisiting appointment";
+                        System.out.println("Warning: The unavailability period overlaps with " + kind + " from " + appointmentStartTime + " to " + appointmentEndTime + ". Please choose another time range.");
                         validTimeRange = false;
                         break;
                 }
             }
         }
 
-        currenTime = roundedStartTime;
-        while (currenTime.isBefore(roundedEndTime)) {
-            nextTime = currenTime.plusHours(1);
-            DoctorUnavailableSlots doctorUnavailableSlots = new DoctorUnavailableSlots(doctor.getId(), selectedDate,
-                    currenTime);
-            doctorUnavailabilityDB.create(doctorUnavailableSlots);
+        DoctorUnavailableSlots doctorUnavailableSlots = new DoctorUnavailableSlots(doctor.getId(),
+                selectedDate.atTime(roundedStartTime), selectedDate.atTime(roundedEndTime));
+        doctorUnavailabilityDB.create(doctorUnavailableSlots);
+
+        System.out.println("Unavailability for " + roundedStartTime + " - " + roundedEndTime + " updated successfully.");
+    }
+
+    /**
+     * Rounds a time up to the start of the next appointment slot, counting
+     * slots from midnight. Times on a slot boundary are left as they are.
+     *
+     * @param time the time to round
+     * @return the rounded time
+     */
+    private LocalTime roundUpToSlot(LocalTime time) {
+        int slotMinutes = appointmentManager.getSlotMinutes();
+        int minutes = time.getHour() * 60 + time.getMinute();
+        int rounded = Math.min((minutes + slotMinutes - 1) / slotMinutes * slotMinutes, 24 * 60 - 1);
+        return LocalTime.of(rounded / 60, rounded % 60);
+    }
+
+    /**
+     * Allows the doctor to mark a range of whole days as leave. The leave is
+     * stored as a single block of unavailability covering every day in the range.
+     * Leave cannot be taken over confirmed appointments or pending appointment
+     * requests, which must be handled first.
+     */
+    private void setLeave() {
+        System.out.println("Enter the first day of leave (yyyy-MM-dd), or type 'back' to return:");
+        LocalDate firstDay = readLeaveDate();
+        if (firstDay == null) {
+            return;
+        }
+        System.out.println("Enter the last day of leave (yyyy-MM-dd), or type 'back' to return:");
+        LocalDate lastDay = readLeaveDate();
+        if (lastDay == null) {
+            return;
+        }
+        if (firstDay.isBefore(LocalDate.now()) || lastDay.isBefore(firstDay)) {
+            System.out.println("The leave must start today or later and end on or after its first day.");
+            return;
+        }
+
+        boolean blocked = false;
+        for (String appointment : appointmentManager.getDoctorAppointments(doctor.getId(), "All")) {
+            String[] appointmentDetails = appointment.split(",");
+            LocalDate appointmentDate = LocalDate.parse(appointmentDetails[3]);
+            String status = appointmentDetails[5];
+            if (appointmentDate.isBefore(firstDay) || appointmentDate.isAfter(lastDay)) {
+                continue;
+            }
+            if (status.equalsIgnoreCase("Confirmed")) {
+                System.out.println("Warning: You have a confirmed appointment on " + appointmentDate + " at "
+                        + appointmentDetails[4] + ". Please cancel or reschedule it before taking leave.");
+                blocked = true;
+            } else if (status.equalsIgnoreCase("Pending")) {
+                System.out.println("Warning: You have a pending appointment request on " + appointmentDate + " at "
+                        + appointmentDetails[4] + ". Please accept or decline it before taking leave.");
+                blocked = true;
+            }
+        }
+        if (blocked) {
+            return;
+        }
+
+        doctorUnavailabilityDB.create(new DoctorUnavailableSlots(doctor.getId(), firstDay.atStartOfDay(),
+                lastDay.plusDays(1).atStartOfDay()));
+        System.out.println("Leave from " + firstDay + " to " + lastDay + " recorded successfully.");
+    }
+
+    /**
+     * Allows the doctor to cancel leave or unavailability over a range of whole
+     * days. Blocks that run past the range are shortened rather than removed.
+     */
+    private void cancelLeave() {
+        LocalDateTime now = LocalDateTime.now();
+        List<DoctorUnavailableSlots> upcoming = doctorUnavailabilityDB.getDoctorUnavailability(doctor.getId(), now,
+                LocalDateTime.MAX);
+        if (upcoming.isEmpty()) {
+            System.out.println("You have no upcoming leave or unavailability.");
+            return;
+        }
+        System.out.println("Your upcoming leave and unavailability:");
+        for (DoctorUnavailableSlots block : upcoming) {
+            System.out.println("- " + block.getStart() + " to " + block.getEnd());
+        }
+
+        System.out.println("Enter the first day to cancel (yyyy-MM-dd), or type 'back' to return:");
+        LocalDate firstDay = readLeaveDate();
+        if (firstDay == null) {
+            return;
+        }
+        System.out.println("Enter the last day to cancel (yyyy-MM-dd), or type 'back' to return:");
+        LocalDate lastDay = readLeaveDate();
+        if (lastDay == null) {
+            return;
+        }
+        if (firstDay.isBefore(LocalDate.now()) || lastDay.isBefore(firstDay)) {
+            System.out.println("The days to cancel must start today or later and end on or after the first day.");
+            return;
+        }
 
-            currenTime = nextTime;
+        if (appointmentManager.removeUnavailability(doctor.getId(), firstDay.atStartOfDay(),
+                lastDay.plusDays(1).atStartOfDay())) {
+            System.out.println("Leave and unavailability from " + firstDay + " to " + lastDay
+                    + " cancelled successfully.");
+        } else {
+            System.out.println("You have no leave or unavailability from " + firstDay + " to " + lastDay + ".");
         }
+    }
 
-        System.out.println("Unavailability for " + roundedStartTime + " - " + roundedEndTime + " updated successfully.");
+    /**
+     * Allows the doctor to set their working hours and recurring breaks for a day
+     * of the week. The hours apply to that day in every week until changed.
+     */
+    private void setWeeklyWorkingHours() {
+        List<ScheduleTemplateEntry> template = appointmentManager.getWeeklyTemplate(doctor.getId());
+        System.out.println("Your weekly working hours (days not listed use the standard hours, 09:00 - 17:00):");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            StringBuilder line = new StringBuilder();
+            for (ScheduleTemplateEntry entry : template) {
+                if (entry.getDayOfWeek() == day) {
+                    line.append(entry.getType() == ScheduleTemplateEntry.Type.WORK ? " Working " : " Off ")
+                            .append(entry.getStart()).append(" - ").append(entry.getEnd()).append(";");
+                }
+            }
+            if (line.length() > 0) {
+                System.out.println(formatDay(day) + ":" + line);
+            }
+        }
+
+        System.out.print("Enter the day to set (1 for Monday to 7 for Sunday): ");
+        int dayNumber;
+        try {
+            dayNumber = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            dayNumber = 0;
+        }
+        if (dayNumber < 1 || dayNumber > 7) {
+            System.out.println("Invalid day.\nReturning to the Doctor Menu...");
+            return;
+        }
+        DayOfWeek day = DayOfWeek.of(dayNumber);
+
+        List<ScheduleTemplateEntry> entries = new ArrayList<>();
+        while (true) {
+            System.out.println("Enter your working hours on " + formatDay(day)
+                    + " (e.g., 09:00 - 17:00), 'off' if you do not work that day, or 'standard' for the standard hours:");
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("standard")) {
+                break;
+            }
+            if (input.equalsIgnoreCase("off")) {
+                entries.add(new ScheduleTemplateEntry(doctor.getId(), day, LocalTime.MIDNIGHT, LocalTime.of(23, 59),
+                        ScheduleTemplateEntry.Type.OFF));
+                break;
+            }
+            LocalTime[] hours = parseTimeRange(input);
+            if (hours == null) {
+                continue;
+            }
+            entries.add(new ScheduleTemplateEntry(doctor.getId(), day, hours[0], hours[1],
+                    ScheduleTemplateEntry.Type.WORK));
+
+            while (true) {
+                System.out.println("Enter a recurring break on " + formatDay(day)
+                        + " (e.g., 13:00 - 14:00), or leave blank to finish:");
+                String breakInput = scanner.nextLine().trim();
+                if (breakInput.isEmpty()) {
+                    break;
+                }
+                LocalTime[] breakHours = parseTimeRange(breakInput);
+                if (breakHours != null) {
+                    entries.add(new ScheduleTemplateEntry(doctor.getId(), day, breakHours[0], breakHours[1],
+                            ScheduleTemplateEntry.Type.OFF));
+                }
+            }
+            break;
+        }
+
+        if (appointmentManager.setWeeklyTemplate(doctor.getId(), day, entries)) {
+            System.out.println("Working hours for " + formatDay(day) + " updated successfully.");
+        } else {
+            System.out.println("Failed to update working hours. Please try again.");
+        }
+    }
+
+    /**
+     * Parses a time range in the format HH:MM - HH:MM.
+     *
+     * @param input the text entered by the doctor
+     * @return the start and end of the range, or null if the input is invalid
+     */
+    private LocalTime[] parseTimeRange(String input) {
+        String[] times = input.split(" - ");
+        if (times.length != 2 || !isValidTime(times[0].trim()) || !isValidTime(times[1].trim())) {
+            System.out.println("Invalid input format. Please enter the time range in the format HH:MM - HH:MM.");
+            return null;
+        }
+        LocalTime start = LocalTime.parse(times[0].trim());
+        LocalTime end = LocalTime.parse(times[1].trim());
+        if (!start.isBefore(end)) {
+            System.out.println("Start time must be earlier than end time. Please enter a valid range.");
+            return null;
+        }
+        return new LocalTime[] { start, end };
+    }
+
+    /**
+     * Formats a day of the week for display, e.g. "Monday".
+     *
+     * @param day the day of the week
+     * @return the day's name with only the first letter capitalised
+     */
+    private String formatDay(DayOfWeek day) {
+        return day.name().substring(0, 1) + day.name().substring(1).toLowerCase();
+    }
+
+    /**
+     * Reads a date for the leave from the doctor.
+     *
+     * @return the date entered, or null if the doctor typed 'back'
+     */
+    private LocalDate readLeaveDate() {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("back")) {
+                System.out.println("\nReturning to the Doctor Menu...");
+                return null;
+            }
+            try {
+                return LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please use the format yyyy-MM-dd (e.g., 2024-12-01).");
+            }
+        }
     }
 
     /**
@@ -732,6 +987,54 @@ public class DoctorMenu {
         }
     }
 
+    /**
+     * Allows the doctor to search the records of the patients under their care by diagnosis and
+     * medication, or to search consultation notes by keyword.
+     */
+    private void searchPatientRecords() {
+        Set<String> patientIds = appointmentManager.getPatientsUnderCare(doctor.getId());
+
+        System.out.print("Enter the diagnosis to search for (leave blank to match any): ");
+        String diagnosis = scanner.nextLine().trim();
+        System.out.print("Enter the medication to search for (leave blank to match any): ");
+        String medication = scanner.nextLine().trim();
+        System.out.print("Enter keywords to search consultation notes for (leave blank to skip): ");
+        String keywords = scanner.nextLine().trim();
+
+        if (diagnosis.isEmpty() && medication.isEmpty() && keywords.isEmpty()) {
+            System.out.println("No search criteria entered.\nReturning to the Doctor Menu...");
+            return;
+        }
+
+        if (!diagnosis.isEmpty() || !medication.isEmpty()) {
+            Set<String> matches = searchManager.searchPatients(diagnosis, medication, patientIds);
+            if (matches.isEmpty()) {
+                System.out.println("No patients under your care match the search.");
+            } else {
+                System.out.println("Patients under your care matching the search:");
+                for (String patientId : matches) {
+                    System.out.println("Patient Name: " + userDB.getById(patientId).getName() + "\t\t[" + patientId + "]");
+                }
+            }
+        }
+
+        if (!keywords.isEmpty()) {
+            Set<String> appointmentIds = searchManager.searchConsultationNotes(keywords);
+            boolean found = false;
+            for (String appointmentId : appointmentIds) {
+                AppointmentOutcomeRecord record = appointmentOutcomeManager.getOutcomeRecord(appointmentId);
+                if (record != null && patientIds.contains(record.getPatientId())) {
+                    System.out.println("Appointment ID: " + appointmentId + ", Patient ID: " + record.getPatientId()
+                            + ", Date: " + record.getAppointmentDate() + ", Notes: " + record.getConsultationNotes());
+                    found = true;
+                }
+            }
+            if (!found) {
+                System.out.println("No consultation notes of patients under your care match the keywords.");
+            }
+        }
+    }
+
     /**
      * Changes the pharmacist's password.
      */
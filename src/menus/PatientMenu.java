@@ -1,5 +1,9 @@
 package menus;
 
+import appointments.Appointment;
+import appointments.AppointmentOutcomeRecord;
+import appointments.AvailableSlot;
+import appointments.Visit;
 import database.UserDB;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -8,6 +12,8 @@ import java.util.Scanner;
 import managers.AppointmentManager;
 import managers.AppointmentOutcomeManager;
 import managers.MedicalRecordManager;
+import managers.SessionManager;
+import managers.WaitlistManager;
 import menus.utils.ValidationUtils;
 import users.Patient;
 
@@ -18,11 +24,18 @@ import users.Patient;
  */
 public class PatientMenu {
 
+    private static final int OUTCOME_PAGE_SIZE = 5; // Outcome records shown per page
+    private static final int MAX_APPOINTMENT_MINUTES = 120; // Longest appointment a patient can book
+    private static final int EARLIEST_SLOT_COUNT = 5; // Earliest appointments offered across all doctors
+
     private Patient patient;
     private Scanner scanner;
     private MedicalRecordManager medicalRecordManager;
     private AppointmentManager appointmentManager;
     private AppointmentOutcomeManager appointmentOutcomeManager;
+    private WaitlistManager waitlistManager;
+    private SessionManager sessionManager;
+    private String token; // The session this menu acts for
     private UserDB userDB;
 
     /**
@@ -34,10 +47,12 @@ public class PatientMenu {
      * @param appointmentManager the manager handling appointments
      * @param appointmentOutcomeManager the manager handling appointment
      * outcomes
+     * @param sessionManager the manager holding the patient's session
+     * @param token the patient's session token
      */
     public PatientMenu(Patient patient, MedicalRecordManager medicalRecordManager,
             AppointmentManager appointmentManager, AppointmentOutcomeManager appointmentOutcomeManager,
-            UserDB userDB) {
+            WaitlistManager waitlistManager, UserDB userDB, SessionManager sessionManager, String token) {
 
         this.patient = patient;
         this.userDB = userDB;
@@ -45,6 +60,9 @@ public class PatientMenu {
         this.medicalRecordManager = medicalRecordManager;
         this.appointmentManager = appointmentManager;
         this.appointmentOutcomeManager = appointmentOutcomeManager;
+        this.waitlistManager = waitlistManager;
+        this.sessionManager = sessionManager;
+        this.token = token;
     }
 
     /**
@@ -58,12 +76,13 @@ public class PatientMenu {
             System.out.println("2. Update Personal Information");
             System.out.println("3. View Available Appointment Slots");
             System.out.println("4. Schedule Appointment");
-            System.out.println("5. Reschedule an Appointment");
-            System.out.println("6. Cancel an Appointment");
-            System.out.println("7. View Scheduled Appointments");
-            System.out.println("8. View Past Appointment Outcome Records");
-            System.out.println("9. Change Password");
-            System.out.println("10. Logout");
+            System.out.println("5. Book Earliest Available Appointment");
+            System.out.println("6. Reschedule an Appointment");
+            System.out.println("7. Cancel an Appointment");
+            System.out.println("8. View Scheduled Appointments");
+            System.out.println("9. View Past Appointment Outcome Records");
+            System.out.println("10. Change Password");
+            System.out.println("11. Logout");
             System.out.print("Enter the number corresponding to your choice: ");
 
             while (!scanner.hasNextInt()) {
@@ -74,6 +93,12 @@ public class PatientMenu {
             scanner.nextLine(); // Consume newline
             System.out.println(); // Add a line break for spacing
 
+            // Check the session before every action, so it can expire while the user is logged in
+            if (!sessionManager.isAuthorized(token, SessionManager.Role.PATIENT)) {
+                System.out.println("Your session is invalid or has expired. Logging out.");
+                return;
+            }
+
             switch (choice) {
                 case 1:
                     viewMedicalRecord();
@@ -88,27 +113,30 @@ public class PatientMenu {
                     scheduleAppointment();
                     break;
                 case 5:
-                    rescheduleAppointment();
+                    bookEarliestAppointment();
                     break;
                 case 6:
-                    cancelAppointment();
+                    rescheduleAppointment();
                     break;
                 case 7:
-                    viewScheduledAppointments();
+                    cancelAppointment();
                     break;
                 case 8:
-                    appointmentOutcomeManager.viewPatientOutcomeRecords(patient.getId());
+                    viewScheduledAppointments();
                     break;
                 case 9:
-                    changePassword();
+                    viewPastOutcomeRecords();
                     break;
                 case 10:
+                    changePassword();
+                    break;
+                case 11:
                     System.out.println("Logging out...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 10);
+        } while (choice != 11);
     }
 
     /**
@@ -159,6 +187,20 @@ public class PatientMenu {
         return getValidMenuChoice(1, availableSlots.size()) - 1;
     }
 
+    /**
+     * Displays the patient's past appointment outcome records a page at a time.
+     */
+    private void viewPastOutcomeRecords() {
+        int page = 0;
+        while (appointmentOutcomeManager.viewPatientOutcomeRecords(patient.getId(), page, OUTCOME_PAGE_SIZE)) {
+            System.out.println("Show more records? (Y/N)");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+                break;
+            }
+            page++;
+        }
+    }
+
     /**
      * Displays the patient's medical record.
      */
@@ -203,6 +245,23 @@ public class PatientMenu {
         return doctors.get(selectedDoctorIndex).split(" - ")[1].trim();
     }
 
+    /**
+     * Prompts the user to choose how many consecutive slots the appointment
+     * needs, up to two hours.
+     *
+     * @return the length of the appointment in minutes
+     */
+    private int selectDuration() {
+        int slotMinutes = appointmentManager.getSlotMinutes();
+        int maxSlots = Math.max(1, MAX_APPOINTMENT_MINUTES / slotMinutes);
+        if (maxSlots == 1) {
+            return slotMinutes;
+        }
+        System.out.print("How many " + slotMinutes + "-minute slots does the appointment need (1 to " + maxSlots
+                + ")? ");
+        return getValidMenuChoice(1, maxSlots) * slotMinutes;
+    }
+
     /**
      * Selects a doctor slot and schedules an appointment.
      *
@@ -210,23 +269,26 @@ public class PatientMenu {
      * @param date the date for the appointment
      */
     private void selectAndScheduleDoctorSlot(String doctorId, LocalDate date) {
-        appointmentManager.showAvailableSlots(doctorId, date);
+        int durationMinutes = selectDuration();
+        appointmentManager.showAvailableSlots(doctorId, date, durationMinutes);
 
         System.out.println("\nSelect an available slot ... ");
 
         int selectedDayIndex = selectDaySlot();
         LocalDate selectedDay = date.plusDays(selectedDayIndex);
-        List<LocalTime> availableSlots = appointmentManager.getAvailableSlotsForDoctor(doctorId, selectedDay);
+        List<LocalTime> availableSlots = appointmentManager.getAvailableSlotsForDoctor(doctorId, selectedDay,
+                durationMinutes);
 
         if (availableSlots.isEmpty()) {
             System.out.println("No available slots for the selected doctor on this date.");
+            offerWaitlist(doctorId, selectedDay, durationMinutes);
             return;
         }
 
         int selectedTimeSlotIndex = selectTimeSlot(availableSlots);
 
         boolean success = appointmentManager.scheduleAppointment(patient.getId(), doctorId, selectedDay,
-                selectedTimeSlotIndex);
+                selectedTimeSlotIndex, durationMinutes);
         if (success) {
             System.out.println("Appointment scheduled successfully.");
         } else {
@@ -234,6 +296,24 @@ public class PatientMenu {
         }
     }
 
+    /**
+     * Offers to put the patient on the waitlist for a fully booked day. If an
+     * appointment on that day is cancelled, the patient is booked into the
+     * freed time automatically.
+     *
+     * @param doctorId        the ID of the selected doctor
+     * @param date            the fully booked day
+     * @param durationMinutes the length of the appointment wanted
+     */
+    private void offerWaitlist(String doctorId, LocalDate date, int durationMinutes) {
+        System.out.println(waitlistManager.getWaitlistDepth(doctorId, date)
+                + " patient(s) are waiting for this day. Join the waitlist? (Y/N)");
+        String choice = scanner.nextLine().trim().toUpperCase();
+        if (choice.equals("Y")) {
+            waitlistManager.joinWaitlist(patient.getId(), doctorId, date, durationMinutes);
+        }
+    }
+
     /**
      * Schedules a new appointment for the patient.
      */
@@ -246,31 +326,68 @@ public class PatientMenu {
     }
 
     /**
-     * Displays the patient's scheduled appointments.
+     * Books one of the earliest open appointments with any doctor, so the
+     * patient does not have to look through each doctor's days.
+     */
+    private void bookEarliestAppointment() {
+        System.out.println("Finding the earliest available appointments...");
+
+        int durationMinutes = selectDuration();
+        List<AvailableSlot> slots = appointmentManager.findEarliestSlots(EARLIEST_SLOT_COUNT, durationMinutes);
+        if (slots.isEmpty()) {
+            System.out.println("No available appointments were found.");
+            return;
+        }
+
+        for (int i = 0; i < slots.size(); i++) {
+            AvailableSlot slot = slots.get(i);
+            System.out.printf("%d. %s %s  Dr. %s%n", i + 1, slot.getDate(), slot.getTime(),
+                    userDB.getById(slot.getDoctorId()).getName());
+        }
+        System.out.print("Please select an appointment (1 to " + slots.size() + "), or 0 to go back: ");
+        int choice = getValidMenuChoice(0, slots.size());
+        if (choice == 0) {
+            return;
+        }
+
+        AvailableSlot slot = slots.get(choice - 1);
+        boolean success = appointmentManager.scheduleAppointmentAt(patient.getId(), slot.getDoctorId(),
+                slot.getDate(), slot.getTime(), slot.getDurationMinutes());
+        if (success) {
+            System.out.println("Appointment scheduled successfully.");
+        } else {
+            System.out.println("Failed to schedule the appointment.");
+        }
+    }
+
+    /**
+     * Displays the patient's scheduled appointments, with the outcome of each
+     * appointment that has one.
      */
     private void viewScheduledAppointments() {
         System.out.println("Viewing scheduled appointments...");
 
-        List<String> appointments = appointmentManager.getPatientAppointments(patient.getId());
+        List<Visit> visits = appointmentManager.getPatientVisits(patient.getId());
 
-        if (appointments.isEmpty()) {
+        if (visits.isEmpty()) {
             System.out.println("No scheduled appointments found.");
         } else {
-            for (String appointment : appointments) {
-                String[] details = appointment.split(",");
-                String appointmentId = details[0].trim();
-                String doctorId = details[1].trim();
-                String patientId = details[2].trim();
-                String date = details[3].trim();
-                String time = details[4].trim();
-                String status = details[5].trim();
-
-                System.out.println("\nAppointment ID: " + appointmentId);
-                System.out.println("Doctor: " + userDB.getById(doctorId).getName());
-                System.out.println("Patient ID: " + patientId);
-                System.out.println("Date: " + date);
-                System.out.println("Time: " + time);
-                System.out.println("Status: " + status);
+            for (Visit visit : visits) {
+                Appointment appointment = visit.getAppointment();
+
+                System.out.println("\nAppointment ID: " + appointment.getAppointmentId());
+                System.out.println("Doctor: " + userDB.getById(appointment.getDoctorId()).getName());
+                System.out.println("Patient ID: " + appointment.getPatientId());
+                System.out.println("Date: " + appointment.getAppointmentDate());
+                System.out.println("Time: " + appointment.getAppointmentTime() + " ("
+                        + appointment.getDurationMinutes() + " minutes)");
+                System.out.println("Status: " + appointment.getStatus());
+                if (visit.hasOutcome()) {
+                    AppointmentOutcomeRecord outcome = visit.getOutcomeRecord();
+                    System.out.println("Service Provided: " + outcome.getServiceProvided());
+                    System.out.println("Prescription Status: " + outcome.getPrescribedStatus());
+                    System.out.println("Consultation Notes: " + outcome.getConsultationNotes());
+                }
                 System.out.println("------------------------");
             }
         }
@@ -353,14 +470,20 @@ public class PatientMenu {
         }
 
         String newDoctorID = selectDoctor();
+        int durationMinutes = appointmentManager.getAppointmentDuration(appointmentId);
 
-        appointmentManager.showAvailableSlots(newDoctorID, LocalDate.now());
+        appointmentManager.showAvailableSlots(newDoctorID, LocalDate.now(), durationMinutes);
         System.out.println("==== Select a new appointment ====");
 
         int selectedDayIndex = selectDaySlot();
         LocalDate newDate = LocalDate.now().plusDays(selectedDayIndex);
-        int selectedTimeSlotIndex = selectTimeSlot(
-                appointmentManager.getAvailableSlotsForDoctor(newDoctorID, newDate));
+        List<LocalTime> availableSlots = appointmentManager.getAvailableSlotsForDoctor(newDoctorID, newDate,
+                durationMinutes);
+        if (availableSlots.isEmpty()) {
+            System.out.println("No available slots for the selected doctor on this date.");
+            return;
+        }
+        int selectedTimeSlotIndex = selectTimeSlot(availableSlots);
 
         appointmentManager.rescheduleAppointment(newDoctorID, appointmentId, newDate, selectedTimeSlotIndex);
     }
@@ -1,13 +1,17 @@
 package menus;
 
 import appointments.AppointmentOutcomeRecord;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 import database.UserDB;
 import managers.AppointmentOutcomeManager;
 import managers.InventoryManager;
+import managers.ReplenishmentPlanner;
+import managers.SessionManager;
 import medicine.Medicine;
 import medicine.ReplenishmentRequest;
 import menus.utils.ValidationUtils;
@@ -24,8 +28,11 @@ public class PharmacistMenu {
     private Pharmacist pharmacist;
     private AppointmentOutcomeManager appointmentOutcomeManager;
     private InventoryManager inventory;
+    private ReplenishmentPlanner replenishmentPlanner;
     private Scanner scanner;
     private UserDB userDB;
+    private SessionManager sessionManager;
+    private String token; // The session this menu acts for
 
     /**
      * Constructs a PharmacistMenu with the specified pharmacist, appointment
@@ -34,14 +41,21 @@ public class PharmacistMenu {
      * @param pharmacist                the pharmacist using the menu
      * @param appointmentOutcomeManager the manager for appointment outcomes
      * @param inventory                 the inventory of medicines
+     * @param replenishmentPlanner      the planner for replenishment requests
+     * @param sessionManager            the manager holding the pharmacist's session
+     * @param token                     the pharmacist's session token
      */
     public PharmacistMenu(Pharmacist pharmacist, AppointmentOutcomeManager appointmentOutcomeManager,
-        InventoryManager inventory, UserDB userDB) {
+        InventoryManager inventory, ReplenishmentPlanner replenishmentPlanner, UserDB userDB,
+        SessionManager sessionManager, String token) {
         this.pharmacist = pharmacist;
         this.appointmentOutcomeManager = appointmentOutcomeManager;
         this.inventory = inventory;
+        this.replenishmentPlanner = replenishmentPlanner;
         this.scanner = new Scanner(System.in);
         this.userDB = userDB;
+        this.sessionManager = sessionManager;
+        this.token = token;
     }
 
     /**
@@ -52,12 +66,15 @@ public class PharmacistMenu {
         do {
             System.out.println("\n=== Pharmacist Menu ===");
             System.out.println("1. View Appointment Outcome Records");
-            System.out.println("2. Update Prescription Status");
-            System.out.println("3. View Medication Inventory");
-            System.out.println("4. Submit Replenishment Request");
-            System.out.println("5. View Replenishment Requests");
-            System.out.println("6. Change Password");
-            System.out.println("7. Logout");
+            System.out.println("2. View Pending Prescriptions");
+            System.out.println("3. Update Prescription Status");
+            System.out.println("4. Dispense Multiple Prescriptions");
+            System.out.println("5. View Medication Inventory");
+            System.out.println("6. Submit Replenishment Request");
+            System.out.println("7. View Replenishment Requests");
+            System.out.println("8. Forecast Stock and Plan Replenishment");
+            System.out.println("9. Change Password");
+            System.out.println("10. Logout");
             System.out.print("Enter your choice: ");
 
             while (!scanner.hasNextInt()) {
@@ -67,32 +84,47 @@ public class PharmacistMenu {
             choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
+            // Check the session before every action, so it can expire while the user is logged in
+            if (!sessionManager.isAuthorized(token, SessionManager.Role.PHARMACIST)) {
+                System.out.println("Your session is invalid or has expired. Logging out.");
+                return;
+            }
+
             switch (choice) {
                 case 1:
                     viewAppointmentOutcomeRecords();
                     break;
                 case 2:
-                    inputPrescriptionStatus();
+                    viewPendingPrescriptions();
                     break;
                 case 3:
-                    inventory.displayInventory();
+                    inputPrescriptionStatus();
                     break;
                 case 4:
-                    submitReplenishmentRequest();
+                    dispenseMultiplePrescriptions();
                     break;
                 case 5:
-                    displayReplenishmentRequests();
+                    inventory.displayInventory();
                     break;
                 case 6:
-                    changePassword();
+                    submitReplenishmentRequest();
                     break;
                 case 7:
+                    displayReplenishmentRequests();
+                    break;
+                case 8:
+                    planReplenishment();
+                    break;
+                case 9:
+                    changePassword();
+                    break;
+                case 10:
                     System.out.println("Logging out...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 7);
+        } while (choice != 10);
     }
 
     /**
@@ -110,6 +142,36 @@ public class PharmacistMenu {
         }
     }
 
+    /**
+     * Displays the appointment outcome records whose prescriptions are still
+     * waiting to be dispensed, either in the order they were queued or by
+     * appointment date.
+     */
+    private void viewPendingPrescriptions() {
+        int queueLength = appointmentOutcomeManager.getPendingQueueLength();
+        if (queueLength == 0) {
+            System.out.println("No prescriptions are waiting to be dispensed.");
+            return;
+        }
+
+        System.out.println("Prescriptions waiting: " + queueLength + ", oldest waiting for "
+                + appointmentOutcomeManager.getOldestPendingAge().toHours() + " hour(s).");
+        System.out.print("Order by (1 for arrival order, 2 for appointment date): ");
+        while (!scanner.hasNextInt()) {
+            System.out.println("Invalid input. Please enter a number.");
+            scanner.next();
+        }
+        int order = scanner.nextInt();
+        scanner.nextLine(); // Consume newline
+
+        List<AppointmentOutcomeRecord> pending = (order == 2)
+                ? appointmentOutcomeManager.getPendingPrescriptionsByPriority()
+                : appointmentOutcomeManager.getPendingPrescriptions();
+        for (AppointmentOutcomeRecord record : pending) {
+            System.out.println(record);
+        }
+    }
+
     /**
      * Allows the pharmacist to update the prescription status for a specific
      * appointment.
@@ -124,40 +186,86 @@ public class PharmacistMenu {
         }
         int statusInput = scanner.nextInt();
         scanner.nextLine(); // Consume newline
-        String newStatus = (statusInput == 1) ? "Dispensed" : "Pending";
 
-        boolean updated = appointmentOutcomeManager.updatePrescriptionStatus(appointmentId, newStatus);
+        // Dispensing takes the prescribed medicines out of the inventory, so it goes
+        // through the batch path even for a single record
+        boolean updated = (statusInput == 1)
+                ? appointmentOutcomeManager.dispensePrescriptions(Arrays.asList(appointmentId), inventory)
+                : appointmentOutcomeManager.updatePrescriptionStatus(appointmentId, "Pending");
 
         if (updated) {
-            try {
-                appointmentOutcomeManager.getAppointmentOutcomeRecordDB().save();
-                System.out.println("Prescription status updated and saved successfully.");
-            } catch (IOException e) {
-                System.out.println("Error saving updated status: " + e.getMessage());
-            }
+            System.out.println("Prescription status updated and saved successfully.");
         } else {
             System.out.println("Failed to update prescription status. Check the Appointment ID or status.");
         }
     }
 
+    /**
+     * Allows the pharmacist to select several pending prescriptions and dispense
+     * them together. The stock for the whole selection is checked and deducted at
+     * once, so either every selected prescription is dispensed or none is.
+     */
+    private void dispenseMultiplePrescriptions() {
+        List<AppointmentOutcomeRecord> pending = appointmentOutcomeManager.getPendingPrescriptions();
+        if (pending.isEmpty()) {
+            System.out.println("No prescriptions are waiting to be dispensed.");
+            return;
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            AppointmentOutcomeRecord record = pending.get(i);
+            System.out.println((i + 1) + ". Appointment ID: " + record.getAppointmentId() + ", Patient ID: "
+                    + record.getPatientId() + ", Medications: " + record.getMedications());
+        }
+        System.out.print("Enter the numbers to dispense separated by commas, or 'all': ");
+        String input = scanner.nextLine().trim();
+
+        List<String> appointmentIds = new ArrayList<>();
+        if (input.equalsIgnoreCase("all")) {
+            for (AppointmentOutcomeRecord record : pending) {
+                appointmentIds.add(record.getAppointmentId());
+            }
+        } else {
+            for (String part : input.split(",")) {
+                try {
+                    int index = Integer.parseInt(part.trim()) - 1;
+                    if (index < 0 || index >= pending.size()) {
+                        System.out.println("Invalid selection: " + part.trim());
+                        return;
+                    }
+                    appointmentIds.add(pending.get(index).getAppointmentId());
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid selection: " + part.trim());
+                    return;
+                }
+            }
+        }
+
+        if (appointmentOutcomeManager.dispensePrescriptions(appointmentIds, inventory)) {
+            System.out.println(appointmentIds.size() + " prescription(s) dispensed successfully.");
+        } else {
+            System.out.println("No prescriptions were dispensed.");
+        }
+    }
+
     /**
      * Submits a replenishment request for a specific medication if its stock is
      * low.
      */
     private void submitReplenishmentRequest() {
-        System.out.print("Enter the medication ID: ");
-        String medicationId = scanner.nextLine();
-        System.out.print("Enter the quantity to replenish: ");
-        while (!scanner.hasNextInt()) {
-            System.out.println("Invalid input. Please enter a number.");
-            scanner.next();
-        }
-        int quantity = scanner.nextInt();
-        scanner.nextLine(); // Consume newline
-
-        Medicine medicine = inventory.getMedicineById(medicationId);
+        System.out.print("Enter the medication ID or name: ");
+        Medicine medicine = findMedicine(scanner.nextLine().trim());
 
         if (medicine != null) {
+            String medicationId = medicine.getId();
+            System.out.print("Enter the quantity to replenish: ");
+            while (!scanner.hasNextInt()) {
+                System.out.println("Invalid input. Please enter a number.");
+                scanner.next();
+            }
+            int quantity = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+
             if (medicine.isStockLow()) {
                 if (inventory.replenishStock(medicationId, quantity)) {
                     System.out.println("Replenishment request submitted successfully for " + medicine.getName() + ".");
@@ -168,10 +276,49 @@ public class PharmacistMenu {
                 System.out.println("Stock level for " + medicine.getName()
                         + " is sufficient. No need for a replenishment request.");
             }
-        } else {
+        }
+    }
+
+    /**
+     * Finds a medicine from a name, the start of a name, or an ID. If several
+     * medicines start with the text entered, they are listed and the pharmacist
+     * is asked for the ID of the one they meant.
+     *
+     * @param input the text entered by the pharmacist
+     * @return the matching medicine, or null if there is no match
+     */
+    private Medicine findMedicine(String input) {
+        Medicine medicine = inventory.getMedicineByName(input);
+        if (medicine != null) {
+            return medicine;
+        }
+
+        List<Medicine> matches = input.isEmpty() ? new ArrayList<>() : inventory.findMedicinesByPrefix(input);
+        if (matches.size() == 1) {
+            return matches.get(0);
+        }
+        if (matches.size() > 1) {
+            System.out.println("Several medicines match '" + input + "':");
+            for (Medicine match : matches) {
+                System.out.println(match);
+            }
+            System.out.print("Enter the ID of the medicine: ");
+            String id = scanner.nextLine().trim();
+            for (Medicine match : matches) {
+                if (match.getId().equalsIgnoreCase(id)) {
+                    return match;
+                }
+            }
+            System.out.println("Error: " + id + " is not one of the listed medicines.");
+            return null;
+        }
+
+        medicine = inventory.getMedicineById(input);
+        if (medicine == null) {
             System.out.println("List of Medicine:");
             inventory.displayInventory();
         }
+        return medicine;
     }
 
     /**
@@ -189,6 +336,69 @@ public class PharmacistMenu {
         }
     }
 
+    /**
+     * Shows the forecast stockout date of each medicine being dispensed and
+     * offers to submit the suggested replenishment requests as one batch.
+     */
+    private void planReplenishment() {
+        List<Medicine> medicines = replenishmentPlanner.getConsumedMedicines();
+        if (medicines.isEmpty()) {
+            System.out.println("No medicines have been dispensed yet.");
+            return;
+        }
+
+        System.out.println("Stock Forecast:");
+        for (Medicine medicine : medicines) {
+            System.out.printf("%s: %d in stock, %.2f used per day, runs out around %s%n", medicine.getName(),
+                    medicine.getStockLevel(), replenishmentPlanner.getDailyConsumption(medicine),
+                    replenishmentPlanner.forecastStockoutDate(medicine));
+        }
+
+        System.out.print("Enter the delivery lead time in days: ");
+        int leadTimeDays = readNonNegativeInt();
+        System.out.print("Enter the number of days each delivery should cover: ");
+        int coverDays = readNonNegativeInt();
+
+        Map<String, Integer> plan = replenishmentPlanner.planReplenishment(leadTimeDays, coverDays);
+        if (plan.isEmpty()) {
+            System.out.println("No medicines need to be replenished.");
+            return;
+        }
+
+        System.out.println("Suggested Replenishment Requests:");
+        for (Map.Entry<String, Integer> entry : plan.entrySet()) {
+            System.out.println(entry.getKey() + "," + entry.getValue());
+        }
+        System.out.print("Submit these requests? (Y/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+            if (replenishmentPlanner.submitPlan(plan)) {
+                System.out.println(plan.size() + " replenishment request(s) submitted successfully.");
+            } else {
+                System.out.println("Failed to submit replenishment requests.");
+            }
+        }
+    }
+
+    /**
+     * Reads a whole number that is zero or greater.
+     *
+     * @return the number entered
+     */
+    private int readNonNegativeInt() {
+        while (true) {
+            while (!scanner.hasNextInt()) {
+                System.out.println("Invalid input. Please enter a number.");
+                scanner.next();
+            }
+            int value = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+            if (value >= 0) {
+                return value;
+            }
+            System.out.println("Please enter a number that is zero or greater.");
+        }
+    }
+
     /**
      * Changes the pharmacist's password.
      */
@@ -0,0 +1,111 @@
+package users;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * The PasswordHasher class hashes and verifies passwords using PBKDF2 with
+ * HMAC-SHA256 and a random salt per password.
+ * Hashes are stored as "pbkdf2$iterations$salt$hash", with the salt and hash
+ * Base64-encoded, so they never contain a comma and can be kept in the user CSV
+ * file. Stored values without this prefix are treated as legacy plaintext
+ * passwords.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2";
+    private static final String SEPARATOR = "$";
+    private static final int ITERATIONS = 120000; // Work factor for new hashes
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Private constructor, as this class only has static methods.
+     */
+    private PasswordHasher() {
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password the password to hash
+     * @return the encoded hash
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, ITERATIONS);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + SEPARATOR + ITERATIONS + SEPARATOR + encoder.encodeToString(salt) + SEPARATOR
+                + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against a stored value, which may be an encoded hash or
+     * a legacy plaintext password. The comparison takes the same time however
+     * many characters match.
+     *
+     * @param password the password entered by the user
+     * @param stored   the stored hash or plaintext password
+     * @return true if the password matches, false otherwise
+     */
+    public static boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\" + SEPARATOR);
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false; // Malformed hash
+        }
+    }
+
+    /**
+     * Checks whether a stored value is an encoded hash rather than a plaintext
+     * password.
+     *
+     * @param stored the stored value
+     * @return true if the value is an encoded hash, false otherwise
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + SEPARATOR);
+    }
+
+    /**
+     * Derives a key from a password using PBKDF2.
+     *
+     * @param password   the password
+     * @param salt       the salt
+     * @param iterations the number of iterations
+     * @return the derived key
+     */
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
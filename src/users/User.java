@@ -129,25 +129,28 @@ public abstract class User {
     }
 
     /**
-     * Sets a new password for the user.
+     * Sets the stored password of the user. The value is stored as given, so it
+     * should normally be a hash from {@link PasswordHasher}.
      * 
-     * @param password the new password
+     * @param password the new stored password
      */
     public void setPassword(String password) {
         this.password = password;
     }
 
     /**
-     * Gets the password of the user.
+     * Gets the stored password of the user, which is a hash unless the account
+     * has not logged in since passwords started being hashed.
      * 
-     * @return the password
+     * @return the stored password
      */
     public String getPassword() {
         return password;
     }
 
     /**
-     * Changes the password of the user.
+     * Changes the password of the user. Only a salted hash of the new password
+     * is stored.
      * 
      * @param newPassword the new password
      * @return true if the password was successfully changed, false otherwise
@@ -156,7 +159,7 @@ public abstract class User {
         if (newPassword == null || newPassword.isEmpty()) {
             return false;
         }
-        this.password = newPassword;
+        this.password = PasswordHasher.hash(newPassword);
         return true;
     }
 